@@ -0,0 +1,269 @@
+package br.com.rjansen.desafios;
+
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.CalculoErro;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.ResultadoSomaMaxima;
+
+/**
+ * @author raphaeljansen
+ *
+ *         Arvore de segmentos sobre uma cadeia que responde, em O(log n),
+ *         qual a subcadeia de maior soma entre duas posicoes quaisquer e
+ *         aceita a alteracao de itens no mesmo tempo. Cada no guarda o mesmo
+ *         resumo de {@link ResumoSubcadeia} (soma total, melhor prefixo,
+ *         melhor sufixo e melhor subcadeia) do trecho que cobre, com os mesmos
+ *         desempates, entao uma consulta tem o mesmo resultado de
+ *         {@link SubcadeiaSomaMaxima#calcula(long[])} sobre o trecho.
+ *
+ *         Os nos nao sao objetos: cada campo do resumo e um vetor primitivo
+ *         indexado pelo no, no leiaute de heap (raiz 1, filhos 2i e 2i + 1)
+ *         sobre uma quantidade de folhas potencia de 2. As folhas alem do
+ *         final da cadeia sao vazias. A posicao 0 dos vetores, que nao e um
+ *         no, acumula o resultado das consultas; por isso a arvore nao deve
+ *         ser usada por mais de uma thread ao mesmo tempo.
+ */
+public class ArvoreSubcadeias {
+
+	private static final int ACUMULADOR = 0;
+
+	private final int tamanho;
+	private final int folhas;
+	private final long[] total;
+	private final long[] somaPrefixo;
+	private final int[] fimPrefixo;
+	private final long[] somaSufixo;
+	private final int[] inicioSufixo;
+	private final long[] somaMelhor;
+	private final int[] inicioMelhor;
+	private final int[] fimMelhor;
+	private boolean acumuladorVazio;
+
+	private ArvoreSubcadeias(int tamanho) {
+		if (tamanho > 1 << 29)
+			throw new CalculoErro("CadeiaMuitoGrande: Tamanho=%s", tamanho);
+		this.tamanho = tamanho;
+		this.folhas = Integer.highestOneBit(Math.max(1, tamanho - 1)) << 1;
+		final int nos = 2 * folhas;
+		this.total = new long[nos];
+		this.somaPrefixo = new long[nos];
+		this.fimPrefixo = new int[nos];
+		this.somaSufixo = new long[nos];
+		this.inicioSufixo = new int[nos];
+		this.somaMelhor = new long[nos];
+		this.inicioMelhor = new int[nos];
+		this.fimMelhor = new int[nos];
+	}
+
+	/**
+	 * Constroi a arvore em O(n).
+	 *
+	 * @param cadeia
+	 *            - Itens da cadeia, copiados para a arvore
+	 */
+	public ArvoreSubcadeias(long[] cadeia) {
+		this(tamanhoValido(cadeia == null ? -1 : cadeia.length));
+		for (int i = 0; i < tamanho; i++) {
+			defineFolha(i, cadeia[i]);
+		}
+		constroi();
+	}
+
+	/**
+	 * Constroi a arvore em O(n).
+	 *
+	 * @param cadeia
+	 *            - Itens da cadeia, copiados para a arvore
+	 */
+	public ArvoreSubcadeias(int[] cadeia) {
+		this(tamanhoValido(cadeia == null ? -1 : cadeia.length));
+		for (int i = 0; i < tamanho; i++) {
+			defineFolha(i, cadeia[i]);
+		}
+		constroi();
+	}
+
+	private static int tamanhoValido(int tamanho) {
+		if (tamanho < 0)
+			throw new CalculoErro("ParametroObrigatorio: cadeia");
+		return tamanho;
+	}
+
+	private void constroi() {
+		for (int no = folhas - 1; no > 0; no--) {
+			atualizaNo(no);
+		}
+	}
+
+	/**
+	 * @return int - Quantidade de itens da cadeia
+	 */
+	public int getTamanho() {
+		return tamanho;
+	}
+
+	/**
+	 * @param posicao
+	 *            - Posicao do item, a partir de 0
+	 * @return long - Valor atual do item
+	 */
+	public long item(int posicao) {
+		validaPosicao(posicao);
+		return total[folhas + posicao];
+	}
+
+	/**
+	 * Altera o valor de um item e recalcula apenas os nos acima dele, em
+	 * O(log n).
+	 *
+	 * @param posicao
+	 *            - Posicao do item, a partir de 0
+	 * @param valor
+	 *            - Novo valor do item
+	 */
+	public void atualiza(int posicao, long valor) {
+		validaPosicao(posicao);
+		defineFolha(posicao, valor);
+		for (int no = (folhas + posicao) >>> 1; no > 0; no >>>= 1) {
+			atualizaNo(no);
+		}
+	}
+
+	/**
+	 * Calcula a subcadeia de maior soma contida nas posicoes [inicio, fim],
+	 * combinando, da esquerda para a direita, os O(log n) nos que cobrem o
+	 * trecho.
+	 *
+	 * @param inicio
+	 *            - Primeira posicao do trecho, inclusiva
+	 * @param fim
+	 *            - Ultima posicao do trecho, inclusiva
+	 * @return ResultadoSomaMaxima - Resultado com posicoes na cadeia inteira,
+	 *         vazio com posicoes 0 quando nenhuma soma e positiva
+	 */
+	public ResultadoSomaMaxima consulta(int inicio, int fim) {
+		if (inicio < 0 || fim >= tamanho || inicio > fim)
+			throw new CalculoErro(
+					"TrechoInvalido: Inicio=%s Fim=%s Tamanho=%s", inicio,
+					fim, tamanho);
+		acumuladorVazio = true;
+		acumula(1, 0, folhas, inicio, fim + 1);
+		return somaMelhor[ACUMULADOR] > 0 ? new ResultadoSomaMaxima(
+				somaMelhor[ACUMULADOR], inicioMelhor[ACUMULADOR],
+				fimMelhor[ACUMULADOR]) : new ResultadoSomaMaxima(0, 0, 0);
+	}
+
+	/**
+	 * @return ResultadoSomaMaxima - Resultado da cadeia inteira, lido da raiz
+	 */
+	public ResultadoSomaMaxima getResultado() {
+		if (tamanho == 0 || somaMelhor[1] <= 0)
+			return new ResultadoSomaMaxima(0, 0, 0);
+		return new ResultadoSomaMaxima(somaMelhor[1], inicioMelhor[1],
+				fimMelhor[1]);
+	}
+
+	private void acumula(int no, int de, int ate, int inicio, int fim) {
+		if (inicio <= de && ate <= fim) {
+			if (acumuladorVazio) {
+				copia(ACUMULADOR, no);
+				acumuladorVazio = false;
+			} else {
+				combina(ACUMULADOR, ACUMULADOR, no);
+			}
+			return;
+		}
+		final int meio = (de + ate) >>> 1;
+		if (inicio < meio) {
+			acumula(2 * no, de, meio, inicio, fim);
+		}
+		if (fim > meio) {
+			acumula(2 * no + 1, meio, ate, inicio, fim);
+		}
+	}
+
+	private void validaPosicao(int posicao) {
+		if (posicao < 0 || posicao >= tamanho)
+			throw new CalculoErro("PosicaoInvalida: Posicao=%s Tamanho=%s",
+					posicao, tamanho);
+	}
+
+	private void defineFolha(int posicao, long valor) {
+		final int no = folhas + posicao;
+		total[no] = valor;
+		somaPrefixo[no] = valor;
+		fimPrefixo[no] = posicao;
+		somaSufixo[no] = valor;
+		inicioSufixo[no] = posicao;
+		somaMelhor[no] = Math.max(valor, 0);
+		inicioMelhor[no] = valor > 0 ? posicao : 0;
+		fimMelhor[no] = valor > 0 ? posicao : 0;
+	}
+
+	/**
+	 * Recalcula um no a partir dos filhos. Um filho direito que comeca alem
+	 * do final da cadeia e vazio e o no fica igual ao filho esquerdo.
+	 */
+	private void atualizaNo(int no) {
+		final int direito = 2 * no + 1;
+		final int nivel = 31 - Integer.numberOfLeadingZeros(direito);
+		final long inicioDireito = (long) (direito - (1 << nivel))
+				* (folhas >>> nivel);
+		if (inicioDireito >= tamanho) {
+			copia(no, 2 * no);
+		} else {
+			combina(no, 2 * no, direito);
+		}
+	}
+
+	private void copia(int destino, int origem) {
+		total[destino] = total[origem];
+		somaPrefixo[destino] = somaPrefixo[origem];
+		fimPrefixo[destino] = fimPrefixo[origem];
+		somaSufixo[destino] = somaSufixo[origem];
+		inicioSufixo[destino] = inicioSufixo[origem];
+		somaMelhor[destino] = somaMelhor[origem];
+		inicioMelhor[destino] = inicioMelhor[origem];
+		fimMelhor[destino] = fimMelhor[origem];
+	}
+
+	/**
+	 * Mesma combinacao de
+	 * {@link ResumoSubcadeia#combina(ResumoSubcadeia)}, com destino podendo
+	 * ser o proprio esquerdo.
+	 */
+	private void combina(int destino, int esquerdo, int direito) {
+		long melhor = somaMelhor[esquerdo];
+		int inicioMelhorNovo = inicioMelhor[esquerdo];
+		int fimMelhorNovo = fimMelhor[esquerdo];
+		final long somaCruzada = somaSufixo[esquerdo] + somaPrefixo[direito];
+		if (somaCruzada > melhor
+				|| (somaCruzada == melhor && somaCruzada > 0 && inicioSufixo[esquerdo] < inicioMelhorNovo)) {
+			melhor = somaCruzada;
+			inicioMelhorNovo = inicioSufixo[esquerdo];
+			fimMelhorNovo = fimPrefixo[direito];
+		}
+		if (somaMelhor[direito] > melhor) {
+			melhor = somaMelhor[direito];
+			inicioMelhorNovo = inicioMelhor[direito];
+			fimMelhorNovo = fimMelhor[direito];
+		}
+		if (total[esquerdo] + somaPrefixo[direito] > somaPrefixo[esquerdo]) {
+			somaPrefixo[destino] = total[esquerdo] + somaPrefixo[direito];
+			fimPrefixo[destino] = fimPrefixo[direito];
+		} else {
+			somaPrefixo[destino] = somaPrefixo[esquerdo];
+			fimPrefixo[destino] = fimPrefixo[esquerdo];
+		}
+		if (somaSufixo[esquerdo] + total[direito] < somaSufixo[direito]) {
+			somaSufixo[destino] = somaSufixo[direito];
+			inicioSufixo[destino] = inicioSufixo[direito];
+		} else {
+			somaSufixo[destino] = somaSufixo[esquerdo] + total[direito];
+			inicioSufixo[destino] = inicioSufixo[esquerdo];
+		}
+		total[destino] = total[esquerdo] + total[direito];
+		somaMelhor[destino] = melhor;
+		inicioMelhor[destino] = inicioMelhorNovo;
+		fimMelhor[destino] = fimMelhorNovo;
+	}
+
+}
@@ -0,0 +1,280 @@
+package br.com.rjansen.desafios;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.CalculoErro;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.ResultadoSomaMaxima;
+
+/**
+ * @author raphaeljansen
+ *
+ *         Cadeia guardada em arquivo binario e acessada via FileChannel.map,
+ *         sem converter texto nem copiar o arquivo para a memoria da JVM.
+ *
+ *         Formato do arquivo: apenas os itens, em sequencia, como inteiros
+ *         little-endian de 32 ou 64 bits, sem cabecalho. O formato nao e
+ *         gravado no arquivo e precisa ser informado na abertura.
+ *
+ *         Os blocos da cadeia sao resumidos em paralelo diretamente sobre os
+ *         segmentos mapeados, veja
+ *         {@link SubcadeiaSomaMaxima#resumeParalelo(long, int, ResumoSubcadeia.ResumidorBloco)}.
+ */
+public class CadeiaMapeada implements Closeable {
+
+	/**
+	 * @author raphaeljansen
+	 *
+	 *         Largura dos itens do arquivo binario
+	 */
+	public enum FormatoBinario {
+		INT32("int32", 4), INT64("int64", 8);
+
+		private final String apelido;
+		private final int tamanhoItem;
+
+		private FormatoBinario(String apelido, int tamanhoItem) {
+			this.apelido = apelido;
+			this.tamanhoItem = tamanhoItem;
+		}
+
+		public String getApelido() {
+			return apelido;
+		}
+
+		/**
+		 * @return int - Quantidade de bytes de cada item
+		 */
+		public int getTamanhoItem() {
+			return tamanhoItem;
+		}
+
+		public static FormatoBinario valorPeloApelido(String apelido) {
+			for (FormatoBinario formato : values()) {
+				if (formato.getApelido().equals(apelido)) {
+					return formato;
+				}
+			}
+			throw new CalculoErro(
+					"ImpossivelObterFormatoPeloApelido: Apelido=[%s]", apelido);
+		}
+	}
+
+	/**
+	 * Cada segmento mapeado cobre 1GB do arquivo, um MappedByteBuffer e
+	 * limitado a 2GB. O tamanho e multiplo dos dois tamanhos de item, entao
+	 * nenhum item fica dividido entre segmentos.
+	 */
+	private static final int BITS_SEGMENTO = 30;
+
+	private static final int TAMANHO_BUFFER_GRAVACAO = 1 << 16;
+
+	private final FileChannel canal;
+	private final MappedByteBuffer[] segmentos;
+	private final FormatoBinario formato;
+	private final long quantidade;
+	private final int bitsItensSegmento;
+
+	private CadeiaMapeada(FileChannel canal, FormatoBinario formato)
+			throws IOException {
+		this.canal = canal;
+		this.formato = formato;
+		final long tamanhoArquivo = canal.size();
+		this.quantidade = tamanhoArquivo / formato.getTamanhoItem();
+		this.bitsItensSegmento = BITS_SEGMENTO
+				- Integer.numberOfTrailingZeros(formato.getTamanhoItem());
+		this.segmentos = new MappedByteBuffer[(int) ((tamanhoArquivo
+				+ (1L << BITS_SEGMENTO) - 1) >>> BITS_SEGMENTO)];
+		for (int i = 0; i < segmentos.length; i++) {
+			final long inicio = (long) i << BITS_SEGMENTO;
+			segmentos[i] = canal.map(MapMode.READ_ONLY, inicio, Math.min(
+					1L << BITS_SEGMENTO, tamanhoArquivo - inicio));
+			segmentos[i].order(ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+
+	/**
+	 * Abre um arquivo binario somente para leitura.
+	 *
+	 * @param caminho
+	 *            - Arquivo com os itens da cadeia
+	 * @param formato
+	 *            - Largura dos itens do arquivo
+	 * @return CadeiaMapeada - Cadeia mapeada em memoria
+	 */
+	public static CadeiaMapeada abre(Path caminho, FormatoBinario formato) {
+		if (caminho == null)
+			throw new CalculoErro("ParametroObrigatorio: caminho");
+		if (formato == null)
+			throw new CalculoErro("ParametroObrigatorio: formato");
+		FileChannel canal = null;
+		try {
+			canal = FileChannel.open(caminho, StandardOpenOption.READ);
+			if (canal.size() % formato.getTamanhoItem() != 0)
+				throw new CalculoErro(
+						"ArquivoBinarioInvalido: Arquivo=[%s] Tamanho=%s Formato=%s",
+						caminho, canal.size(), formato.getApelido());
+			return new CadeiaMapeada(canal, formato);
+		} catch (IOException e) {
+			fecha(canal);
+			throw new CalculoErro("ErroAberturaCadeia: Arquivo=[%s]", e,
+					caminho);
+		} catch (RuntimeException e) {
+			fecha(canal);
+			throw e;
+		}
+	}
+
+	private static void fecha(FileChannel canal) {
+		if (canal != null) {
+			try {
+				canal.close();
+			} catch (IOException e) {
+				// o erro original e mais relevante
+			}
+		}
+	}
+
+	/**
+	 * Converte numeros em texto decimal para o formato binario, um bloco de
+	 * cada vez, sem guardar a cadeia em memoria.
+	 *
+	 * @param texto
+	 *            - Numeros em texto decimal, veja {@link LeitorNumeros}
+	 * @param destino
+	 *            - Arquivo binario, sobrescrito se existir
+	 * @param formato
+	 *            - Largura dos itens gravados
+	 * @return long - Quantidade de itens gravados
+	 */
+	public static long converte(InputStream texto, Path destino,
+			FormatoBinario formato) throws IOException {
+		final LeitorNumeros leitor = new LeitorNumeros(texto);
+		final ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_BUFFER_GRAVACAO)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		try (final FileChannel saida = FileChannel.open(destino,
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (leitor.avanca()) {
+				final long valor = leitor.getValor();
+				if (formato == FormatoBinario.INT32) {
+					if (valor < Integer.MIN_VALUE || valor > Integer.MAX_VALUE)
+						throw new CalculoErro(
+								"ItemExcedeFormato: Item=%s Valor=%s Formato=%s",
+								leitor.getQuantidade(), valor,
+								formato.getApelido());
+					buffer.putInt((int) valor);
+				} else {
+					buffer.putLong(valor);
+				}
+				if (!buffer.hasRemaining()) {
+					gravaBuffer(saida, buffer);
+				}
+			}
+			gravaBuffer(saida, buffer);
+		}
+		return leitor.getQuantidade();
+	}
+
+	private static void gravaBuffer(FileChannel saida, ByteBuffer buffer)
+			throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			saida.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	public FormatoBinario getFormato() {
+		return formato;
+	}
+
+	/**
+	 * @return long - Quantidade de itens da cadeia
+	 */
+	public long getQuantidade() {
+		return quantidade;
+	}
+
+	/**
+	 * @param posicao
+	 *            - Posicao do item, a partir de 0
+	 * @return long - Valor do item
+	 */
+	public long item(long posicao) {
+		if (posicao < 0 || posicao >= quantidade)
+			throw new CalculoErro("PosicaoInvalida: Posicao=%s Quantidade=%s",
+					posicao, quantidade);
+		final MappedByteBuffer segmento = segmentos[(int) (posicao >>> bitsItensSegmento)];
+		final int deslocamento = (int) (posicao & ((1L << bitsItensSegmento) - 1))
+				* formato.getTamanhoItem();
+		return formato == FormatoBinario.INT32 ? segmento
+				.getInt(deslocamento) : segmento.getLong(deslocamento);
+	}
+
+	/**
+	 * Resume os itens [inicio, fim), lendo-os diretamente dos segmentos
+	 * mapeados. Pode ser chamado por varias threads ao mesmo tempo: a leitura
+	 * usa apenas posicoes absolutas dos buffers.
+	 *
+	 * @return ResumoSubcadeia - Resumo do trecho
+	 */
+	public ResumoSubcadeia resume(long inicio, long fim) {
+		if (inicio < 0 || fim > quantidade || inicio > fim)
+			throw new CalculoErro(
+					"TrechoInvalido: Inicio=%s Fim=%s Quantidade=%s", inicio,
+					fim, quantidade);
+		final ResumoSubcadeia resumo = new ResumoSubcadeia(inicio);
+		final long mascara = (1L << bitsItensSegmento) - 1;
+		long posicao = inicio;
+		while (posicao < fim) {
+			final MappedByteBuffer segmento = segmentos[(int) (posicao >>> bitsItensSegmento)];
+			final int de = (int) (posicao & mascara);
+			final int ate = (int) Math.min(fim - posicao + de, mascara + 1);
+			if (formato == FormatoBinario.INT32) {
+				for (int i = de; i < ate; i++) {
+					resumo.adiciona(segmento.getInt(i << 2));
+				}
+			} else {
+				for (int i = de; i < ate; i++) {
+					resumo.adiciona(segmento.getLong(i << 3));
+				}
+			}
+			posicao += ate - de;
+		}
+		return resumo;
+	}
+
+	/**
+	 * Calcula a subcadeia de maior soma da cadeia inteira, com os blocos
+	 * resumidos em paralelo.
+	 *
+	 * @param paralelismo
+	 *            - Quantidade de threads utilizadas
+	 * @return ResultadoSomaMaxima - Resultado identico ao de
+	 *         {@link SubcadeiaSomaMaxima#calcula(long[])} sobre os mesmos
+	 *         itens
+	 */
+	public ResultadoSomaMaxima calcula(int paralelismo) {
+		return SubcadeiaSomaMaxima.resumeParalelo(quantidade, paralelismo,
+				this::resume).getResultado();
+	}
+
+	@Override
+	public void close() {
+		try {
+			canal.close();
+		} catch (IOException e) {
+			throw new CalculoErro("ErroFechamentoCadeia", e);
+		}
+	}
+
+}
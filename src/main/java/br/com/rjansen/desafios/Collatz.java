@@ -3,8 +3,20 @@ package br.com.rjansen.desafios;
 import static java.lang.System.currentTimeMillis;
 import static java.lang.System.out;
 
+import java.math.BigInteger;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import br.com.rjansen.desafios.CollatzIntervalo.ResultadoIntervalo;
+import br.com.rjansen.desafios.CollatzIntervalo.TabelaMemoria;
+import br.com.rjansen.desafios.CollatzIntervalo.TabelaTamanhos;
 
 /**
  * @author raphaeljansen
@@ -38,6 +50,81 @@ import java.util.List;
  */
 public class Collatz {
 
+	/**
+	 * @author raphaeljansen
+	 * 
+	 *         Erro lancado quando os parametros de uma analise de Collatz sao
+	 *         invalidos ou quando a analise nao pode ser concluida.
+	 */
+	public static class CollatzErro extends RuntimeException {
+		private static final long serialVersionUID = 4418239527006620845L;
+
+		public CollatzErro(String message, Throwable cause,
+				Object... parametrosMensagem) {
+			super(String.format(message, parametrosMensagem), cause);
+		}
+
+		public CollatzErro(String message, Object... parametrosMensagem) {
+			super(String.format(message, parametrosMensagem));
+		}
+
+		public CollatzErro(Throwable cause) {
+			super(cause);
+		}
+	}
+
+	/**
+	 * @author raphaeljansen
+	 * 
+	 *         Modo de varredura do intervalo utilizado pelo metodo principal
+	 */
+	public enum ModoExecucao {
+		SEQUENCIAL("sequencial"), PARALELO("paralelo"), SALTOS("saltos"), PODADO(
+				"podado"), RANKING("ranking"), HISTOGRAMA("histograma"), RETOMAVEL(
+				"retomavel"), PISTAS("pistas");
+
+		private final String apelido;
+
+		private ModoExecucao(String apelido) {
+			this.apelido = apelido;
+		}
+
+		public String getApelido() {
+			return apelido;
+		}
+
+		public static ModoExecucao valorPeloApelido(String apelido) {
+			for (ModoExecucao modo : values()) {
+				if (modo.getApelido().equals(apelido)) {
+					return modo;
+				}
+			}
+			throw new CollatzErro(
+					"ImpossivelObterModoPeloApelido: Apelido=[%s]", apelido);
+		}
+	}
+
+	/**
+	 * Maior valor impar para o qual 3n + 1 ainda cabe em um inteiro longo.
+	 * Acima dele a caminhada continua com BigInteger.
+	 */
+	public static final long LIMITE_PASSO_IMPAR = (Long.MAX_VALUE - 1) / 3;
+
+	private static final BigInteger LIMITE_PASSO_IMPAR_GRANDE = BigInteger
+			.valueOf(LIMITE_PASSO_IMPAR);
+	private static final BigInteger TRES = BigInteger.valueOf(3);
+
+	/**
+	 * Quantidade de maiores sequencias exibidas no modo ranking.
+	 */
+	private static final int TAMANHO_RANKING = 10;
+
+	/**
+	 * Intervalo, em milissegundos, entre gravacoes do ponto de controle no
+	 * modo retomavel.
+	 */
+	private static final long INTERVALO_GRAVACAO = 60000L;
+
 	private final List<Long> sequenciaGerada = new ArrayList<>();
 
 	/**
@@ -64,18 +151,145 @@ public class Collatz {
 	 */
 	public void executa(Long numeroInicial) {
 		sequenciaGerada.clear();
-		Long numero = numeroInicial;
-		while (true) {
-			sequenciaGerada.add(numero);
-			if (numero == 1) {
-				break;
+		final PrimitiveIterator.OfLong sequencia = iteradorSequencia(numeroInicial);
+		while (sequencia.hasNext()) {
+			sequenciaGerada.add(sequencia.nextLong());
+		}
+	}
+
+	/**
+	 * @author raphaeljansen
+	 * 
+	 *         Gera os itens da sequencia sob demanda, guardando apenas o item
+	 *         atual.
+	 */
+	private static class IteradorSequencia implements PrimitiveIterator.OfLong {
+		private final long numeroInicial;
+		private long numero;
+		private boolean iniciado;
+		private boolean terminado;
+
+		public IteradorSequencia(long numeroInicial) {
+			super();
+			this.numeroInicial = numeroInicial;
+			this.numero = numeroInicial;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !terminado;
+		}
+
+		@Override
+		public long nextLong() {
+			if (terminado)
+				throw new NoSuchElementException();
+			if (iniciado) {
+				if ((numero & 1) == 0) {
+					numero = numero >>> 1;
+				} else if (numero > LIMITE_PASSO_IMPAR) {
+					throw new CollatzErro(
+							"SequenciaExcedeInteiroLongo: NumeroInicial=%s Numero=%s",
+							numeroInicial, numero);
+				} else {
+					numero = 3 * numero + 1;
+				}
 			}
-			if (numero % 2 == 0) {
-				numero = numero / 2;
+			iniciado = true;
+			terminado = numero == 1;
+			return numero;
+		}
+	}
+
+	/**
+	 * Retorna um iterador que gera a sequencia iniciada em numeroInicial sob
+	 * demanda, com memoria constante. O consumidor pode parar a qualquer
+	 * momento sem que o restante da sequencia seja calculado.
+	 * 
+	 * @param numeroInicial
+	 *            - Numero aonde será aplicada a função
+	 * @return PrimitiveIterator.OfLong - Itens da sequencia, do numero inicial
+	 *         ate o 1. Lanca CollatzErro ao alcancar um item que nao cabe em
+	 *         um inteiro longo
+	 */
+	public static PrimitiveIterator.OfLong iteradorSequencia(long numeroInicial) {
+		if (numeroInicial < 1)
+			throw new CollatzErro("NumeroInicialInvalido: NumeroInicial=%s",
+					numeroInicial);
+		return new IteradorSequencia(numeroInicial);
+	}
+
+	/**
+	 * Retorna a sequencia iniciada em numeroInicial como um LongStream
+	 * sequencial e preguicoso. Exemplos: sequencia(n).max() obtem o maior
+	 * valor alcancado, sequencia(n).filter(v -> v < n).findFirst() obtem a
+	 * primeira queda abaixo do inicio e sequencia(n).limit(m) os m primeiros
+	 * itens.
+	 * 
+	 * @param numeroInicial
+	 *            - Numero aonde será aplicada a função
+	 * @return LongStream - Itens da sequencia, do numero inicial ate o 1
+	 */
+	public static LongStream sequencia(long numeroInicial) {
+		return StreamSupport.longStream(Spliterators.spliteratorUnknownSize(
+				iteradorSequencia(numeroInicial), Spliterator.ORDERED
+						| Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+	}
+
+	/**
+	 * Calcula apenas a quantidade de itens da sequencia iniciada em
+	 * numeroInicial, sem construir a lista de valores e sem alocar objetos.
+	 * 
+	 * @param numeroInicial
+	 *            - Numero aonde será aplicada a função
+	 * @return int - Quantidade de itens da sequencia, incluindo o numero
+	 *         inicial e o 1
+	 */
+	public static int tamanhoSequencia(long numeroInicial) {
+		if (numeroInicial < 1)
+			throw new CollatzErro("NumeroInicialInvalido: NumeroInicial=%s",
+					numeroInicial);
+		long numero = numeroInicial;
+		int tamanho = 1;
+		while (numero != 1) {
+			if ((numero & 1) == 0) {
+				numero = numero >>> 1;
+			} else if (numero > LIMITE_PASSO_IMPAR) {
+				return tamanho - 1
+						+ tamanhoSequencia(BigInteger.valueOf(numero));
 			} else {
 				numero = 3 * numero + 1;
 			}
+			tamanho++;
+		}
+		return tamanho;
+	}
+
+	/**
+	 * Calcula a quantidade de itens da sequencia com precisao arbitraria. Assim
+	 * que a sequencia volta a ficar abaixo de LIMITE_PASSO_IMPAR a caminhada
+	 * continua em {@link #tamanhoSequencia(long)}.
+	 * 
+	 * @param numeroInicial
+	 *            - Numero aonde será aplicada a função
+	 * @return int - Quantidade de itens da sequencia, incluindo o numero
+	 *         inicial e o 1
+	 */
+	public static int tamanhoSequencia(BigInteger numeroInicial) {
+		if (numeroInicial == null || numeroInicial.signum() < 1)
+			throw new CollatzErro("NumeroInicialInvalido: NumeroInicial=%s",
+					numeroInicial);
+		BigInteger numero = numeroInicial;
+		int passos = 0;
+		while (numero.compareTo(LIMITE_PASSO_IMPAR_GRANDE) > 0) {
+			if (numero.testBit(0)) {
+				numero = numero.multiply(TRES).add(BigInteger.ONE);
+			} else {
+				numero = numero.shiftRight(1);
+			}
+			passos++;
 		}
+		return passos + tamanhoSequencia(numero.longValue());
 	}
 
 	/**
@@ -86,7 +300,7 @@ public class Collatz {
 	 *            - Representação textual de um inteiro longo
 	 * @return true se for um inteiro longo e false caso contrário
 	 */
-	private static boolean isInteiroLongo(String posivelNumero) {
+	static boolean isInteiroLongo(String posivelNumero) {
 		try {
 			Long.parseLong(posivelNumero);
 			return true;
@@ -99,37 +313,158 @@ public class Collatz {
 	 * Imprime um exemplo de chamada da classe
 	 */
 	private static void printUsage() {
-		out.println("Use: java br.com.rjansen.desafios.Collatz <numero_inicial_collatz>\n<numero_inicial_collatz>=n\nn precisa ser um numero inteiro longo valido");
+		out.println("Use: java br.com.rjansen.desafios.Collatz <numero_inicial_collatz> [modo] [arquivo_tabela] [arquivo_ponto_controle]\n<numero_inicial_collatz>=n\nn precisa ser um numero inteiro longo valido\n[modo]=sequencial|paralelo|saltos|podado|ranking|histograma|retomavel|pistas (padrao: paralelo)\n[arquivo_tabela]=/caminho_arquivo/tabela, guarda os tamanhos calculados entre execucoes (- para nenhuma)\n[arquivo_ponto_controle]=/caminho_arquivo/ponto_controle, obrigatorio no modo retomavel");
+	}
+
+	/**
+	 * Executa a varredura do intervalo [1, limite] no modo informado
+	 * 
+	 * @param limite
+	 *            - Maior numero inicial analisado
+	 * @param modo
+	 *            - Modo de varredura
+	 * @param arquivoTabela
+	 *            - Arquivo da tabela persistente de tamanhos, ou null para
+	 *            utilizar apenas a memoria
+	 * @param arquivoPontoControle
+	 *            - Arquivo do ponto de controle do modo retomavel
+	 * @return ResultadoIntervalo - Numero com a maior sequencia e seu tamanho
+	 */
+	private static ResultadoIntervalo analisaIntervalo(long limite,
+			ModoExecucao modo, String arquivoTabela,
+			String arquivoPontoControle) {
+		if (arquivoTabela == null) {
+			return analisaIntervalo(limite, TabelaMemoria.paraLimite(limite),
+					modo, arquivoPontoControle);
+		}
+		try (final CollatzTabelaMapeada tabela = CollatzTabelaMapeada.abre(
+				Paths.get(arquivoTabela), limite)) {
+			return analisaIntervalo(limite, tabela, modo, arquivoPontoControle);
+		}
+	}
+
+	private static ResultadoIntervalo analisaIntervalo(long limite,
+			TabelaTamanhos tabela, ModoExecucao modo,
+			String arquivoPontoControle) {
+		switch (modo) {
+		case SEQUENCIAL:
+			return new CollatzIntervalo(limite, tabela).executa();
+		case PARALELO:
+			return new CollatzIntervalo(limite, tabela).executaParalelo();
+		case SALTOS:
+			return new CollatzIntervalo(limite, tabela, new CollatzSaltos())
+					.executaParalelo();
+		case PISTAS:
+			return new CollatzIntervalo(limite, tabela).executaPistas(
+					CollatzPistas.QUANTIDADE_PISTAS_PADRAO, Runtime
+							.getRuntime().availableProcessors());
+		case PODADO:
+			return new CollatzIntervalo(limite, tabela, new CollatzSaltos())
+					.executaPodado(Runtime.getRuntime().availableProcessors());
+		case RANKING:
+			final CollatzRanking ranking = new CollatzIntervalo(limite, tabela)
+					.executaRanking(TAMANHO_RANKING,
+							Runtime.getRuntime().availableProcessors());
+			out.printf(
+					"Ranking: \n\tMaiores Sequencias=%s \n\tRecordes de Tamanho=%s \n\tRecordes de Pico=%s\n",
+					ranking.getMaioresSequencias(),
+					ranking.getRecordesTamanho(), ranking.getRecordesPico());
+			return ranking.getResultado();
+		case HISTOGRAMA:
+			final CollatzHistograma histograma = new CollatzIntervalo(limite,
+					tabela).executaHistograma(Runtime.getRuntime()
+					.availableProcessors());
+			out.printf(
+					"Histograma: \n\tMedia dos Tamanhos=%.4f \n\tPercentis dos Tamanhos (50/90/99/100)=%s/%s/%s/%s \n\tPercentis dos Picos (50/90/99/100)=%s/%s/%s/%s\n",
+					histograma.getMediaTamanho(),
+					histograma.getPercentilTamanho(50),
+					histograma.getPercentilTamanho(90),
+					histograma.getPercentilTamanho(99),
+					histograma.getPercentilTamanho(100),
+					histograma.getPercentilPico(50),
+					histograma.getPercentilPico(90),
+					histograma.getPercentilPico(99),
+					histograma.getPercentilPico(100));
+			out.printf(
+					"Distribuicao dos Tamanhos (tamanho quantidade): \n%s",
+					histograma.getDistribuicaoTamanhos());
+			out.printf(
+					"Distribuicao dos Picos (menor_valor maior_valor quantidade): \n%s",
+					histograma.getDistribuicaoPicos());
+			return histograma.getResultado();
+		case RETOMAVEL:
+			final CollatzPontoControle pontoControle = CollatzPontoControle
+					.abre(Paths.get(arquivoPontoControle), limite,
+							TAMANHO_RANKING);
+			out.printf(
+					"Ponto de Controle: \n\tArquivo=%s \n\tBlocos Concluidos=%s/%s\n",
+					pontoControle.getArquivo(),
+					pontoControle.getQuantidadeBlocosConcluidos(),
+					pontoControle.getQuantidadeBlocos());
+			final CollatzRanking rankingRetomavel = new CollatzIntervalo(
+					limite, tabela, new CollatzSaltos()).executaRetomavel(
+					pontoControle, Runtime.getRuntime().availableProcessors(),
+					INTERVALO_GRAVACAO);
+			out.printf("Ranking: \n\tMaiores Sequencias=%s\n",
+					rankingRetomavel.getMaioresSequencias());
+			return rankingRetomavel.getResultado();
+		default:
+			throw new CollatzErro("ModoInvalido: Modo=%s", modo);
+		}
 	}
 
 	public static void main(String[] args) {
 		final long startTime = currentTimeMillis();
 		final Long valorInicialCollatz;
-		if (args.length < 1 || args[0] == null || !isInteiroLongo(args[0])) {
+		final ModoExecucao modo;
+		final String arquivoTabela;
+		final String arquivoPontoControle;
+		if (args.length < 1 || args[0] == null || !isInteiroLongo(args[0])
+				|| Long.parseLong(args[0]) < 1) {
 			printUsage();
 			return;
 		} else {
 			valorInicialCollatz = Long.parseLong(args[0]);
 		}
-		out.println("****** Conjectura de Collatz - Analise do numero com a maior sequencia ******");
-		out.println("****** Aguarde ... Calculando as sequencias ******");
-		final Collatz collatz = new Collatz();
-		Long valorInicialMaiorSequencia = 0L, tamanhoMaiorSequencia = 0L;
-		List<Long> maiorSequencia = new ArrayList<>();
-		for (long k = valorInicialCollatz; k > 0; k--) {
-			collatz.executa(k);
-			if (tamanhoMaiorSequencia < collatz.getSequenciaGerada().size()) {
-				tamanhoMaiorSequencia = new Long(collatz.getSequenciaGerada()
-						.size());
-				valorInicialMaiorSequencia = k;
-				maiorSequencia = collatz.getSequenciaGerada();
+		if (args.length < 2 || args[1] == null) {
+			modo = ModoExecucao.PARALELO;
+		} else {
+			try {
+				modo = ModoExecucao.valorPeloApelido(args[1].trim());
+			} catch (CollatzErro e) {
+				printUsage();
+				return;
 			}
-			collatz.limpaSequenciaGerada();
 		}
+		arquivoTabela = args.length < 3 || args[2] == null
+				|| "-".equals(args[2].trim()) ? null : args[2].trim();
+		arquivoPontoControle = args.length < 4 || args[3] == null ? null
+				: args[3].trim();
+		if (modo == ModoExecucao.RETOMAVEL && arquivoPontoControle == null) {
+			printUsage();
+			return;
+		}
+		out.println("****** Conjectura de Collatz - Analise do numero com a maior sequencia ******");
+		out.println("****** Aguarde ... Calculando as sequencias ******");
+		final ResultadoIntervalo resultado = analisaIntervalo(
+				valorInicialCollatz, modo, arquivoTabela, arquivoPontoControle);
+		final Long valorInicialMaiorSequencia = resultado
+				.getNumeroMaiorSequencia();
+		final Integer tamanhoMaiorSequencia = resultado
+				.getTamanhoMaiorSequencia();
+		// Apenas a sequencia vencedora e guardada, como vetor de paridades
+		final CollatzSequenciaCompacta maiorSequencia = CollatzSequenciaCompacta
+				.codifica(valorInicialMaiorSequencia);
 		out.printf(
 				"Numero com Maior Sequencia Gerada: \n\tNumero Inicial=%s \n\tNumero com Maior Sequencia=%s \n\tTamanho da Sequencia=%s \n\tSequencia=%s\n",
 				valorInicialCollatz, valorInicialMaiorSequencia,
-				tamanhoMaiorSequencia, maiorSequencia);
+				tamanhoMaiorSequencia, maiorSequencia.formata());
+		if (modo == ModoExecucao.PODADO) {
+			out.printf(
+					"Busca Podada: \n\tNumeros Avaliados=%s \n\tNumeros Descartados=%s\n",
+					resultado.getQuantidadeAvaliada(), valorInicialCollatz
+							- resultado.getQuantidadeAvaliada());
+		}
 		final long endTime = currentTimeMillis();
 		out.printf("****** Tempo Execucao Collatz: %dms ******\n", endTime
 				- startTime);
@@ -0,0 +1,439 @@
+package br.com.rjansen.desafios;
+
+import static java.lang.System.err;
+import static java.lang.System.out;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+
+/**
+ * @author raphaeljansen
+ *
+ *         Servico de consultas em lote sobre a Conjectura de Collatz. Cada
+ *         linha de entrada e uma consulta e gera uma linha de resposta, na
+ *         mesma ordem:
+ *
+ *         n ou tamanho n: responde "n tamanho"
+ *
+ *         sequencia n: responde "n" seguido dos itens da sequencia
+ *
+ *         estatisticas: responde "Consultas=c Acertos=a TaxaAcerto=t", os
+ *         contadores do cache compartilhado, sem contar como consulta
+ *
+ *         Uma consulta invalida responde "ERRO" seguido do motivo, sem
+ *         interromper o lote. Todas as consultas, de qualquer origem,
+ *         compartilham o mesmo cache de tamanhos, que permanece aquecido entre
+ *         consultas e entre conexoes.
+ */
+public class CollatzConsultas {
+
+	public static final int BITS_CACHE_PADRAO = 22;
+	public static final int BITS_CACHE_MAXIMO = 30;
+
+	/**
+	 * Quantidade maxima de valores de uma caminhada registrados no cache.
+	 */
+	private static final int TAMANHO_CAMINHO = 1024;
+
+	private static final String PREFIXO_PORTA = "porta:";
+
+	/**
+	 * Espera minima e maxima, em milissegundos, entre tentativas de aceitar
+	 * conexoes depois de falhas seguidas.
+	 */
+	private static final long ESPERA_MINIMA_RECEPCAO = 10L;
+	private static final long ESPERA_MAXIMA_RECEPCAO = 1000L;
+
+	/**
+	 * Area de trabalho das caminhadas, uma por thread, reaproveitada entre as
+	 * consultas para que uma consulta fora do cache nao aloque memoria.
+	 */
+	private static final ThreadLocal<long[]> CAMINHOS = ThreadLocal
+			.withInitial(() -> new long[TAMANHO_CAMINHO]);
+
+	/**
+	 * @author raphaeljansen
+	 *
+	 *         Cache concorrente de tamanhos com quantidade fixa de entradas.
+	 *         Cada numero tem uma unica posicao possivel, escolhida por
+	 *         espalhamento, e um novo registro simplesmente substitui o
+	 *         anterior daquela posicao. Numero e tamanho ficam juntos em um
+	 *         unico long (numero nos 47 bits altos, tamanho nos 16 baixos), de
+	 *         modo que uma leitura nunca combina o numero de uma entrada com o
+	 *         tamanho de outra, sem nenhuma trava.
+	 */
+	public static class CacheTamanhos {
+		private static final long LIMITE_NUMERO = 1L << 47;
+		private static final int BITS_TAMANHO = 16;
+		private static final long MASCARA_TAMANHO = (1L << BITS_TAMANHO) - 1;
+
+		private final AtomicLongArray entradas;
+		private final int bits;
+
+		/**
+		 * @param bits
+		 *            - O cache tem 2^bits entradas
+		 */
+		public CacheTamanhos(int bits) {
+			if (bits < 1 || bits > BITS_CACHE_MAXIMO)
+				throw new CollatzErro("BitsInvalidos: Bits=%s Maximo=%s", bits,
+						BITS_CACHE_MAXIMO);
+			this.bits = bits;
+			this.entradas = new AtomicLongArray(1 << bits);
+		}
+
+		public int getCapacidade() {
+			return entradas.length();
+		}
+
+		private int posicao(long numero) {
+			return (int) ((numero * 0x9E3779B97F4A7C15L) >>> (64 - bits));
+		}
+
+		/**
+		 * @return int - Tamanho da sequencia de numero, ou 0 se nao estiver no
+		 *         cache
+		 */
+		public int tamanho(long numero) {
+			if (numero >= LIMITE_NUMERO) {
+				return 0;
+			}
+			final long entrada = entradas.get(posicao(numero));
+			return entrada >>> BITS_TAMANHO == numero ? (int) (entrada & MASCARA_TAMANHO)
+					: 0;
+		}
+
+		public void registra(long numero, int tamanho) {
+			if (numero < LIMITE_NUMERO && tamanho <= MASCARA_TAMANHO) {
+				entradas.lazySet(posicao(numero), numero << BITS_TAMANHO
+						| tamanho);
+			}
+		}
+	}
+
+	private final CacheTamanhos cache;
+	private final LongAdder consultas = new LongAdder();
+	private final LongAdder acertos = new LongAdder();
+
+	public CollatzConsultas() {
+		this(BITS_CACHE_PADRAO);
+	}
+
+	/**
+	 * @param bitsCache
+	 *            - O cache compartilhado tem 2^bitsCache entradas
+	 */
+	public CollatzConsultas(int bitsCache) {
+		this.cache = new CacheTamanhos(bitsCache);
+	}
+
+	/**
+	 * @return long - Quantidade de consultas de tamanho respondidas
+	 */
+	public long getConsultas() {
+		return consultas.sum();
+	}
+
+	/**
+	 * @return long - Quantidade de consultas de tamanho respondidas
+	 *         diretamente pelo cache
+	 */
+	public long getAcertos() {
+		return acertos.sum();
+	}
+
+	/**
+	 * @return double - Fracao das consultas respondidas diretamente pelo cache
+	 */
+	public double getTaxaAcerto() {
+		final long total = getConsultas();
+		return total == 0 ? 0 : (double) getAcertos() / total;
+	}
+
+	public CacheTamanhos getCache() {
+		return cache;
+	}
+
+	/**
+	 * Calcula o tamanho da sequencia de numero, caminhando apenas ate o
+	 * primeiro valor presente no cache. Os valores visitados sao registrados no
+	 * cache, para que consultas seguintes que passem por eles parem antes.
+	 *
+	 * @param numero
+	 *            - Numero inicial da sequencia
+	 * @return int - Quantidade de itens da sequencia, igual a
+	 *         {@link Collatz#tamanhoSequencia(long)}
+	 */
+	public int tamanho(long numero) {
+		if (numero < 1)
+			throw new CollatzErro("NumeroInicialInvalido: NumeroInicial=%s",
+					numero);
+		consultas.increment();
+		int tamanhoConhecido = cache.tamanho(numero);
+		if (tamanhoConhecido != 0) {
+			acertos.increment();
+			return tamanhoConhecido;
+		}
+		final long[] caminho = CAMINHOS.get();
+		long valor = numero;
+		int passos = 0;
+		while ((tamanhoConhecido = cache.tamanho(valor)) == 0) {
+			if (valor == 1) {
+				// a entrada do 1 tambem pode ter sido substituida
+				tamanhoConhecido = 1;
+				break;
+			}
+			if (passos < caminho.length) {
+				caminho[passos] = valor;
+			}
+			if ((valor & 1) == 0) {
+				valor = valor >>> 1;
+			} else if (valor > Collatz.LIMITE_PASSO_IMPAR) {
+				tamanhoConhecido = Collatz.tamanhoSequencia(BigInteger
+						.valueOf(valor));
+				break;
+			} else {
+				valor = 3 * valor + 1;
+			}
+			passos++;
+		}
+		final int tamanho = passos + tamanhoConhecido;
+		for (int i = Math.min(passos, caminho.length) - 1; i >= 0; i--) {
+			cache.registra(caminho[i], tamanho - i);
+		}
+		return tamanho;
+	}
+
+	/**
+	 * Responde uma linha de consulta.
+	 *
+	 * @param consulta
+	 *            - Linha no formato "n", "tamanho n", "sequencia n" ou
+	 *            "estatisticas"
+	 * @return String - Linha de resposta, sem a quebra de linha
+	 */
+	public String responde(String consulta) {
+		final String[] partes = consulta.trim().split("\\s+");
+		try {
+			if (partes.length == 1 && "estatisticas".equalsIgnoreCase(partes[0]))
+				return estatisticas();
+			if (partes.length == 1) {
+				final long numero = numero(partes[0]);
+				return numero + " " + tamanho(numero);
+			}
+			if (partes.length == 2 && "tamanho".equalsIgnoreCase(partes[0])) {
+				final long numero = numero(partes[1]);
+				return numero + " " + tamanho(numero);
+			}
+			if (partes.length == 2 && "sequencia".equalsIgnoreCase(partes[0])) {
+				final long numero = numero(partes[1]);
+				final StringBuilder resposta = new StringBuilder();
+				resposta.append(numero);
+				final PrimitiveIterator.OfLong sequencia = Collatz
+						.iteradorSequencia(numero);
+				while (sequencia.hasNext()) {
+					resposta.append(' ').append(sequencia.nextLong());
+				}
+				return resposta.toString();
+			}
+			throw new CollatzErro("ConsultaInvalida: Consulta=[%s]", consulta);
+		} catch (CollatzErro e) {
+			return "ERRO " + e.getMessage();
+		}
+	}
+
+	/**
+	 * @return String - Contadores de consultas e acertos do cache, no formato
+	 *         "Consultas=c Acertos=a TaxaAcerto=t"
+	 */
+	public String estatisticas() {
+		return String.format(Locale.ROOT,
+				"Consultas=%s Acertos=%s TaxaAcerto=%.4f", getConsultas(),
+				getAcertos(), getTaxaAcerto());
+	}
+
+	private static long numero(String texto) {
+		if (!Collatz.isInteiroLongo(texto) || Long.parseLong(texto) < 1)
+			throw new CollatzErro("NumeroInicialInvalido: NumeroInicial=%s",
+					texto);
+		return Long.parseLong(texto);
+	}
+
+	/**
+	 * Responde todas as consultas de entrada, uma linha por vez, escrevendo as
+	 * respostas em saida a medida que sao calculadas. A saida e descarregada
+	 * sempre que nao houver mais consultas imediatamente disponiveis, o que
+	 * permite o uso interativo.
+	 *
+	 * @return long - Quantidade de consultas respondidas
+	 */
+	public long processa(BufferedReader entrada, Writer saida)
+			throws IOException {
+		long respondidas = 0;
+		String consulta;
+		while ((consulta = entrada.readLine()) != null) {
+			if (consulta.trim().isEmpty()) {
+				continue;
+			}
+			saida.write(responde(consulta));
+			saida.write('\n');
+			respondidas++;
+			if (!entrada.ready()) {
+				saida.flush();
+			}
+		}
+		saida.flush();
+		return respondidas;
+	}
+
+	/**
+	 * Atende conexoes recebidas por servidor ate que ele seja fechado. Cada
+	 * conexao e um lote de consultas respondido por uma thread do pool; todas
+	 * as conexoes compartilham o cache. Falhas seguidas ao aceitar, como falta
+	 * de descritores de arquivo, nao encerram o atendimento: sao exibidas na
+	 * saida de erro e dobram a espera antes da proxima tentativa, ate
+	 * {@value #ESPERA_MAXIMA_RECEPCAO}ms.
+	 *
+	 * @param servidor
+	 *            - Socket ja associado a porta de atendimento
+	 * @param paralelismo
+	 *            - Quantidade maxima de conexoes atendidas ao mesmo tempo
+	 */
+	public void atende(ServerSocket servidor, int paralelismo) {
+		if (paralelismo < 1)
+			throw new CollatzErro("ParalelismoInvalido: Paralelismo=%s",
+					paralelismo);
+		final ExecutorService pool = Executors.newFixedThreadPool(paralelismo);
+		long espera = ESPERA_MINIMA_RECEPCAO;
+		try {
+			while (!servidor.isClosed()) {
+				final Socket conexao;
+				try {
+					conexao = servidor.accept();
+				} catch (IOException e) {
+					if (!servidor.isClosed()) {
+						err.printf("****** Falha ao aceitar conexao: %s ******\n",
+								e.getMessage());
+						try {
+							Thread.sleep(espera);
+						} catch (InterruptedException interrupcao) {
+							Thread.currentThread().interrupt();
+							return;
+						}
+						espera = Math.min(2 * espera, ESPERA_MAXIMA_RECEPCAO);
+					}
+					continue;
+				}
+				espera = ESPERA_MINIMA_RECEPCAO;
+				pool.execute(() -> atende(conexao));
+			}
+		} finally {
+			pool.shutdown();
+			try {
+				pool.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private void atende(Socket conexao) {
+		try (final Socket socket = conexao;
+				final BufferedReader entrada = new BufferedReader(
+						new InputStreamReader(socket.getInputStream(),
+								StandardCharsets.UTF_8));
+				final Writer saida = new BufferedWriter(new OutputStreamWriter(
+						socket.getOutputStream(), StandardCharsets.UTF_8))) {
+			processa(entrada, saida);
+		} catch (IOException e) {
+			err.printf("****** Conexao encerrada com erro: %s ******\n",
+					e.getMessage());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String
+				.format("CollatzConsultas [capacidadeCache=%s, consultas=%s, acertos=%s, taxaAcerto=%.4f]",
+						cache.getCapacidade(), getConsultas(), getAcertos(),
+						getTaxaAcerto());
+	}
+
+	private static void printUsage() {
+		out.println("Use: java br.com.rjansen.desafios.CollatzConsultas [origem] [bits_cache]\n[origem]=-|/caminho_arquivo/consultas|porta:p (padrao: -, a entrada padrao)\n[bits_cache]=b, o cache tem 2^b entradas (padrao: 22, maximo: 30)\nConsultas, uma por linha: n | tamanho n | sequencia n | estatisticas");
+	}
+
+	public static void main(String[] args) throws IOException {
+		final String origem = args.length < 1 || args[0] == null ? "-"
+				: args[0].trim();
+		final int bitsCache;
+		if (args.length < 2 || args[1] == null) {
+			bitsCache = BITS_CACHE_PADRAO;
+		} else if (Collatz.isInteiroLongo(args[1].trim())
+				&& Long.parseLong(args[1].trim()) >= 1
+				&& Long.parseLong(args[1].trim()) <= BITS_CACHE_MAXIMO) {
+			bitsCache = Integer.parseInt(args[1].trim());
+		} else {
+			printUsage();
+			return;
+		}
+		final CollatzConsultas consultas = new CollatzConsultas(bitsCache);
+		if (origem.startsWith(PREFIXO_PORTA)) {
+			final String porta = origem.substring(PREFIXO_PORTA.length());
+			if (!Collatz.isInteiroLongo(porta) || Long.parseLong(porta) < 0
+					|| Long.parseLong(porta) > 65535) {
+				printUsage();
+				return;
+			}
+			try (final ServerSocket servidor = new ServerSocket(
+					Integer.parseInt(porta), 50, InetAddress.getLoopbackAddress())) {
+				err.printf("****** Atendendo consultas em %s ******\n",
+						servidor.getLocalSocketAddress());
+				Runtime.getRuntime().addShutdownHook(
+						new Thread(() -> err.printf("****** %s ******\n",
+								consultas.estatisticas())));
+				consultas.atende(servidor, Runtime.getRuntime()
+						.availableProcessors());
+			}
+			return;
+		}
+		final long startTime = System.currentTimeMillis();
+		final Writer saida = new BufferedWriter(new OutputStreamWriter(out,
+				StandardCharsets.UTF_8));
+		if ("-".equals(origem)) {
+			consultas.processa(new BufferedReader(new InputStreamReader(
+					System.in, StandardCharsets.UTF_8)), saida);
+		} else {
+			try (final BufferedReader entrada = Files.newBufferedReader(
+					Paths.get(origem), StandardCharsets.UTF_8)) {
+				consultas.processa(entrada, saida);
+			}
+		}
+		err.printf(
+				"****** Consultas=%s Acertos=%s TaxaAcerto=%.4f Tempo=%dms ******\n",
+				consultas.getConsultas(), consultas.getAcertos(),
+				consultas.getTaxaAcerto(), System.currentTimeMillis()
+						- startTime);
+	}
+
+}
@@ -0,0 +1,443 @@
+package br.com.rjansen.desafios;
+
+import static java.lang.System.currentTimeMillis;
+import static java.lang.System.err;
+import static java.lang.System.out;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+import br.com.rjansen.desafios.CollatzIntervalo.ResultadoIntervalo;
+
+/**
+ * @author raphaeljansen
+ *
+ *         Coordenador de uma varredura do intervalo [1, limite] distribuida
+ *         entre processos {@link CollatzTrabalhador}. O intervalo e dividido
+ *         em fatias de tamanho fixo, entregues em ordem crescente aos
+ *         trabalhadores conectados por socket. Cada trabalhador devolve as K
+ *         maiores sequencias da sua fatia, que sao combinadas no ranking da
+ *         varredura.
+ *
+ *         Protocolo, uma mensagem por linha:
+ *
+ *         coordenador: VARREDURA limite K, logo apos a conexao
+ *
+ *         coordenador: FATIA indice inicio fim
+ *
+ *         trabalhador: RESULTADO indice n1=t1 n2=t2 ...
+ *
+ *         coordenador: FIM, quando todas as fatias estiverem concluidas
+ *
+ *         Se a conexao de um trabalhador cai, ou se ele nao responde dentro do
+ *         tempo limite da fatia, a fatia volta para o inicio da fila e e
+ *         entregue ao proximo trabalhador livre.
+ */
+public class CollatzCoordenador {
+
+	public static final long TAMANHO_FATIA_PADRAO = 1 << 22;
+
+	private static final int TAMANHO_RANKING = 10;
+
+	/**
+	 * Tempo maximo, em milissegundos, aguardado para que os trabalhadores
+	 * recebam FIM antes de suas conexoes serem fechadas.
+	 */
+	private static final long TEMPO_ENCERRAMENTO = 5000L;
+
+	/**
+	 * Tempo limite padrao, em milissegundos, para um trabalhador responder uma
+	 * fatia. Uma fatia padrao leva poucos segundos; um trabalhador que nao
+	 * responde nesse tempo e considerado travado e a fatia e reatribuida.
+	 */
+	public static final int TEMPO_LIMITE_FATIA_PADRAO = 120000;
+
+	/**
+	 * Espera minima e maxima, em milissegundos, entre tentativas de aceitar
+	 * conexoes depois de falhas seguidas.
+	 */
+	private static final long ESPERA_MINIMA_RECEPCAO = 10L;
+	private static final long ESPERA_MAXIMA_RECEPCAO = 1000L;
+
+	private final long limite;
+	private final long tamanhoFatia;
+	private final int quantidade;
+	private final int tempoLimiteFatia;
+	private final long quantidadeFatias;
+	private final Deque<Long> pendentes = new ArrayDeque<>();
+	private final Set<Socket> conexoes = new HashSet<>();
+	private final CollatzRanking ranking;
+	private long quantidadeConcluidas;
+	private long quantidadeReatribuidas;
+	private boolean cancelada;
+
+	/**
+	 * @param limite
+	 *            - Maior numero inicial da varredura
+	 * @param tamanhoFatia
+	 *            - Quantidade de numeros de cada fatia
+	 * @param quantidade
+	 *            - Quantidade K de maiores sequencias mantidas
+	 * @param tempoLimiteFatia
+	 *            - Tempo maximo, em milissegundos, para um trabalhador
+	 *            responder uma fatia, ou 0 para nao haver limite
+	 */
+	public CollatzCoordenador(long limite, long tamanhoFatia, int quantidade,
+			int tempoLimiteFatia) {
+		if (limite < 1)
+			throw new CollatzErro("LimiteInvalido: Limite=%s", limite);
+		if (tamanhoFatia < 1)
+			throw new CollatzErro("TamanhoFatiaInvalido: TamanhoFatia=%s",
+					tamanhoFatia);
+		if (quantidade < 1)
+			throw new CollatzErro("QuantidadeRankingInvalida: Quantidade=%s",
+					quantidade);
+		if (tempoLimiteFatia < 0)
+			throw new CollatzErro(
+					"TempoLimiteFatiaInvalido: TempoLimiteFatia=%s",
+					tempoLimiteFatia);
+		this.limite = limite;
+		this.tamanhoFatia = tamanhoFatia;
+		this.quantidade = quantidade;
+		this.tempoLimiteFatia = tempoLimiteFatia;
+		this.quantidadeFatias = (limite + tamanhoFatia - 1) / tamanhoFatia;
+		this.ranking = new CollatzRanking(limite, quantidade);
+		for (long fatia = 0; fatia < quantidadeFatias; fatia++) {
+			pendentes.add(fatia);
+		}
+	}
+
+	public long getLimite() {
+		return limite;
+	}
+
+	public long getQuantidadeFatias() {
+		return quantidadeFatias;
+	}
+
+	public synchronized long getQuantidadeConcluidas() {
+		return quantidadeConcluidas;
+	}
+
+	/**
+	 * @return long - Quantidade de fatias devolvidas a fila porque o
+	 *         trabalhador caiu ou excedeu o tempo limite
+	 */
+	public synchronized long getQuantidadeReatribuidas() {
+		return quantidadeReatribuidas;
+	}
+
+	/**
+	 * Atende os trabalhadores conectados a servidor ate que todas as fatias
+	 * estejam concluidas. Ao final o servidor e fechado.
+	 *
+	 * @param servidor
+	 *            - Socket ja associado a porta de coordenacao
+	 * @return CollatzRanking - Maiores sequencias do intervalo, sem recordes
+	 */
+	public CollatzRanking coordena(final ServerSocket servidor) {
+		final Thread recepcao = new Thread(() -> recebe(servidor),
+				"collatz-coordenador");
+		recepcao.setDaemon(true);
+		recepcao.start();
+		try {
+			synchronized (this) {
+				while (quantidadeConcluidas < quantidadeFatias && !cancelada) {
+					wait();
+				}
+				if (cancelada)
+					throw new CollatzErro(
+							"VarreduraCancelada: FatiasConcluidas=%s/%s",
+							quantidadeConcluidas, quantidadeFatias);
+				final long prazo = currentTimeMillis() + TEMPO_ENCERRAMENTO;
+				long restante;
+				while (!conexoes.isEmpty()
+						&& (restante = prazo - currentTimeMillis()) > 0) {
+					wait(restante);
+				}
+				return new CollatzRanking(limite, quantidade).combina(ranking);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CollatzErro(e);
+		} finally {
+			fecha(servidor);
+		}
+	}
+
+	/**
+	 * Interrompe a coordenacao, fazendo {@link #coordena(ServerSocket)} falhar.
+	 */
+	public synchronized void cancela() {
+		cancelada = true;
+		notifyAll();
+	}
+
+	/**
+	 * Aceita trabalhadores ate o servidor ser fechado. Falhas seguidas ao
+	 * aceitar, como falta de descritores de arquivo, dobram a espera antes da
+	 * proxima tentativa, ate {@value #ESPERA_MAXIMA_RECEPCAO}ms.
+	 */
+	private void recebe(ServerSocket servidor) {
+		long espera = ESPERA_MINIMA_RECEPCAO;
+		while (!servidor.isClosed()) {
+			final Socket conexao;
+			try {
+				conexao = servidor.accept();
+			} catch (IOException e) {
+				if (!servidor.isClosed()) {
+					err.printf("****** Falha ao aceitar trabalhador: %s ******\n",
+							e.getMessage());
+					try {
+						Thread.sleep(espera);
+					} catch (InterruptedException interrupcao) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+					espera = Math.min(2 * espera, ESPERA_MAXIMA_RECEPCAO);
+				}
+				continue;
+			}
+			espera = ESPERA_MINIMA_RECEPCAO;
+			final Thread atendimento = new Thread(() -> atende(conexao),
+					"collatz-coordenador-" + conexao.getPort());
+			atendimento.setDaemon(true);
+			atendimento.start();
+		}
+	}
+
+	/**
+	 * Entrega fatias ao trabalhador de conexao ate que nao reste nenhuma.
+	 */
+	private void atende(Socket conexao) {
+		synchronized (this) {
+			conexoes.add(conexao);
+		}
+		long fatia = -1;
+		try (final Socket socket = conexao;
+				final BufferedReader entrada = new BufferedReader(
+						new InputStreamReader(socket.getInputStream(),
+								StandardCharsets.UTF_8));
+				final Writer saida = new BufferedWriter(new OutputStreamWriter(
+						socket.getOutputStream(), StandardCharsets.UTF_8))) {
+			socket.setSoTimeout(tempoLimiteFatia);
+			envia(saida, "VARREDURA " + limite + " " + quantidade);
+			while ((fatia = proximaFatia()) >= 0) {
+				final long inicio = fatia * tamanhoFatia + 1;
+				final long fim = Math.min(limite, (fatia + 1) * tamanhoFatia);
+				envia(saida, "FATIA " + fatia + " " + inicio + " " + fim);
+				conclui(fatia, leResultado(entrada.readLine(), fatia));
+				fatia = -1;
+			}
+			envia(saida, "FIM");
+		} catch (IOException | CollatzErro e) {
+			if (fatia >= 0) {
+				err.printf(
+						"****** Trabalhador %s falhou na fatia %s: %s ******\n",
+						conexao.getRemoteSocketAddress(), fatia, e.getMessage());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			synchronized (this) {
+				conexoes.remove(conexao);
+				if (fatia >= 0) {
+					pendentes.addFirst(fatia);
+					quantidadeReatribuidas++;
+				}
+				notifyAll();
+			}
+		}
+	}
+
+	private static void envia(Writer saida, String mensagem)
+			throws IOException {
+		saida.write(mensagem);
+		saida.write('\n');
+		saida.flush();
+	}
+
+	/**
+	 * @return long - Proxima fatia pendente, aguardando enquanto outras fatias
+	 *         ainda podem voltar para a fila, ou -1 se todas foram concluidas
+	 */
+	private synchronized long proximaFatia() throws InterruptedException {
+		while (pendentes.isEmpty() && quantidadeConcluidas < quantidadeFatias
+				&& !cancelada) {
+			wait();
+		}
+		if (pendentes.isEmpty() || cancelada) {
+			return -1;
+		}
+		return pendentes.removeFirst();
+	}
+
+	private CollatzRanking leResultado(String resposta, long fatia) {
+		if (resposta == null)
+			throw new CollatzErro("ConexaoEncerrada: Fatia=%s", fatia);
+		final String[] partes = resposta.trim().split("\\s+");
+		if (partes.length < 2 || !"RESULTADO".equals(partes[0])
+				|| !String.valueOf(fatia).equals(partes[1]))
+			throw new CollatzErro("RespostaInvalida: Fatia=%s Resposta=[%s]",
+					fatia, resposta);
+		final CollatzRanking rankingFatia = new CollatzRanking(limite,
+				quantidade);
+		try {
+			for (int i = 2; i < partes.length; i++) {
+				final int separador = partes[i].indexOf('=');
+				rankingFatia.registraTamanho(
+						Long.parseLong(partes[i].substring(0, separador)),
+						Integer.parseInt(partes[i].substring(separador + 1)));
+			}
+		} catch (RuntimeException e) {
+			throw new CollatzErro("RespostaInvalida: Fatia=%s Resposta=[%s]",
+					e, fatia, resposta);
+		}
+		return rankingFatia;
+	}
+
+	private synchronized void conclui(long fatia, CollatzRanking rankingFatia) {
+		ranking.combina(rankingFatia);
+		quantidadeConcluidas++;
+		notifyAll();
+	}
+
+	private void fecha(ServerSocket servidor) {
+		try {
+			servidor.close();
+		} catch (IOException e) {
+			// a varredura ja terminou
+		}
+		final List<Socket> abertas;
+		synchronized (this) {
+			abertas = new ArrayList<>(conexoes);
+		}
+		for (final Socket conexao : abertas) {
+			try {
+				conexao.close();
+			} catch (IOException e) {
+				// a varredura ja terminou
+			}
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String
+				.format("CollatzCoordenador [limite=%s, tamanhoFatia=%s, fatiasConcluidas=%s/%s, reatribuidas=%s]",
+						limite, tamanhoFatia, quantidadeConcluidas,
+						quantidadeFatias, quantidadeReatribuidas);
+	}
+
+	/**
+	 * Inicia quantidade processos trabalhadores nesta maquina, com a mesma
+	 * instalacao do java e o mesmo classpath deste processo.
+	 */
+	private static List<Process> iniciaTrabalhadores(int quantidade,
+			int porta) throws IOException {
+		final String java = System.getProperty("java.home") + File.separator
+				+ "bin" + File.separator + "java";
+		final List<Process> trabalhadores = new ArrayList<>(quantidade);
+		for (int i = 0; i < quantidade; i++) {
+			trabalhadores.add(new ProcessBuilder(java, "-cp", System
+					.getProperty("java.class.path"), CollatzTrabalhador.class
+					.getName(), InetAddress.getLoopbackAddress()
+					.getHostAddress(), String.valueOf(porta)).inheritIO()
+					.start());
+		}
+		return trabalhadores;
+	}
+
+	private static void printUsage() {
+		out.println("Use: java br.com.rjansen.desafios.CollatzCoordenador <numero_inicial_collatz> [quantidade_trabalhadores] [porta] [tempo_limite_fatia]\n<numero_inicial_collatz>=n\nn precisa ser um numero inteiro longo valido\n[quantidade_trabalhadores]=t, processos trabalhadores iniciados nesta maquina (padrao: 2, 0 para aguardar trabalhadores iniciados a parte)\n[porta]=p, porta local de coordenacao (padrao: 0, uma porta livre)\n[tempo_limite_fatia]=ms, tempo maximo para um trabalhador responder uma fatia antes de ela ser reatribuida (padrao: 120000, 0 para nao haver limite)");
+	}
+
+	public static void main(String[] args) throws IOException {
+		final long startTime = currentTimeMillis();
+		if (args.length < 1 || args[0] == null
+				|| !Collatz.isInteiroLongo(args[0].trim())
+				|| Long.parseLong(args[0].trim()) < 1) {
+			printUsage();
+			return;
+		}
+		final long limite = Long.parseLong(args[0].trim());
+		final int quantidadeTrabalhadores;
+		final int porta;
+		final int tempoLimiteFatia;
+		try {
+			quantidadeTrabalhadores = args.length < 2 || args[1] == null ? 2
+					: Integer.parseInt(args[1].trim());
+			porta = args.length < 3 || args[2] == null ? 0 : Integer
+					.parseInt(args[2].trim());
+			tempoLimiteFatia = args.length < 4 || args[3] == null
+					? TEMPO_LIMITE_FATIA_PADRAO : Integer.parseInt(args[3]
+							.trim());
+		} catch (NumberFormatException e) {
+			printUsage();
+			return;
+		}
+		if (quantidadeTrabalhadores < 0 || porta < 0 || porta > 65535
+				|| tempoLimiteFatia < 0) {
+			printUsage();
+			return;
+		}
+		out.println("****** Conjectura de Collatz - Varredura distribuida entre processos ******");
+		final CollatzCoordenador coordenador = new CollatzCoordenador(limite,
+				TAMANHO_FATIA_PADRAO, TAMANHO_RANKING, tempoLimiteFatia);
+		final ServerSocket servidor = new ServerSocket(porta, 50,
+				InetAddress.getLoopbackAddress());
+		out.printf("****** Aguardando trabalhadores em %s ******\n",
+				servidor.getLocalSocketAddress());
+		final List<Process> trabalhadores = iniciaTrabalhadores(
+				quantidadeTrabalhadores, servidor.getLocalPort());
+		if (!trabalhadores.isEmpty()) {
+			final Thread monitor = new Thread(() -> {
+				for (final Process trabalhador : trabalhadores) {
+					try {
+						trabalhador.waitFor();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				// todos os trabalhadores terminaram: so resta cancelar se
+				// ainda houver fatias
+				if (coordenador.getQuantidadeConcluidas() < coordenador
+						.getQuantidadeFatias()) {
+					coordenador.cancela();
+				}
+			}, "collatz-monitor");
+			monitor.setDaemon(true);
+			monitor.start();
+		}
+		final CollatzRanking resultado = coordenador.coordena(servidor);
+		final ResultadoIntervalo maior = resultado.getResultado();
+		out.printf(
+				"Ranking: \n\tMaiores Sequencias=%s \n\tFatias=%s \n\tFatias Reatribuidas=%s\n",
+				resultado.getMaioresSequencias(),
+				coordenador.getQuantidadeFatias(),
+				coordenador.getQuantidadeReatribuidas());
+		out.printf(
+				"Numero com Maior Sequencia Gerada: \n\tNumero Inicial=%s \n\tNumero com Maior Sequencia=%s \n\tTamanho da Sequencia=%s\n",
+				limite, maior.getNumeroMaiorSequencia(),
+				maior.getTamanhoMaiorSequencia());
+		out.printf("****** Tempo Execucao Collatz: %dms ******\n",
+				currentTimeMillis() - startTime);
+	}
+
+}
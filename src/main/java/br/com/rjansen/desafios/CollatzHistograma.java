@@ -0,0 +1,253 @@
+package br.com.rjansen.desafios;
+
+import java.util.Arrays;
+
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+import br.com.rjansen.desafios.CollatzIntervalo.ResultadoIntervalo;
+
+/**
+ * @author raphaeljansen
+ *
+ *         Distribuicao dos tamanhos das sequencias e dos valores de pico dos
+ *         numeros iniciais de um bloco, acumulada em histogramas primitivos.
+ *         Cada bloco de uma varredura paralela acumula o seu proprio histograma
+ *         e os histogramas sao somados ao final.
+ *
+ *         Os tamanhos sao contados exatamente, um contador por tamanho. Os
+ *         picos ocupam de 1 a 2^63 - 1, por isso sao contados em faixas
+ *         logaritmicas: cada potencia de 2 e dividida em 4 faixas de mesma
+ *         largura, totalizando no maximo 256 faixas. A funcao que leva um
+ *         valor a sua faixa e crescente, de modo que a faixa do pico de uma
+ *         sequencia e a maior faixa entre as dos valores visitados.
+ */
+public class CollatzHistograma {
+
+	public static final int QUANTIDADE_FAIXAS_PICO = 256;
+
+	private long[] contagemTamanhos = new long[1024];
+	private final long[] contagemFaixasPico = new long[QUANTIDADE_FAIXAS_PICO];
+	private long quantidade;
+	private long somaTamanhos;
+	private int maiorTamanho;
+	private long numeroMaiorSequencia;
+	private long limite;
+
+	/**
+	 * @param limite
+	 *            - Maior numero inicial do bloco
+	 */
+	public CollatzHistograma(long limite) {
+		this.limite = limite;
+	}
+
+	/**
+	 * @return int - Faixa do histograma de picos a que valor pertence: o
+	 *         expoente da maior potencia de 2 que nao supera valor, seguido dos
+	 *         2 bits seguintes de valor
+	 */
+	public static int faixaPico(long valor) {
+		if (valor < 1)
+			throw new CollatzErro("ValorPicoInvalido: Valor=%s", valor);
+		if (valor < 4) {
+			return (int) valor;
+		}
+		final int expoente = 63 - Long.numberOfLeadingZeros(valor);
+		return (expoente << 2) | (int) ((valor >>> (expoente - 2)) & 3);
+	}
+
+	/**
+	 * @return long - Menor valor pertencente a faixa
+	 */
+	public static long menorValorFaixaPico(int faixa) {
+		if (faixa < 8) {
+			return faixa;
+		}
+		return (4L | (faixa & 3)) << ((faixa >>> 2) - 2);
+	}
+
+	/**
+	 * @return long - Maior valor pertencente a faixa
+	 */
+	public static long maiorValorFaixaPico(int faixa) {
+		if (faixa < 8) {
+			return faixa;
+		}
+		return menorValorFaixaPico(faixa) + (1L << ((faixa >>> 2) - 2)) - 1;
+	}
+
+	/**
+	 * Registra a avaliacao de um numero. Os numeros de um mesmo bloco precisam
+	 * ser registrados em ordem crescente.
+	 *
+	 * @param numero
+	 *            - Numero inicial avaliado
+	 * @param tamanho
+	 *            - Tamanho da sequencia do numero
+	 * @param faixaPico
+	 *            - Faixa do maior valor da sequencia do numero
+	 */
+	public void registra(long numero, int tamanho, int faixaPico) {
+		if (tamanho >= contagemTamanhos.length) {
+			contagemTamanhos = Arrays.copyOf(contagemTamanhos,
+					Math.max(tamanho + 1, contagemTamanhos.length * 2));
+		}
+		contagemTamanhos[tamanho]++;
+		contagemFaixasPico[faixaPico]++;
+		quantidade++;
+		somaTamanhos += tamanho;
+		if (tamanho > maiorTamanho) {
+			maiorTamanho = tamanho;
+			numeroMaiorSequencia = numero;
+		}
+	}
+
+	/**
+	 * Soma a este histograma o de um bloco posterior.
+	 *
+	 * @param posterior
+	 *            - Histograma do bloco seguinte do intervalo
+	 * @return CollatzHistograma - Este histograma, agora cobrindo os dois
+	 *         blocos
+	 */
+	public CollatzHistograma combina(CollatzHistograma posterior) {
+		if (posterior.contagemTamanhos.length > contagemTamanhos.length) {
+			contagemTamanhos = Arrays.copyOf(contagemTamanhos,
+					posterior.contagemTamanhos.length);
+		}
+		for (int i = 0; i <= posterior.maiorTamanho; i++) {
+			contagemTamanhos[i] += posterior.contagemTamanhos[i];
+		}
+		for (int i = 0; i < QUANTIDADE_FAIXAS_PICO; i++) {
+			contagemFaixasPico[i] += posterior.contagemFaixasPico[i];
+		}
+		quantidade += posterior.quantidade;
+		somaTamanhos += posterior.somaTamanhos;
+		if (posterior.maiorTamanho > maiorTamanho) {
+			maiorTamanho = posterior.maiorTamanho;
+			numeroMaiorSequencia = posterior.numeroMaiorSequencia;
+		}
+		limite = Math.max(limite, posterior.limite);
+		return this;
+	}
+
+	public long getLimite() {
+		return limite;
+	}
+
+	public long getQuantidade() {
+		return quantidade;
+	}
+
+	public int getMaiorTamanho() {
+		return maiorTamanho;
+	}
+
+	/**
+	 * @return long - Quantidade de numeros cuja sequencia tem tamanho itens
+	 */
+	public long getContagemTamanho(int tamanho) {
+		return tamanho >= 0 && tamanho < contagemTamanhos.length ? contagemTamanhos[tamanho]
+				: 0;
+	}
+
+	/**
+	 * @return long - Quantidade de numeros cujo pico pertence a faixa
+	 */
+	public long getContagemFaixaPico(int faixa) {
+		return faixa >= 0 && faixa < QUANTIDADE_FAIXAS_PICO ? contagemFaixasPico[faixa]
+				: 0;
+	}
+
+	/**
+	 * @return double - Media dos tamanhos das sequencias
+	 */
+	public double getMediaTamanho() {
+		return quantidade == 0 ? 0 : (double) somaTamanhos / quantidade;
+	}
+
+	/**
+	 * @param percentual
+	 *            - Percentual entre 0 (exclusive) e 100
+	 * @return int - Menor tamanho que e maior ou igual aos tamanhos de pelo
+	 *         menos percentual% dos numeros
+	 */
+	public int getPercentilTamanho(double percentual) {
+		return percentil(contagemTamanhos, maiorTamanho + 1, percentual);
+	}
+
+	/**
+	 * @param percentual
+	 *            - Percentual entre 0 (exclusive) e 100
+	 * @return long - Maior valor da menor faixa que contem ou supera os picos
+	 *         de pelo menos percentual% dos numeros
+	 */
+	public long getPercentilPico(double percentual) {
+		return maiorValorFaixaPico(percentil(contagemFaixasPico,
+				QUANTIDADE_FAIXAS_PICO, percentual));
+	}
+
+	private int percentil(long[] contagem, int tamanho, double percentual) {
+		if (percentual <= 0 || percentual > 100)
+			throw new CollatzErro("PercentualInvalido: Percentual=%s",
+					percentual);
+		if (quantidade == 0)
+			throw new CollatzErro("HistogramaVazio: Limite=%s", limite);
+		final long posicao = (long) Math.ceil(percentual / 100 * quantidade);
+		long acumulado = 0;
+		for (int i = 0; i < tamanho; i++) {
+			acumulado += contagem[i];
+			if (acumulado >= posicao) {
+				return i;
+			}
+		}
+		return tamanho - 1;
+	}
+
+	/**
+	 * @return ResultadoIntervalo - Numero com a maior sequencia do bloco, em
+	 *         caso de empate o menor numero
+	 */
+	public ResultadoIntervalo getResultado() {
+		return new ResultadoIntervalo(limite, numeroMaiorSequencia,
+				maiorTamanho, quantidade);
+	}
+
+	/**
+	 * @return String - Distribuicao dos tamanhos, uma linha por tamanho
+	 *         presente no formato "tamanho quantidade"
+	 */
+	public String getDistribuicaoTamanhos() {
+		final StringBuilder distribuicao = new StringBuilder();
+		for (int i = 0; i <= maiorTamanho; i++) {
+			if (contagemTamanhos[i] > 0) {
+				distribuicao.append(i).append(' ').append(contagemTamanhos[i])
+						.append('\n');
+			}
+		}
+		return distribuicao.toString();
+	}
+
+	/**
+	 * @return String - Distribuicao dos picos, uma linha por faixa presente no
+	 *         formato "menor_valor maior_valor quantidade"
+	 */
+	public String getDistribuicaoPicos() {
+		final StringBuilder distribuicao = new StringBuilder();
+		for (int i = 0; i < QUANTIDADE_FAIXAS_PICO; i++) {
+			if (contagemFaixasPico[i] > 0) {
+				distribuicao.append(menorValorFaixaPico(i)).append(' ')
+						.append(maiorValorFaixaPico(i)).append(' ')
+						.append(contagemFaixasPico[i]).append('\n');
+			}
+		}
+		return distribuicao.toString();
+	}
+
+	@Override
+	public String toString() {
+		return String
+				.format("CollatzHistograma [limite=%s, quantidade=%s, mediaTamanho=%s, maiorTamanho=%s]",
+						limite, quantidade, getMediaTamanho(), maiorTamanho);
+	}
+
+}
@@ -0,0 +1,1003 @@
+package br.com.rjansen.desafios;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+
+/**
+ * @author raphaeljansen
+ *
+ *         Motor de varredura de intervalos da Conjectura de Collatz. Analisa
+ *         todos os numeros iniciais do intervalo [1, limite] e encontra aquele
+ *         que produz a maior sequencia.
+ *
+ *         Os tamanhos ja calculados ficam guardados em uma tabela primitiva
+ *         (short[] em memoria ou arquivo mapeado). Como quase toda trajetoria
+ *         cai rapidamente abaixo do seu numero inicial, a caminhada e
+ *         interrompida assim que alcanca um valor cujo tamanho ja e conhecido,
+ *         evitando reconstruir a sequencia inteira para cada numero.
+ *
+ *         Trajetorias que ultrapassam o inteiro longo continuam com
+ *         precisao arbitraria, veja {@link Collatz#tamanhoSequencia(long)}.
+ *
+ *         Opcionalmente a caminhada avanca k passos por consulta utilizando
+ *         as tabelas de saltos de {@link CollatzSaltos}.
+ *
+ *         A varredura pode ser sequencial ou paralela. Na paralela o intervalo
+ *         e dividido em blocos avaliados por um ForkJoinPool e os melhores
+ *         resultados de cada bloco sao combinados de forma deterministica.
+ */
+public class CollatzIntervalo {
+
+	/**
+	 * Quantidade maxima de entradas da tabela de tamanhos. Limitada pelo
+	 * tamanho maximo de um array e por uma fracao da memoria disponivel.
+	 */
+	private static final long LIMITE_TABELA = Math.min(Integer.MAX_VALUE - 8,
+			Runtime.getRuntime().maxMemory() / 4 / 2);
+
+	/**
+	 * Quantidade de numeros iniciais avaliados por uma mesma tarefa na
+	 * varredura paralela.
+	 */
+	private static final long TAMANHO_BLOCO = 1 << 16;
+
+	/**
+	 * Quantidade maxima de valores intermediarios registrados por caminhada na
+	 * busca podada.
+	 */
+	private static final int TAMANHO_CAMINHO = 1024;
+
+	/**
+	 * @author raphaeljansen
+	 *
+	 *         Classe de dados que representa o resultado da varredura de um
+	 *         intervalo: limite: Maior numero inicial analisado
+	 *         numeroMaiorSequencia: Numero inicial que produziu a maior
+	 *         sequencia tamanhoMaiorSequencia: Quantidade de itens da maior
+	 *         sequencia quantidadeAvaliada: Quantidade de numeros iniciais
+	 *         avaliados para obter o resultado
+	 */
+	public static class ResultadoIntervalo {
+		private final long limite;
+		private final long numeroMaiorSequencia;
+		private final int tamanhoMaiorSequencia;
+		private final long quantidadeAvaliada;
+
+		public ResultadoIntervalo(long limite, long numeroMaiorSequencia,
+				int tamanhoMaiorSequencia) {
+			this(limite, numeroMaiorSequencia, tamanhoMaiorSequencia, 0);
+		}
+
+		public ResultadoIntervalo(long limite, long numeroMaiorSequencia,
+				int tamanhoMaiorSequencia, long quantidadeAvaliada) {
+			super();
+			this.limite = limite;
+			this.numeroMaiorSequencia = numeroMaiorSequencia;
+			this.tamanhoMaiorSequencia = tamanhoMaiorSequencia;
+			this.quantidadeAvaliada = quantidadeAvaliada;
+		}
+
+		public long getLimite() {
+			return limite;
+		}
+
+		public long getNumeroMaiorSequencia() {
+			return numeroMaiorSequencia;
+		}
+
+		public int getTamanhoMaiorSequencia() {
+			return tamanhoMaiorSequencia;
+		}
+
+		public long getQuantidadeAvaliada() {
+			return quantidadeAvaliada;
+		}
+
+		/**
+		 * Combina dois resultados parciais. Prevalece a maior sequencia e, em
+		 * caso de empate, o menor numero inicial, o que torna a combinacao
+		 * independente da ordem de execucao dos blocos.
+		 * 
+		 * @param outro
+		 *            - Resultado de outro bloco do intervalo
+		 * @return ResultadoIntervalo - Resultado que cobre os dois blocos
+		 */
+		public ResultadoIntervalo combina(ResultadoIntervalo outro) {
+			final ResultadoIntervalo melhor;
+			if (outro.tamanhoMaiorSequencia > tamanhoMaiorSequencia
+					|| (outro.tamanhoMaiorSequencia == tamanhoMaiorSequencia && outro.numeroMaiorSequencia < numeroMaiorSequencia)) {
+				melhor = outro;
+			} else {
+				melhor = this;
+			}
+			return new ResultadoIntervalo(Math.max(limite, outro.limite),
+					melhor.numeroMaiorSequencia, melhor.tamanhoMaiorSequencia,
+					quantidadeAvaliada + outro.quantidadeAvaliada);
+		}
+
+		@Override
+		public String toString() {
+			return String
+					.format("ResultadoIntervalo [limite=%s, numeroMaiorSequencia=%s, tamanhoMaiorSequencia=%s, quantidadeAvaliada=%s]",
+							limite, numeroMaiorSequencia,
+							tamanhoMaiorSequencia, quantidadeAvaliada);
+		}
+	}
+
+	/**
+	 * @author raphaeljansen
+	 *
+	 *         Tabela de tamanhos de sequencias indexada pelo numero inicial. Um
+	 *         tamanho igual a zero indica que o numero ainda nao foi calculado.
+	 *         A tabela tambem informa ate qual numero todas as entradas ja
+	 *         estao calculadas, permitindo que uma varredura continue de onde
+	 *         uma anterior parou.
+	 */
+	public interface TabelaTamanhos {
+
+		/**
+		 * @return long - Quantidade de entradas da tabela, os numeros
+		 *         guardados estao no intervalo [0, capacidade)
+		 */
+		long getCapacidade();
+
+		/**
+		 * @return int - Tamanho da sequencia iniciada em numero ou zero se
+		 *         ainda nao foi calculado
+		 */
+		int tamanho(long numero);
+
+		/**
+		 * Guarda o tamanho da sequencia iniciada em numero.
+		 */
+		void registra(long numero, int tamanho);
+
+		/**
+		 * @return ResultadoIntervalo - Resultado do intervalo [1, limite] cujas
+		 *         entradas ja estao todas calculadas
+		 */
+		ResultadoIntervalo getResultadoConcluido();
+
+		/**
+		 * Informa que todas as entradas do intervalo [1, resultado.limite]
+		 * foram calculadas.
+		 */
+		void conclui(ResultadoIntervalo resultado);
+	}
+
+	/**
+	 * @author raphaeljansen
+	 *
+	 *         Tabela de tamanhos mantida em memoria em um short[]. Nao guarda
+	 *         nada entre execucoes.
+	 */
+	public static class TabelaMemoria implements TabelaTamanhos {
+		private final short[] tamanhos;
+		private ResultadoIntervalo resultadoConcluido = new ResultadoIntervalo(
+				1, 1, 1);
+
+		public TabelaMemoria(long capacidade) {
+			if (capacidade < 2 || capacidade > LIMITE_TABELA)
+				throw new CollatzErro(
+						"CapacidadeTabelaInvalida: Capacidade=%s Maximo=%s",
+						capacidade, LIMITE_TABELA);
+			this.tamanhos = new short[(int) capacidade];
+			this.tamanhos[1] = 1;
+		}
+
+		/**
+		 * @return TabelaMemoria - Tabela com uma entrada para cada numero ate
+		 *         limite, ou a maior tabela que a memoria disponivel permite
+		 */
+		public static TabelaMemoria paraLimite(long limite) {
+			return new TabelaMemoria(Math.max(2,
+					Math.min(limite + 1, LIMITE_TABELA)));
+		}
+
+		@Override
+		public long getCapacidade() {
+			return tamanhos.length;
+		}
+
+		@Override
+		public int tamanho(long numero) {
+			return tamanhos[(int) numero];
+		}
+
+		@Override
+		public void registra(long numero, int tamanho) {
+			tamanhos[(int) numero] = (short) tamanho;
+		}
+
+		@Override
+		public ResultadoIntervalo getResultadoConcluido() {
+			return resultadoConcluido;
+		}
+
+		@Override
+		public void conclui(ResultadoIntervalo resultado) {
+			this.resultadoConcluido = resultado;
+		}
+	}
+
+	private final long limite;
+	private final TabelaTamanhos tabela;
+	private final long capacidade;
+	private final CollatzSaltos saltos;
+
+	public CollatzIntervalo(long limite) {
+		this(limite, LIMITE_TABELA);
+	}
+
+	/**
+	 * @param limite
+	 *            - Maior numero inicial a ser analisado
+	 * @param limiteTabela
+	 *            - Quantidade maxima de entradas guardadas na tabela de
+	 *            tamanhos
+	 */
+	public CollatzIntervalo(long limite, long limiteTabela) {
+		this(limite, new TabelaMemoria(Math.max(2, Math.min(limite + 1,
+				Math.min(limiteTabela, LIMITE_TABELA)))));
+	}
+
+	/**
+	 * @param limite
+	 *            - Maior numero inicial a ser analisado
+	 * @param tabela
+	 *            - Tabela onde os tamanhos sao consultados e guardados
+	 */
+	public CollatzIntervalo(long limite, TabelaTamanhos tabela) {
+		this(limite, tabela, null);
+	}
+
+	/**
+	 * @param limite
+	 *            - Maior numero inicial a ser analisado
+	 * @param tabela
+	 *            - Tabela onde os tamanhos sao consultados e guardados
+	 * @param saltos
+	 *            - Tabelas de saltos de k passos utilizadas nas caminhadas, ou
+	 *            null para avancar um passo por vez
+	 */
+	public CollatzIntervalo(long limite, TabelaTamanhos tabela,
+			CollatzSaltos saltos) {
+		if (limite < 1)
+			throw new CollatzErro("LimiteInvalido: Limite=%s", limite);
+		if (tabela == null)
+			throw new CollatzErro("ParametroObrigatorio: tabela");
+		this.limite = limite;
+		this.tabela = tabela;
+		this.capacidade = tabela.getCapacidade();
+		this.saltos = saltos;
+	}
+
+	public long getLimite() {
+		return limite;
+	}
+
+	/**
+	 * Calcula a quantidade de itens da sequencia iniciada em numero,
+	 * interrompendo a caminhada no primeiro valor que ja esteja na tabela.
+	 *
+	 * @param numero
+	 *            - Numero inicial da sequencia
+	 * @return int - Quantidade de itens da sequencia, incluindo o numero
+	 *         inicial e o 1
+	 */
+	public int tamanho(long numero) {
+		if (numero < 1)
+			throw new CollatzErro("NumeroInicialInvalido: NumeroInicial=%s",
+					numero);
+		long valor = numero;
+		int passos = 0;
+		int tamanhoConhecido;
+		while (valor >= capacidade
+				|| (tamanhoConhecido = tabela.tamanho(valor)) == 0) {
+			if (saltos != null && saltos.podeSaltar(valor)) {
+				passos += saltos.passos(valor);
+				valor = saltos.salta(valor);
+			} else if ((valor & 1) == 0) {
+				valor = valor >>> 1;
+				passos++;
+			} else if (valor > Collatz.LIMITE_PASSO_IMPAR) {
+				tamanhoConhecido = Collatz.tamanhoSequencia(BigInteger
+						.valueOf(valor));
+				break;
+			} else {
+				valor = 3 * valor + 1;
+				passos++;
+			}
+		}
+		final int tamanho = passos + tamanhoConhecido;
+		if (passos > 0 && numero < capacidade && tamanho <= Short.MAX_VALUE) {
+			tabela.registra(numero, tamanho);
+		}
+		return tamanho;
+	}
+
+	/**
+	 * Calcula o tamanho da sequencia iniciada em numero e registra na tabela
+	 * tambem os valores intermediarios da caminhada. Utilizado pela busca
+	 * podada, em que os numeros menores que limite/2 nunca sao avaliados como
+	 * inicio e so entram na tabela por este caminho.
+	 *
+	 * @param caminho
+	 *            - Area de trabalho onde os valores visitados sao guardados
+	 * @param passosCaminho
+	 *            - Area de trabalho com a quantidade de passos ate cada valor
+	 */
+	private int tamanhoRegistrandoCaminho(long numero, long[] caminho,
+			int[] passosCaminho) {
+		long valor = numero;
+		int passos = 0;
+		int visitados = 0;
+		int tamanhoConhecido;
+		while (valor >= capacidade
+				|| (tamanhoConhecido = tabela.tamanho(valor)) == 0) {
+			if (valor < capacidade && visitados < caminho.length) {
+				caminho[visitados] = valor;
+				passosCaminho[visitados++] = passos;
+			}
+			if (saltos != null && saltos.podeSaltar(valor)) {
+				passos += saltos.passos(valor);
+				valor = saltos.salta(valor);
+			} else if ((valor & 1) == 0) {
+				valor = valor >>> 1;
+				passos++;
+			} else if (valor > Collatz.LIMITE_PASSO_IMPAR) {
+				tamanhoConhecido = Collatz.tamanhoSequencia(BigInteger
+						.valueOf(valor));
+				break;
+			} else {
+				valor = 3 * valor + 1;
+				passos++;
+			}
+		}
+		final int tamanho = passos + tamanhoConhecido;
+		if (tamanho <= Short.MAX_VALUE) {
+			for (int i = 0; i < visitados; i++) {
+				tabela.registra(caminho[i], tamanho - passosCaminho[i]);
+			}
+		}
+		return tamanho;
+	}
+
+	/**
+	 * Indica se numero pode ser descartado da busca pela maior sequencia do
+	 * intervalo [1, limite] porque existe outro numero do intervalo com
+	 * sequencia maior, ou de mesmo tamanho e menor. As regras sao:
+	 * 
+	 * 2n <= limite: a sequencia de 2n passa por n e tem um item a mais.
+	 * 
+	 * n = 6m + 4, com n > 4: n e precedido por (n - 1)/3, que e impar, menor
+	 * que n e tem um item a mais.
+	 * 
+	 * n = 8m + 5, com n > 5: 8m + 5, 24m + 16, 12m + 8, 6m + 4 e 8m + 4, 4m +
+	 * 2, 2m + 1, 6m + 4 alcancam o mesmo valor no mesmo numero de passos, logo
+	 * n - 1 tem o mesmo tamanho e e menor.
+	 * 
+	 * Como dominar e uma relacao de ordem estrita, o vencedor do intervalo
+	 * nunca e descartado.
+	 *
+	 * @param numero
+	 *            - Numero inicial candidato
+	 * @param limite
+	 *            - Maior numero inicial do intervalo
+	 * @return true se o numero nao pode ser o vencedor do intervalo
+	 */
+	public static boolean isDescartavel(long numero, long limite) {
+		return numero <= limite / 2 || (numero > 4 && numero % 6 == 4)
+				|| (numero > 5 && (numero & 7) == 5);
+	}
+
+	/**
+	 * @author raphaeljansen
+	 *
+	 *         Tarefa que avalia o bloco [inicio, fim], dividindo-o ao meio
+	 *         enquanto for maior que TAMANHO_BLOCO. Quando quantidadePistas e
+	 *         maior que 0 cada bloco folha e avaliado por um
+	 *         {@link CollatzPistas} proprio.
+	 */
+	private class TarefaIntervalo extends RecursiveTask<ResultadoIntervalo> {
+		private static final long serialVersionUID = -3409741745125916024L;
+
+		private final long inicio;
+		private final long fim;
+		private final boolean podado;
+		private final int quantidadePistas;
+
+		public TarefaIntervalo(long inicio, long fim, boolean podado) {
+			this(inicio, fim, podado, 0);
+		}
+
+		public TarefaIntervalo(long inicio, long fim, boolean podado,
+				int quantidadePistas) {
+			super();
+			this.inicio = inicio;
+			this.fim = fim;
+			this.podado = podado;
+			this.quantidadePistas = quantidadePistas;
+		}
+
+		@Override
+		protected ResultadoIntervalo compute() {
+			if (fim - inicio < TAMANHO_BLOCO) {
+				if (quantidadePistas > 0) {
+					return new CollatzPistas(tabela, quantidadePistas)
+							.executa(inicio, fim);
+				}
+				return executa(inicio, fim, podado);
+			}
+			final long meio = inicio + (fim - inicio) / 2;
+			final TarefaIntervalo direita = new TarefaIntervalo(meio + 1, fim,
+					podado, quantidadePistas);
+			direita.fork();
+			final ResultadoIntervalo resultadoEsquerda = new TarefaIntervalo(
+					inicio, meio, podado, quantidadePistas).compute();
+			return resultadoEsquerda.combina(direita.join());
+		}
+	}
+
+	/**
+	 * @author raphaeljansen
+	 *
+	 *         Tarefa que acumula o ranking do bloco [inicio, fim], dividindo-o
+	 *         ao meio enquanto for maior que TAMANHO_BLOCO. A metade esquerda
+	 *         e sempre combinada com a direita nessa ordem.
+	 */
+	private class TarefaRanking extends RecursiveTask<CollatzRanking> {
+		private static final long serialVersionUID = 6285404503441592874L;
+
+		private final long inicio;
+		private final long fim;
+		private final int quantidade;
+
+		public TarefaRanking(long inicio, long fim, int quantidade) {
+			super();
+			this.inicio = inicio;
+			this.fim = fim;
+			this.quantidade = quantidade;
+		}
+
+		@Override
+		protected CollatzRanking compute() {
+			if (fim - inicio < TAMANHO_BLOCO) {
+				final CollatzRanking ranking = new CollatzRanking(fim,
+						quantidade);
+				for (long k = inicio; k <= fim; k++) {
+					avaliaRanking(k, ranking);
+				}
+				return ranking;
+			}
+			final long meio = inicio + (fim - inicio) / 2;
+			final TarefaRanking direita = new TarefaRanking(meio + 1, fim,
+					quantidade);
+			direita.fork();
+			final CollatzRanking rankingEsquerda = new TarefaRanking(inicio,
+					meio, quantidade).compute();
+			return rankingEsquerda.combina(direita.join());
+		}
+	}
+
+	/**
+	 * @author raphaeljansen
+	 *
+	 *         Tarefa que obtem as maiores sequencias do bloco [inicio, fim],
+	 *         sem recordes, dividindo-o ao meio enquanto for maior que
+	 *         TAMANHO_BLOCO.
+	 */
+	private class TarefaMaiores extends RecursiveTask<CollatzRanking> {
+		private static final long serialVersionUID = 4417930216554018329L;
+
+		private final long inicio;
+		private final long fim;
+		private final int quantidade;
+
+		public TarefaMaiores(long inicio, long fim, int quantidade) {
+			super();
+			this.inicio = inicio;
+			this.fim = fim;
+			this.quantidade = quantidade;
+		}
+
+		@Override
+		protected CollatzRanking compute() {
+			if (fim - inicio < TAMANHO_BLOCO) {
+				return executaBloco(inicio, fim, quantidade);
+			}
+			final long meio = inicio + (fim - inicio) / 2;
+			final TarefaMaiores direita = new TarefaMaiores(meio + 1, fim,
+					quantidade);
+			direita.fork();
+			final CollatzRanking rankingEsquerda = new TarefaMaiores(inicio,
+					meio, quantidade).compute();
+			return rankingEsquerda.combina(direita.join());
+		}
+	}
+
+	/**
+	 * Avalia numero e registra no ranking seu tamanho e o maior valor visitado.
+	 * A caminhada avanca um passo por vez e so para em um valor menor que
+	 * numero cujo tamanho ja esteja na tabela. Assim o pico da sequencia de
+	 * numero so pode ser maior que o de todos os numeros menores se o maior
+	 * valor visitado tambem for, pois o restante da sequencia pertence a um
+	 * numero menor.
+	 */
+	private void avaliaRanking(long numero, CollatzRanking ranking) {
+		long valor = numero;
+		long pico = numero;
+		int passos = 0;
+		int tamanhoConhecido;
+		while (valor >= numero || valor >= capacidade
+				|| (tamanhoConhecido = tabela.tamanho(valor)) == 0) {
+			if (valor == 1) {
+				tamanhoConhecido = 1;
+				break;
+			} else if ((valor & 1) == 0) {
+				valor = valor >>> 1;
+				passos++;
+			} else if (valor > Collatz.LIMITE_PASSO_IMPAR) {
+				tamanhoConhecido = Collatz.tamanhoSequencia(BigInteger
+						.valueOf(valor));
+				pico = Long.MAX_VALUE;
+				break;
+			} else {
+				valor = 3 * valor + 1;
+				passos++;
+				if (valor > pico) {
+					pico = valor;
+				}
+			}
+		}
+		final int tamanho = passos + tamanhoConhecido;
+		if (passos > 0 && numero < capacidade && tamanho <= Short.MAX_VALUE) {
+			tabela.registra(numero, tamanho);
+		}
+		ranking.registra(numero, tamanho, pico);
+	}
+
+	/**
+	 * @author raphaeljansen
+	 *
+	 *         Tarefa que acumula o histograma do bloco [inicio, fim],
+	 *         dividindo-o ao meio enquanto for maior que TAMANHO_BLOCO. Cada
+	 *         bloco folha e avaliado por uma unica thread em um histograma
+	 *         proprio, somado aos demais na volta da recursao.
+	 */
+	private class TarefaHistograma extends RecursiveTask<CollatzHistograma> {
+		private static final long serialVersionUID = -1840175390472230558L;
+
+		private final long inicio;
+		private final long fim;
+		private final byte[] faixasPico;
+
+		public TarefaHistograma(long inicio, long fim, byte[] faixasPico) {
+			super();
+			this.inicio = inicio;
+			this.fim = fim;
+			this.faixasPico = faixasPico;
+		}
+
+		@Override
+		protected CollatzHistograma compute() {
+			if (fim - inicio < TAMANHO_BLOCO) {
+				final CollatzHistograma histograma = new CollatzHistograma(fim);
+				for (long k = inicio; k <= fim; k++) {
+					avaliaHistograma(k, faixasPico, histograma);
+				}
+				return histograma;
+			}
+			final long meio = inicio + (fim - inicio) / 2;
+			final TarefaHistograma direita = new TarefaHistograma(meio + 1,
+					fim, faixasPico);
+			direita.fork();
+			final CollatzHistograma histogramaEsquerda = new TarefaHistograma(
+					inicio, meio, faixasPico).compute();
+			return histogramaEsquerda.combina(direita.join());
+		}
+	}
+
+	/**
+	 * Avalia numero e registra no histograma seu tamanho e a faixa do seu
+	 * pico. A caminhada avanca um passo por vez e para no primeiro valor cujo
+	 * tamanho e faixa de pico ja sejam conhecidos; como a faixa de um valor
+	 * cresce com o valor, a faixa do pico de numero e a maior entre a dos
+	 * valores visitados e a do valor conhecido. Assim como a tabela de
+	 * tamanhos, a tabela de faixas e compartilhada sem sincronizacao: uma
+	 * entrada ainda nao visivel apenas prolonga a caminhada.
+	 */
+	private void avaliaHistograma(long numero, byte[] faixasPico,
+			CollatzHistograma histograma) {
+		long valor = numero;
+		long pico = numero;
+		int passos = 0;
+		int faixaConhecida;
+		int tamanhoConhecido;
+		while (valor >= faixasPico.length
+				|| (faixaConhecida = faixasPico[(int) valor] & 0xFF) == 0
+				|| (tamanhoConhecido = tabela.tamanho(valor)) == 0) {
+			if ((valor & 1) == 0) {
+				valor = valor >>> 1;
+				passos++;
+			} else if (valor > Collatz.LIMITE_PASSO_IMPAR) {
+				tamanhoConhecido = Collatz.tamanhoSequencia(BigInteger
+						.valueOf(valor));
+				faixaConhecida = CollatzHistograma.faixaPico(Long.MAX_VALUE);
+				break;
+			} else {
+				valor = 3 * valor + 1;
+				passos++;
+				if (valor > pico) {
+					pico = valor;
+				}
+			}
+		}
+		final int tamanho = passos + tamanhoConhecido;
+		final int faixa = Math.max(CollatzHistograma.faixaPico(pico),
+				faixaConhecida);
+		if (passos > 0 && numero < capacidade && tamanho <= Short.MAX_VALUE) {
+			tabela.registra(numero, tamanho);
+		}
+		if (numero < faixasPico.length) {
+			faixasPico[(int) numero] = (byte) faixa;
+		}
+		histograma.registra(numero, tamanho, faixa);
+	}
+
+	/**
+	 * Analisa todos os numeros do intervalo [1, limite] em ordem crescente, o
+	 * que garante que os valores menores ja estejam na tabela quando forem
+	 * alcancados. Em caso de empate prevalece o menor numero inicial.
+	 *
+	 * @return ResultadoIntervalo - Numero com a maior sequencia e seu tamanho
+	 */
+	public ResultadoIntervalo executa() {
+		final ResultadoIntervalo concluido = tabela.getResultadoConcluido();
+		if (limite <= concluido.getLimite()) {
+			return executa(1, limite, false);
+		}
+		return conclui(concluido.combina(executa(concluido.getLimite() + 1,
+				limite, false)));
+	}
+
+	/**
+	 * Analisa o intervalo [1, limite] utilizando todos os processadores
+	 * disponiveis.
+	 *
+	 * @return ResultadoIntervalo - Numero com a maior sequencia e seu tamanho
+	 */
+	public ResultadoIntervalo executaParalelo() {
+		return executaParalelo(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Analisa o intervalo [1, limite] em blocos avaliados em paralelo. A tabela
+	 * de tamanhos e compartilhada entre as tarefas sem sincronizacao: uma
+	 * entrada ainda nao visivel para uma tarefa apenas prolonga a caminhada
+	 * ate um valor conhecido, sem alterar o tamanho calculado.
+	 *
+	 * @param paralelismo
+	 *            - Quantidade de threads utilizadas
+	 * @return ResultadoIntervalo - Numero com a maior sequencia e seu tamanho,
+	 *         identico ao da varredura sequencial
+	 */
+	public ResultadoIntervalo executaParalelo(int paralelismo) {
+		if (paralelismo < 1)
+			throw new CollatzErro("ParalelismoInvalido: Paralelismo=%s",
+					paralelismo);
+		final ResultadoIntervalo concluido = tabela.getResultadoConcluido();
+		final ForkJoinPool pool = new ForkJoinPool(paralelismo);
+		try {
+			if (limite <= concluido.getLimite()) {
+				return pool.invoke(new TarefaIntervalo(1, limite, false));
+			}
+			return conclui(concluido.combina(pool.invoke(new TarefaIntervalo(
+					concluido.getLimite() + 1, limite, false))));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Analisa o intervalo [1, limite] em paralelo como
+	 * {@link #executaParalelo(int)}, mas avaliando os numeros de cada bloco
+	 * com {@link CollatzPistas}, varias caminhadas intercaladas por thread. As
+	 * tabelas de saltos nao sao utilizadas neste modo.
+	 *
+	 * @param quantidadePistas
+	 *            - Quantidade de caminhadas avancadas ao mesmo tempo por thread
+	 * @param paralelismo
+	 *            - Quantidade de threads utilizadas
+	 * @return ResultadoIntervalo - Numero com a maior sequencia e seu tamanho,
+	 *         identico ao da varredura sequencial
+	 */
+	public ResultadoIntervalo executaPistas(int quantidadePistas,
+			int paralelismo) {
+		if (paralelismo < 1)
+			throw new CollatzErro("ParalelismoInvalido: Paralelismo=%s",
+					paralelismo);
+		if (quantidadePistas < 1
+				|| quantidadePistas > CollatzPistas.QUANTIDADE_PISTAS_MAXIMA)
+			throw new CollatzErro(
+					"QuantidadePistasInvalida: QuantidadePistas=%s Maximo=%s",
+					quantidadePistas, CollatzPistas.QUANTIDADE_PISTAS_MAXIMA);
+		final ResultadoIntervalo concluido = tabela.getResultadoConcluido();
+		final ForkJoinPool pool = new ForkJoinPool(paralelismo);
+		try {
+			if (limite <= concluido.getLimite()) {
+				return pool.invoke(new TarefaIntervalo(1, limite, false,
+						quantidadePistas));
+			}
+			return conclui(concluido.combina(pool.invoke(new TarefaIntervalo(
+					concluido.getLimite() + 1, limite, false, quantidadePistas))));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Analisa todos os numeros do intervalo [1, limite] em paralelo, obtendo
+	 * em uma unica passada as K maiores sequencias, os recordes de tamanho e
+	 * os recordes de pico.
+	 *
+	 * @param quantidade
+	 *            - Quantidade K de maiores sequencias mantidas
+	 * @param paralelismo
+	 *            - Quantidade de threads utilizadas
+	 * @return CollatzRanking - Ranking e recordes do intervalo
+	 */
+	public CollatzRanking executaRanking(int quantidade, int paralelismo) {
+		if (paralelismo < 1)
+			throw new CollatzErro("ParalelismoInvalido: Paralelismo=%s",
+					paralelismo);
+		if (quantidade < 1)
+			throw new CollatzErro("QuantidadeRankingInvalida: Quantidade=%s",
+					quantidade);
+		final ForkJoinPool pool = new ForkJoinPool(paralelismo);
+		try {
+			final CollatzRanking ranking = pool.invoke(new TarefaRanking(1,
+					limite, quantidade));
+			if (limite > tabela.getResultadoConcluido().getLimite()) {
+				conclui(ranking.getResultado());
+			}
+			return ranking;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Analisa todos os numeros do intervalo [1, limite] em paralelo, obtendo
+	 * em uma unica passada a distribuicao dos tamanhos das sequencias e dos
+	 * seus picos. As faixas de pico ja calculadas ficam em uma tabela de um
+	 * byte por numero, mantida apenas durante a varredura.
+	 *
+	 * @param paralelismo
+	 *            - Quantidade de threads utilizadas
+	 * @return CollatzHistograma - Distribuicao dos tamanhos e dos picos do
+	 *         intervalo
+	 */
+	public CollatzHistograma executaHistograma(int paralelismo) {
+		if (paralelismo < 1)
+			throw new CollatzErro("ParalelismoInvalido: Paralelismo=%s",
+					paralelismo);
+		final byte[] faixasPico = new byte[(int) Math.min(
+				Math.min(capacidade, LIMITE_TABELA), limite + 1)];
+		if (faixasPico.length > 1) {
+			faixasPico[1] = (byte) CollatzHistograma.faixaPico(1);
+		}
+		final ForkJoinPool pool = new ForkJoinPool(paralelismo);
+		try {
+			final CollatzHistograma histograma = pool
+					.invoke(new TarefaHistograma(1, limite, faixasPico));
+			if (limite > tabela.getResultadoConcluido().getLimite()) {
+				conclui(histograma.getResultado());
+			}
+			return histograma;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Obtem em paralelo as K maiores sequencias dos numeros iniciais do bloco
+	 * [inicio, fim], que pode ser qualquer parte do intervalo [1, limite]. Os
+	 * recordes nao sao acompanhados e o intervalo nao e registrado como
+	 * concluido na tabela.
+	 *
+	 * @param inicio
+	 *            - Primeiro numero do bloco
+	 * @param fim
+	 *            - Ultimo numero do bloco
+	 * @param quantidade
+	 *            - Quantidade K de maiores sequencias mantidas
+	 * @param paralelismo
+	 *            - Quantidade de threads utilizadas
+	 * @return CollatzRanking - Maiores sequencias do bloco, sem recordes
+	 */
+	public CollatzRanking executaMaiores(long inicio, long fim,
+			int quantidade, int paralelismo) {
+		if (inicio < 1 || fim < inicio || fim > limite)
+			throw new CollatzErro("BlocoInvalido: Inicio=%s Fim=%s Limite=%s",
+					inicio, fim, limite);
+		if (quantidade < 1)
+			throw new CollatzErro("QuantidadeRankingInvalida: Quantidade=%s",
+					quantidade);
+		if (paralelismo < 1)
+			throw new CollatzErro("ParalelismoInvalido: Paralelismo=%s",
+					paralelismo);
+		final ForkJoinPool pool = new ForkJoinPool(paralelismo);
+		try {
+			return pool.invoke(new TarefaMaiores(inicio, fim, quantidade));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Analisa o intervalo [1, limite] bloco a bloco, gravando periodicamente
+	 * o progresso no ponto de controle. Os blocos ja concluidos no ponto de
+	 * controle sao ignorados, de modo que uma varredura interrompida continua
+	 * de onde parou, com qualquer paralelismo. Cada thread pega o proximo bloco
+	 * pendente, em ordem crescente, ate nao restar nenhum.
+	 *
+	 * Como parte do intervalo pode ter sido analisada por outro processo, o
+	 * intervalo nao e registrado como concluido na tabela.
+	 *
+	 * @param pontoControle
+	 *            - Ponto de controle da varredura, com o mesmo limite
+	 * @param paralelismo
+	 *            - Quantidade de threads utilizadas
+	 * @param intervaloGravacao
+	 *            - Intervalo, em milissegundos, entre gravacoes do ponto de
+	 *            controle
+	 * @return CollatzRanking - Maiores sequencias do intervalo, sem recordes
+	 */
+	public CollatzRanking executaRetomavel(
+			final CollatzPontoControle pontoControle, int paralelismo,
+			long intervaloGravacao) {
+		if (pontoControle == null)
+			throw new CollatzErro("ParametroObrigatorio: pontoControle");
+		if (pontoControle.getLimite() != limite)
+			throw new CollatzErro(
+					"PontoControleIncompativel: Limite=%s LimiteGravado=%s",
+					limite, pontoControle.getLimite());
+		if (paralelismo < 1)
+			throw new CollatzErro("ParalelismoInvalido: Paralelismo=%s",
+					paralelismo);
+		if (intervaloGravacao < 1)
+			throw new CollatzErro(
+					"IntervaloGravacaoInvalido: IntervaloGravacao=%s",
+					intervaloGravacao);
+		final AtomicLong proximoBloco = new AtomicLong();
+		final ExecutorService pool = Executors.newFixedThreadPool(paralelismo);
+		final List<Future<?>> tarefas = new ArrayList<>(paralelismo);
+		try {
+			for (int i = 0; i < paralelismo; i++) {
+				tarefas.add(pool.submit(() -> {
+					long bloco;
+					while (!Thread.currentThread().isInterrupted()
+							&& (bloco = proximoBloco.getAndIncrement()) < pontoControle
+									.getQuantidadeBlocos()) {
+						if (!pontoControle.isConcluido(bloco)) {
+							pontoControle.conclui(bloco, executaBloco(
+									pontoControle.getInicioBloco(bloco),
+									pontoControle.getFimBloco(bloco),
+									pontoControle.getQuantidade()));
+						}
+					}
+				}));
+			}
+			pool.shutdown();
+			while (!pool.awaitTermination(intervaloGravacao,
+					TimeUnit.MILLISECONDS)) {
+				pontoControle.grava();
+			}
+			for (final Future<?> tarefa : tarefas) {
+				tarefa.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CollatzErro(e);
+		} catch (ExecutionException e) {
+			throw new CollatzErro(e.getCause());
+		} finally {
+			pool.shutdownNow();
+			pontoControle.grava();
+		}
+		return pontoControle.getRanking();
+	}
+
+	/**
+	 * Analisa os numeros do bloco [inicio, fim] em ordem crescente mantendo
+	 * apenas as maiores sequencias.
+	 */
+	private CollatzRanking executaBloco(long inicio, long fim, int quantidade) {
+		final CollatzRanking ranking = new CollatzRanking(fim, quantidade);
+		for (long k = inicio; k <= fim; k++) {
+			ranking.registraTamanho(k, tamanho(k));
+		}
+		return ranking;
+	}
+
+	/**
+	 * Analisa apenas os numeros do intervalo [1, limite] que nao podem ser
+	 * descartados por {@link #isDescartavel(long, long)}, em paralelo. O
+	 * resultado e identico ao da varredura completa e a quantidade de numeros
+	 * descartados e limite menos a quantidade avaliada.
+	 *
+	 * Como os numeros abaixo de limite/2 nao sao avaliados, o intervalo nao e
+	 * registrado como concluido na tabela.
+	 *
+	 * @param paralelismo
+	 *            - Quantidade de threads utilizadas
+	 * @return ResultadoIntervalo - Numero com a maior sequencia, seu tamanho e
+	 *         a quantidade de numeros avaliados
+	 */
+	public ResultadoIntervalo executaPodado(int paralelismo) {
+		if (paralelismo < 1)
+			throw new CollatzErro("ParalelismoInvalido: Paralelismo=%s",
+					paralelismo);
+		final ForkJoinPool pool = new ForkJoinPool(paralelismo);
+		try {
+			final ResultadoIntervalo resultado = pool
+					.invoke(new TarefaIntervalo(limite / 2 + 1, limite, true));
+			return new ResultadoIntervalo(limite,
+					resultado.getNumeroMaiorSequencia(),
+					resultado.getTamanhoMaiorSequencia(),
+					resultado.getQuantidadeAvaliada());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Registra na tabela que o intervalo [1, limite] foi todo calculado,
+	 * quando todos os seus tamanhos couberem na tabela.
+	 */
+	private ResultadoIntervalo conclui(ResultadoIntervalo resultado) {
+		if (limite < capacidade) {
+			tabela.conclui(resultado);
+		}
+		return resultado;
+	}
+
+	/**
+	 * Analisa os numeros do bloco [inicio, fim] em ordem crescente, ignorando
+	 * os descartaveis quando podado.
+	 */
+	private ResultadoIntervalo executa(long inicio, long fim, boolean podado) {
+		long numeroMaiorSequencia = 0;
+		int tamanhoMaiorSequencia = 0;
+		long quantidadeAvaliada = 0;
+		final long[] caminho = podado ? new long[TAMANHO_CAMINHO] : null;
+		final int[] passosCaminho = podado ? new int[TAMANHO_CAMINHO] : null;
+		for (long k = inicio; k <= fim; k++) {
+			if (podado && isDescartavel(k, limite)) {
+				continue;
+			}
+			final int tamanho = podado ? tamanhoRegistrandoCaminho(k, caminho,
+					passosCaminho) : tamanho(k);
+			quantidadeAvaliada++;
+			if (tamanho > tamanhoMaiorSequencia) {
+				tamanhoMaiorSequencia = tamanho;
+				numeroMaiorSequencia = k;
+			}
+		}
+		return new ResultadoIntervalo(fim, numeroMaiorSequencia,
+				tamanhoMaiorSequencia, quantidadeAvaliada);
+	}
+
+}
@@ -0,0 +1,171 @@
+package br.com.rjansen.desafios;
+
+import java.math.BigInteger;
+
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+import br.com.rjansen.desafios.CollatzIntervalo.ResultadoIntervalo;
+import br.com.rjansen.desafios.CollatzIntervalo.TabelaTamanhos;
+
+/**
+ * @author raphaeljansen
+ *
+ *         Avaliador que avanca varias caminhadas independentes ao mesmo tempo,
+ *         uma por pista. Cada pista guarda em arrays primitivos o numero
+ *         inicial, o valor atual e a quantidade de passos da sua caminhada; a
+ *         cada rodada todas as pistas ativas avancam um passo reduzido sem
+ *         desvio condicional:
+ *
+ *         v impar: v = (3v + 1)/2, dois itens da sequencia
+ *
+ *         v par: v = v/2, um item da sequencia
+ *
+ *         calculados como v = (v + ((2v + 1) & m)) / 2 e passos += 1 + (v & 1),
+ *         onde m e -1 para v impar e 0 para v par.
+ *
+ *         Uma pista e liberada assim que alcanca um valor cujo tamanho ja esta
+ *         na tabela, e recebe imediatamente o proximo numero inicial do bloco.
+ *         Como as pistas sao independentes, as consultas a tabela de varias
+ *         caminhadas ficam em andamento ao mesmo tempo, em vez de cada
+ *         caminhada esperar a sua. Valores que ultrapassariam o inteiro longo
+ *         deixam a pista e continuam com precisao arbitraria, veja
+ *         {@link Collatz#tamanhoSequencia(BigInteger)}.
+ *
+ *         Os tamanhos obtidos sao identicos aos de
+ *         {@link CollatzIntervalo#tamanho(long)}. Uma instancia guarda o estado
+ *         das pistas e nao pode ser compartilhada entre threads.
+ */
+public class CollatzPistas {
+
+	public static final int QUANTIDADE_PISTAS_PADRAO = 4;
+	public static final int QUANTIDADE_PISTAS_MAXIMA = 1024;
+
+	private final TabelaTamanhos tabela;
+	private final long capacidade;
+	private final long[] numeros;
+	private final long[] valores;
+	private final int[] passos;
+
+	public CollatzPistas(TabelaTamanhos tabela) {
+		this(tabela, QUANTIDADE_PISTAS_PADRAO);
+	}
+
+	/**
+	 * @param tabela
+	 *            - Tabela onde os tamanhos sao consultados e guardados
+	 * @param quantidadePistas
+	 *            - Quantidade de caminhadas avancadas ao mesmo tempo
+	 */
+	public CollatzPistas(TabelaTamanhos tabela, int quantidadePistas) {
+		if (tabela == null)
+			throw new CollatzErro("ParametroObrigatorio: tabela");
+		if (quantidadePistas < 1 || quantidadePistas > QUANTIDADE_PISTAS_MAXIMA)
+			throw new CollatzErro(
+					"QuantidadePistasInvalida: QuantidadePistas=%s Maximo=%s",
+					quantidadePistas, QUANTIDADE_PISTAS_MAXIMA);
+		this.tabela = tabela;
+		this.capacidade = tabela.getCapacidade();
+		this.numeros = new long[quantidadePistas];
+		this.valores = new long[quantidadePistas];
+		this.passos = new int[quantidadePistas];
+	}
+
+	public int getQuantidadePistas() {
+		return numeros.length;
+	}
+
+	/**
+	 * Analisa os numeros do bloco [inicio, fim]. Em caso de empate prevalece o
+	 * menor numero inicial, independente da ordem em que as pistas terminam.
+	 *
+	 * @return ResultadoIntervalo - Numero com a maior sequencia do bloco
+	 */
+	public ResultadoIntervalo executa(long inicio, long fim) {
+		return avalia(inicio, fim, null);
+	}
+
+	/**
+	 * Calcula o tamanho da sequencia de cada numero do bloco [inicio, inicio +
+	 * quantidade - 1].
+	 *
+	 * @return int[] - Tamanho da sequencia de inicio + i na posicao i
+	 */
+	public int[] tamanhos(long inicio, int quantidade) {
+		final int[] tamanhos = new int[quantidade];
+		if (quantidade > 0) {
+			avalia(inicio, inicio + quantidade - 1, tamanhos);
+		}
+		return tamanhos;
+	}
+
+	private ResultadoIntervalo avalia(long inicio, long fim, int[] tamanhos) {
+		if (inicio < 1 || fim < inicio)
+			throw new CollatzErro("BlocoInvalido: Inicio=%s Fim=%s", inicio,
+					fim);
+		long numeroMaiorSequencia = 0;
+		int tamanhoMaiorSequencia = 0;
+		long proximo = inicio;
+		int ativas = 0;
+		while (ativas < numeros.length && proximo <= fim) {
+			numeros[ativas] = proximo;
+			valores[ativas] = proximo++;
+			passos[ativas++] = 0;
+		}
+		while (ativas > 0) {
+			int pista = 0;
+			while (pista < ativas) {
+				final long valor = valores[pista];
+				int tamanhoConhecido = 0;
+				// so valores abaixo do numero inicial costumam estar na tabela
+				if ((valor < numeros[pista] || passos[pista] == 0)
+						&& valor < capacidade) {
+					tamanhoConhecido = tabela.tamanho(valor);
+				} else if (valor > Collatz.LIMITE_PASSO_IMPAR) {
+					tamanhoConhecido = Collatz.tamanhoSequencia(BigInteger
+							.valueOf(valor));
+				}
+				if (tamanhoConhecido == 0) {
+					final long impar = valor & 1;
+					valores[pista] = (valor + ((2 * valor + 1) & -impar)) >>> 1;
+					passos[pista] += 1 + (int) impar;
+					pista++;
+					continue;
+				}
+				final long numero = numeros[pista];
+				final int tamanho = passos[pista] + tamanhoConhecido;
+				if (passos[pista] > 0 && numero < capacidade
+						&& tamanho <= Short.MAX_VALUE) {
+					tabela.registra(numero, tamanho);
+				}
+				if (tamanhos != null) {
+					tamanhos[(int) (numero - inicio)] = tamanho;
+				}
+				if (tamanho > tamanhoMaiorSequencia
+						|| (tamanho == tamanhoMaiorSequencia && numero < numeroMaiorSequencia)) {
+					tamanhoMaiorSequencia = tamanho;
+					numeroMaiorSequencia = numero;
+				}
+				if (proximo <= fim) {
+					numeros[pista] = proximo;
+					valores[pista] = proximo++;
+					passos[pista] = 0;
+					pista++;
+				} else {
+					// a ultima pista ativa ocupa o lugar da pista liberada
+					ativas--;
+					numeros[pista] = numeros[ativas];
+					valores[pista] = valores[ativas];
+					passos[pista] = passos[ativas];
+				}
+			}
+		}
+		return new ResultadoIntervalo(fim, numeroMaiorSequencia,
+				tamanhoMaiorSequencia, fim - inicio + 1);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("CollatzPistas [quantidadePistas=%s]",
+				numeros.length);
+	}
+
+}
@@ -0,0 +1,269 @@
+package br.com.rjansen.desafios;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+import br.com.rjansen.desafios.CollatzRanking.ItemRanking;
+
+/**
+ * @author raphaeljansen
+ *
+ *         Ponto de controle de uma varredura longa do intervalo [1, limite].
+ *         O intervalo e dividido em blocos de tamanho fixo e o ponto de
+ *         controle guarda quais blocos ja foram concluidos e as K maiores
+ *         sequencias encontradas neles, o que inclui a maior de todas. Como os
+ *         blocos nao dependem da quantidade de threads, uma varredura
+ *         interrompida pode ser retomada com qualquer paralelismo.
+ *
+ *         Formato do arquivo (little-endian):
+ *
+ *         cabecalho: magico (int), versao (int), limite (long), tamanho do
+ *         bloco (long), quantidade K (int), quantidade de maiores sequencias
+ *         gravadas (int)
+ *
+ *         maiores sequencias: numero (long) e tamanho (int) de cada uma
+ *
+ *         blocos concluidos: um bit por bloco, em longs
+ *
+ *         O arquivo e sempre gravado por inteiro em um arquivo temporario e
+ *         movido sobre o anterior, de modo que uma interrupcao durante a
+ *         gravacao preserva o ponto de controle anterior.
+ */
+public class CollatzPontoControle {
+
+	public static final long TAMANHO_BLOCO_PADRAO = 1 << 22;
+
+	private static final int MAGICO = 0x50544C43;
+	private static final int VERSAO = 1;
+	private static final int TAMANHO_CABECALHO = 32;
+	private static final int TAMANHO_ITEM = 12;
+
+	private final Path arquivo;
+	private final long limite;
+	private final long tamanhoBloco;
+	private final int quantidade;
+	private final long quantidadeBlocos;
+	private final long[] blocosConcluidos;
+	private long quantidadeBlocosConcluidos;
+	private final CollatzRanking ranking;
+
+	private CollatzPontoControle(Path arquivo, long limite, long tamanhoBloco,
+			int quantidade) {
+		this.arquivo = arquivo;
+		this.limite = limite;
+		this.tamanhoBloco = tamanhoBloco;
+		this.quantidade = quantidade;
+		this.quantidadeBlocos = (limite + tamanhoBloco - 1) / tamanhoBloco;
+		if (quantidadeBlocos > (long) Integer.MAX_VALUE * 64)
+			throw new CollatzErro(
+					"TamanhoBlocoInvalido: Limite=%s TamanhoBloco=%s", limite,
+					tamanhoBloco);
+		this.blocosConcluidos = new long[(int) ((quantidadeBlocos + 63) >>> 6)];
+		this.ranking = new CollatzRanking(limite, quantidade);
+	}
+
+	/**
+	 * Abre o ponto de controle com o tamanho de bloco padrao.
+	 *
+	 * @see #abre(Path, long, int, long)
+	 */
+	public static CollatzPontoControle abre(Path arquivo, long limite,
+			int quantidade) {
+		return abre(arquivo, limite, quantidade, TAMANHO_BLOCO_PADRAO);
+	}
+
+	/**
+	 * Carrega o ponto de controle gravado em arquivo ou, se o arquivo nao
+	 * existir, cria um ponto de controle sem nenhum bloco concluido. Um ponto
+	 * de controle existente mantem o tamanho de bloco com que foi criado.
+	 *
+	 * @param arquivo
+	 *            - Arquivo do ponto de controle
+	 * @param limite
+	 *            - Maior numero inicial da varredura
+	 * @param quantidade
+	 *            - Quantidade K de maiores sequencias mantidas
+	 * @param tamanhoBloco
+	 *            - Quantidade de numeros de cada bloco, para um novo ponto de
+	 *            controle
+	 * @return CollatzPontoControle - Ponto de controle da varredura
+	 */
+	public static CollatzPontoControle abre(Path arquivo, long limite,
+			int quantidade, long tamanhoBloco) {
+		if (arquivo == null)
+			throw new CollatzErro("ParametroObrigatorio: arquivo");
+		if (limite < 1)
+			throw new CollatzErro("LimiteInvalido: Limite=%s", limite);
+		if (quantidade < 1)
+			throw new CollatzErro("QuantidadeRankingInvalida: Quantidade=%s",
+					quantidade);
+		if (tamanhoBloco < 1)
+			throw new CollatzErro("TamanhoBlocoInvalido: TamanhoBloco=%s",
+					tamanhoBloco);
+		if (!Files.exists(arquivo)) {
+			return new CollatzPontoControle(arquivo, limite, tamanhoBloco,
+					quantidade);
+		}
+		final ByteBuffer conteudo;
+		try {
+			conteudo = ByteBuffer.wrap(Files.readAllBytes(arquivo)).order(
+					ByteOrder.LITTLE_ENDIAN);
+		} catch (IOException e) {
+			throw new CollatzErro("ErroLeituraPontoControle: Arquivo=[%s]", e,
+					arquivo);
+		}
+		if (conteudo.remaining() < TAMANHO_CABECALHO
+				|| conteudo.getInt() != MAGICO || conteudo.getInt() != VERSAO)
+			throw new CollatzErro("PontoControleInvalido: Arquivo=[%s]",
+					arquivo);
+		final long limiteGravado = conteudo.getLong();
+		final long tamanhoBlocoGravado = conteudo.getLong();
+		final int quantidadeGravada = conteudo.getInt();
+		final int itensGravados = conteudo.getInt();
+		if (limiteGravado != limite || quantidadeGravada != quantidade)
+			throw new CollatzErro(
+					"PontoControleIncompativel: Arquivo=[%s] Limite=%s LimiteGravado=%s Quantidade=%s QuantidadeGravada=%s",
+					arquivo, limite, limiteGravado, quantidade,
+					quantidadeGravada);
+		if (tamanhoBlocoGravado < 1 || itensGravados < 0
+				|| itensGravados > quantidade)
+			throw new CollatzErro("PontoControleInvalido: Arquivo=[%s]",
+					arquivo);
+		final CollatzPontoControle pontoControle = new CollatzPontoControle(
+				arquivo, limite, tamanhoBlocoGravado, quantidade);
+		if (conteudo.remaining() != itensGravados * TAMANHO_ITEM
+				+ pontoControle.blocosConcluidos.length * 8)
+			throw new CollatzErro("PontoControleInvalido: Arquivo=[%s]",
+					arquivo);
+		for (int i = 0; i < itensGravados; i++) {
+			pontoControle.ranking.registraTamanho(conteudo.getLong(),
+					conteudo.getInt());
+		}
+		for (int i = 0; i < pontoControle.blocosConcluidos.length; i++) {
+			pontoControle.blocosConcluidos[i] = conteudo.getLong();
+			pontoControle.quantidadeBlocosConcluidos += Long
+					.bitCount(pontoControle.blocosConcluidos[i]);
+		}
+		return pontoControle;
+	}
+
+	public Path getArquivo() {
+		return arquivo;
+	}
+
+	public long getLimite() {
+		return limite;
+	}
+
+	public long getTamanhoBloco() {
+		return tamanhoBloco;
+	}
+
+	public int getQuantidade() {
+		return quantidade;
+	}
+
+	public long getQuantidadeBlocos() {
+		return quantidadeBlocos;
+	}
+
+	public synchronized long getQuantidadeBlocosConcluidos() {
+		return quantidadeBlocosConcluidos;
+	}
+
+	public synchronized boolean isCompleto() {
+		return quantidadeBlocosConcluidos == quantidadeBlocos;
+	}
+
+	/**
+	 * @return long - Primeiro numero do bloco
+	 */
+	public long getInicioBloco(long bloco) {
+		return bloco * tamanhoBloco + 1;
+	}
+
+	/**
+	 * @return long - Ultimo numero do bloco
+	 */
+	public long getFimBloco(long bloco) {
+		return Math.min(limite, (bloco + 1) * tamanhoBloco);
+	}
+
+	public synchronized boolean isConcluido(long bloco) {
+		return (blocosConcluidos[(int) (bloco >>> 6)] & (1L << bloco)) != 0;
+	}
+
+	/**
+	 * Marca o bloco como concluido e acrescenta suas maiores sequencias as do
+	 * ponto de controle.
+	 *
+	 * @param bloco
+	 *            - Indice do bloco, a partir de 0
+	 * @param rankingBloco
+	 *            - Maiores sequencias do bloco
+	 */
+	public synchronized void conclui(long bloco, CollatzRanking rankingBloco) {
+		if (isConcluido(bloco)) {
+			return;
+		}
+		for (final ItemRanking item : rankingBloco.getMaioresSequencias()) {
+			ranking.registraTamanho(item.getNumero(), (int) item.getValor());
+		}
+		blocosConcluidos[(int) (bloco >>> 6)] |= 1L << bloco;
+		quantidadeBlocosConcluidos++;
+	}
+
+	/**
+	 * @return CollatzRanking - Copia das maiores sequencias dos blocos
+	 *         concluidos, sem recordes
+	 */
+	public synchronized CollatzRanking getRanking() {
+		return new CollatzRanking(limite, quantidade).combina(ranking);
+	}
+
+	/**
+	 * Grava o estado atual no arquivo, substituindo o anterior de uma so vez.
+	 */
+	public synchronized void grava() {
+		final List<ItemRanking> maiores = ranking.getMaioresSequencias();
+		final ByteBuffer conteudo = ByteBuffer.allocate(
+				TAMANHO_CABECALHO + maiores.size() * TAMANHO_ITEM
+						+ blocosConcluidos.length * 8).order(
+				ByteOrder.LITTLE_ENDIAN);
+		conteudo.putInt(MAGICO).putInt(VERSAO).putLong(limite)
+				.putLong(tamanhoBloco).putInt(quantidade)
+				.putInt(maiores.size());
+		for (final ItemRanking item : maiores) {
+			conteudo.putLong(item.getNumero()).putInt((int) item.getValor());
+		}
+		for (final long palavra : blocosConcluidos) {
+			conteudo.putLong(palavra);
+		}
+		final Path temporario = arquivo.resolveSibling(arquivo.getFileName()
+				+ ".tmp");
+		try {
+			Files.write(temporario, conteudo.array());
+			Files.move(temporario, arquivo,
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new CollatzErro("ErroGravacaoPontoControle: Arquivo=[%s]",
+					e, arquivo);
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String
+				.format("CollatzPontoControle [arquivo=%s, limite=%s, tamanhoBloco=%s, blocosConcluidos=%s/%s]",
+						arquivo, limite, tamanhoBloco,
+						quantidadeBlocosConcluidos, quantidadeBlocos);
+	}
+
+}
@@ -0,0 +1,326 @@
+package br.com.rjansen.desafios;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+import br.com.rjansen.desafios.CollatzIntervalo.ResultadoIntervalo;
+
+/**
+ * @author raphaeljansen
+ *
+ *         Acumula, durante a varredura de um bloco de numeros iniciais
+ *         avaliados em ordem crescente, as K maiores sequencias e os recordes
+ *         do bloco:
+ *
+ *         recordes de tamanho: numeros cuja sequencia e maior que a de todos
+ *         os numeros menores
+ *
+ *         recordes de pico: numeros cuja sequencia alcanca um valor maior que
+ *         o alcancado pelas sequencias de todos os numeros menores
+ *
+ *         As K maiores sequencias ficam em um heap de minimo primitivo
+ *         limitado a K entradas. Os blocos de uma varredura paralela sao
+ *         combinados em ordem crescente, o que preserva os recordes globais.
+ */
+public class CollatzRanking {
+
+	/**
+	 * @author raphaeljansen
+	 *
+	 *         Item de um ranking ou lista de recordes: numero: Numero inicial
+	 *         valor: Tamanho da sequencia ou valor de pico, conforme a lista
+	 */
+	public static class ItemRanking {
+		private final long numero;
+		private final long valor;
+
+		public ItemRanking(long numero, long valor) {
+			super();
+			this.numero = numero;
+			this.valor = valor;
+		}
+
+		public long getNumero() {
+			return numero;
+		}
+
+		public long getValor() {
+			return valor;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(numero) * 31 + Long.hashCode(valor);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+			final ItemRanking other = (ItemRanking) obj;
+			return numero == other.numero && valor == other.valor;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s=%s", numero, valor);
+		}
+	}
+
+	private long limite;
+	private final int quantidade;
+	private final long[] numerosHeap;
+	private final int[] tamanhosHeap;
+	private int tamanhoHeap;
+
+	private long[] numerosRecordeTamanho = new long[16];
+	private int[] valoresRecordeTamanho = new int[16];
+	private int quantidadeRecordesTamanho;
+	private long[] numerosRecordePico = new long[16];
+	private long[] valoresRecordePico = new long[16];
+	private int quantidadeRecordesPico;
+
+	/**
+	 * @param limite
+	 *            - Maior numero inicial do bloco
+	 * @param quantidade
+	 *            - Quantidade K de maiores sequencias mantidas
+	 */
+	public CollatzRanking(long limite, int quantidade) {
+		if (quantidade < 1)
+			throw new CollatzErro("QuantidadeRankingInvalida: Quantidade=%s",
+					quantidade);
+		this.limite = limite;
+		this.quantidade = quantidade;
+		this.numerosHeap = new long[quantidade];
+		this.tamanhosHeap = new int[quantidade];
+	}
+
+	public long getLimite() {
+		return limite;
+	}
+
+	/**
+	 * Registra a avaliacao de um numero. Os numeros de um mesmo bloco precisam
+	 * ser registrados em ordem crescente.
+	 *
+	 * @param numero
+	 *            - Numero inicial avaliado
+	 * @param tamanho
+	 *            - Tamanho da sequencia do numero
+	 * @param pico
+	 *            - Maior valor visitado pela caminhada do numero ate cair
+	 *            abaixo dele
+	 */
+	public void registra(long numero, int tamanho, long pico) {
+		if (quantidadeRecordesTamanho == 0
+				|| tamanho > valoresRecordeTamanho[quantidadeRecordesTamanho - 1]) {
+			adicionaRecordeTamanho(numero, tamanho);
+		}
+		if (quantidadeRecordesPico == 0
+				|| pico > valoresRecordePico[quantidadeRecordesPico - 1]) {
+			adicionaRecordePico(numero, pico);
+		}
+		adicionaHeap(numero, tamanho);
+	}
+
+	/**
+	 * Registra apenas o tamanho da sequencia de um numero, sem acompanhar os
+	 * recordes. Utilizado pelas varreduras que avaliam os blocos fora de ordem,
+	 * em que so as K maiores sequencias sao mantidas; nesse caso os numeros
+	 * podem ser registrados em qualquer ordem.
+	 *
+	 * @param numero
+	 *            - Numero inicial avaliado
+	 * @param tamanho
+	 *            - Tamanho da sequencia do numero
+	 */
+	public void registraTamanho(long numero, int tamanho) {
+		adicionaHeap(numero, tamanho);
+	}
+
+	/**
+	 * Combina este ranking com o de um bloco posterior. Os recordes do bloco
+	 * posterior so permanecem se superarem os recordes acumulados ate aqui.
+	 *
+	 * @param posterior
+	 *            - Ranking do bloco seguinte do intervalo
+	 * @return CollatzRanking - Este ranking, agora cobrindo os dois blocos
+	 */
+	public CollatzRanking combina(CollatzRanking posterior) {
+		for (int i = 0; i < posterior.quantidadeRecordesTamanho; i++) {
+			if (quantidadeRecordesTamanho == 0
+					|| posterior.valoresRecordeTamanho[i] > valoresRecordeTamanho[quantidadeRecordesTamanho - 1]) {
+				adicionaRecordeTamanho(posterior.numerosRecordeTamanho[i],
+						posterior.valoresRecordeTamanho[i]);
+			}
+		}
+		for (int i = 0; i < posterior.quantidadeRecordesPico; i++) {
+			if (quantidadeRecordesPico == 0
+					|| posterior.valoresRecordePico[i] > valoresRecordePico[quantidadeRecordesPico - 1]) {
+				adicionaRecordePico(posterior.numerosRecordePico[i],
+						posterior.valoresRecordePico[i]);
+			}
+		}
+		for (int i = 0; i < posterior.tamanhoHeap; i++) {
+			adicionaHeap(posterior.numerosHeap[i], posterior.tamanhosHeap[i]);
+		}
+		limite = Math.max(limite, posterior.limite);
+		return this;
+	}
+
+	/**
+	 * @return List - As K maiores sequencias, da maior para a menor. Em caso de
+	 *         empate o menor numero vem primeiro
+	 */
+	public List<ItemRanking> getMaioresSequencias() {
+		final long[] numeros = Arrays.copyOf(numerosHeap, tamanhoHeap);
+		final int[] tamanhos = Arrays.copyOf(tamanhosHeap, tamanhoHeap);
+		final List<ItemRanking> maiores = new ArrayList<>(tamanhoHeap);
+		int restantes = tamanhoHeap;
+		while (restantes > 0) {
+			int melhor = 0;
+			for (int i = 1; i < restantes; i++) {
+				if (isMelhor(numeros[i], tamanhos[i], numeros[melhor],
+						tamanhos[melhor])) {
+					melhor = i;
+				}
+			}
+			maiores.add(new ItemRanking(numeros[melhor], tamanhos[melhor]));
+			restantes--;
+			numeros[melhor] = numeros[restantes];
+			tamanhos[melhor] = tamanhos[restantes];
+		}
+		return maiores;
+	}
+
+	/**
+	 * @return List - Recordes de tamanho em ordem crescente de numero inicial
+	 */
+	public List<ItemRanking> getRecordesTamanho() {
+		final List<ItemRanking> recordes = new ArrayList<>(
+				quantidadeRecordesTamanho);
+		for (int i = 0; i < quantidadeRecordesTamanho; i++) {
+			recordes.add(new ItemRanking(numerosRecordeTamanho[i],
+					valoresRecordeTamanho[i]));
+		}
+		return recordes;
+	}
+
+	/**
+	 * @return List - Recordes de pico em ordem crescente de numero inicial. Um
+	 *         pico que nao cabe em um inteiro longo e informado como
+	 *         Long.MAX_VALUE
+	 */
+	public List<ItemRanking> getRecordesPico() {
+		final List<ItemRanking> recordes = new ArrayList<>(
+				quantidadeRecordesPico);
+		for (int i = 0; i < quantidadeRecordesPico; i++) {
+			recordes.add(new ItemRanking(numerosRecordePico[i],
+					valoresRecordePico[i]));
+		}
+		return recordes;
+	}
+
+	/**
+	 * @return ResultadoIntervalo - Numero com a maior sequencia do bloco
+	 */
+	public ResultadoIntervalo getResultado() {
+		final List<ItemRanking> maiores = getMaioresSequencias();
+		if (maiores.isEmpty()) {
+			return new ResultadoIntervalo(limite, 0, 0);
+		}
+		return new ResultadoIntervalo(limite, maiores.get(0).getNumero(),
+				(int) maiores.get(0).getValor());
+	}
+
+	private static boolean isMelhor(long numero, int tamanho,
+			long outroNumero, int outroTamanho) {
+		return tamanho > outroTamanho
+				|| (tamanho == outroTamanho && numero < outroNumero);
+	}
+
+	private void adicionaRecordeTamanho(long numero, int tamanho) {
+		if (quantidadeRecordesTamanho == numerosRecordeTamanho.length) {
+			numerosRecordeTamanho = Arrays.copyOf(numerosRecordeTamanho,
+					quantidadeRecordesTamanho * 2);
+			valoresRecordeTamanho = Arrays.copyOf(valoresRecordeTamanho,
+					quantidadeRecordesTamanho * 2);
+		}
+		numerosRecordeTamanho[quantidadeRecordesTamanho] = numero;
+		valoresRecordeTamanho[quantidadeRecordesTamanho++] = tamanho;
+	}
+
+	private void adicionaRecordePico(long numero, long pico) {
+		if (quantidadeRecordesPico == numerosRecordePico.length) {
+			numerosRecordePico = Arrays.copyOf(numerosRecordePico,
+					quantidadeRecordesPico * 2);
+			valoresRecordePico = Arrays.copyOf(valoresRecordePico,
+					quantidadeRecordesPico * 2);
+		}
+		numerosRecordePico[quantidadeRecordesPico] = numero;
+		valoresRecordePico[quantidadeRecordesPico++] = pico;
+	}
+
+	/**
+	 * Insere no heap de minimo, cuja raiz e a pior das K maiores sequencias.
+	 * Quando o heap esta cheio a raiz so e substituida por um item melhor.
+	 */
+	private void adicionaHeap(long numero, int tamanho) {
+		if (tamanhoHeap < quantidade) {
+			int filho = tamanhoHeap++;
+			while (filho > 0) {
+				final int pai = (filho - 1) >>> 1;
+				if (!isMelhor(numerosHeap[pai], tamanhosHeap[pai], numero,
+						tamanho)) {
+					break;
+				}
+				numerosHeap[filho] = numerosHeap[pai];
+				tamanhosHeap[filho] = tamanhosHeap[pai];
+				filho = pai;
+			}
+			numerosHeap[filho] = numero;
+			tamanhosHeap[filho] = tamanho;
+			return;
+		}
+		if (!isMelhor(numero, tamanho, numerosHeap[0], tamanhosHeap[0])) {
+			return;
+		}
+		int pai = 0;
+		while (true) {
+			final int esquerdo = 2 * pai + 1;
+			if (esquerdo >= tamanhoHeap) {
+				break;
+			}
+			final int direito = esquerdo + 1;
+			int pior = esquerdo;
+			if (direito < tamanhoHeap
+					&& isMelhor(numerosHeap[esquerdo], tamanhosHeap[esquerdo],
+							numerosHeap[direito], tamanhosHeap[direito])) {
+				pior = direito;
+			}
+			if (!isMelhor(numero, tamanho, numerosHeap[pior],
+					tamanhosHeap[pior])) {
+				break;
+			}
+			numerosHeap[pai] = numerosHeap[pior];
+			tamanhosHeap[pai] = tamanhosHeap[pior];
+			pai = pior;
+		}
+		numerosHeap[pai] = numero;
+		tamanhosHeap[pai] = tamanho;
+	}
+
+	@Override
+	public String toString() {
+		return String
+				.format("CollatzRanking [limite=%s, maioresSequencias=%s, recordesTamanho=%s, recordesPico=%s]",
+						limite, getMaioresSequencias(), getRecordesTamanho(),
+						getRecordesPico());
+	}
+
+}
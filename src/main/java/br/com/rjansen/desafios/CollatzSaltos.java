@@ -0,0 +1,151 @@
+package br.com.rjansen.desafios;
+
+import java.math.BigInteger;
+
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+
+/**
+ * @author raphaeljansen
+ *
+ *         Tabelas de saltos de k passos da Conjectura de Collatz.
+ *
+ *         Escrevendo n = a * 2^k + r, com r = n mod 2^k, a paridade dos k
+ *         primeiros passos da forma reduzida T(n) = n/2 (se n e par) e T(n) =
+ *         (3n + 1)/2 (se n e impar) depende apenas de r. Assim, apos k passos,
+ *         T^k(n) = 3^c * a + d, onde c e a quantidade de passos impares. Para
+ *         cada residuo r sao pre-calculados o multiplicador 3^c, a adicao d e a
+ *         quantidade de itens que os k passos representam na sequencia
+ *         original (k + c, pois cada passo impar equivale a 3n + 1 seguido de
+ *         n/2).
+ *
+ *         Um salto so e aplicado quando n e maior que 2^k, o que garante que a
+ *         sequencia nao alcanca o 1 no meio do salto, e quando o resultado cabe
+ *         em um inteiro longo. Fora dessas condicoes a caminhada volta a
+ *         avancar um passo por vez.
+ */
+public class CollatzSaltos {
+
+	public static final int BITS_PADRAO = 16;
+	public static final int BITS_MAXIMO = 24;
+
+	private final int bits;
+	private final long mascara;
+	private final long[] multiplicador;
+	private final long[] adicao;
+	private final byte[] passos;
+	private final long menorValorSalto;
+	private final long maiorValorSalto;
+
+	public CollatzSaltos() {
+		this(BITS_PADRAO);
+	}
+
+	/**
+	 * @param bits
+	 *            - Quantidade k de passos reduzidos aplicados a cada salto, a
+	 *            tabela tem 2^k entradas
+	 */
+	public CollatzSaltos(int bits) {
+		if (bits < 1 || bits > BITS_MAXIMO)
+			throw new CollatzErro("BitsInvalidos: Bits=%s Maximo=%s", bits,
+					BITS_MAXIMO);
+		this.bits = bits;
+		final int residuos = 1 << bits;
+		this.mascara = residuos - 1;
+		this.multiplicador = new long[residuos];
+		this.adicao = new long[residuos];
+		this.passos = new byte[residuos];
+		for (int residuo = 0; residuo < residuos; residuo++) {
+			long valor = residuo;
+			long potencia = 1;
+			int impares = 0;
+			for (int passo = 0; passo < bits; passo++) {
+				if ((valor & 1) == 0) {
+					valor = valor >>> 1;
+				} else {
+					valor = (3 * valor + 1) >>> 1;
+					potencia *= 3;
+					impares++;
+				}
+			}
+			multiplicador[residuo] = potencia;
+			adicao[residuo] = valor;
+			passos[residuo] = (byte) (bits + impares);
+		}
+		long potenciaMaxima = 1;
+		for (int passo = 0; passo < bits; passo++) {
+			potenciaMaxima *= 3;
+		}
+		this.menorValorSalto = 1L << bits;
+		// 3^c * a + d < 3^k * (a + 1) precisa caber em um inteiro longo
+		this.maiorValorSalto = ((Long.MAX_VALUE / potenciaMaxima) - 1) << bits;
+	}
+
+	public int getBits() {
+		return bits;
+	}
+
+	/**
+	 * @return true se o salto pode ser aplicado a partir de valor sem passar
+	 *         pelo 1 e sem estourar o inteiro longo
+	 */
+	public boolean podeSaltar(long valor) {
+		return valor > menorValorSalto && valor < maiorValorSalto;
+	}
+
+	/**
+	 * @return long - Valor alcancado apos o salto de k passos reduzidos
+	 */
+	public long salta(long valor) {
+		final int residuo = (int) (valor & mascara);
+		return multiplicador[residuo] * (valor >>> bits) + adicao[residuo];
+	}
+
+	/**
+	 * @return int - Quantidade de itens da sequencia original percorridos pelo
+	 *         salto a partir de valor
+	 */
+	public int passos(long valor) {
+		return passos[(int) (valor & mascara)];
+	}
+
+	/**
+	 * Calcula a quantidade de itens da sequencia iniciada em numeroInicial
+	 * avancando k passos por consulta enquanto for possivel.
+	 *
+	 * @param numeroInicial
+	 *            - Numero aonde será aplicada a função
+	 * @return int - Quantidade de itens da sequencia, incluindo o numero
+	 *         inicial e o 1, igual a {@link Collatz#tamanhoSequencia(long)}
+	 */
+	public int tamanhoSequencia(long numeroInicial) {
+		if (numeroInicial < 1)
+			throw new CollatzErro("NumeroInicialInvalido: NumeroInicial=%s",
+					numeroInicial);
+		long numero = numeroInicial;
+		int tamanho = 1;
+		while (numero != 1) {
+			if (podeSaltar(numero)) {
+				tamanho += passos(numero);
+				numero = salta(numero);
+			} else if ((numero & 1) == 0) {
+				numero = numero >>> 1;
+				tamanho++;
+			} else if (numero > Collatz.LIMITE_PASSO_IMPAR) {
+				return tamanho - 1
+						+ Collatz.tamanhoSequencia(BigInteger.valueOf(numero));
+			} else {
+				numero = 3 * numero + 1;
+				tamanho++;
+			}
+		}
+		return tamanho;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("CollatzSaltos [bits=%s, entradas=%s]", bits,
+				multiplicador.length);
+	}
+
+}
@@ -0,0 +1,280 @@
+package br.com.rjansen.desafios;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+
+/**
+ * @author raphaeljansen
+ *
+ *         Representacao compacta de uma sequencia de Collatz: apenas o numero
+ *         inicial e o vetor de paridades, um bit por item da sequencia (1 para
+ *         impar), incluindo o 1 final, de modo que o bit de cada item fica na
+ *         posicao do proprio item. Os valores sao reconstruidos sob demanda
+ *         aplicando n/2 ou 3n + 1 conforme o bit de cada item, de modo que uma
+ *         sequencia de 500 itens ocupa cerca de 80 bytes em vez de 500 objetos
+ *         Long.
+ *
+ *         Formato serializado (little-endian): numero inicial (long),
+ *         quantidade de itens (int), bits de paridade em bytes, do bit menos
+ *         significativo para o mais significativo; os bits que completam o
+ *         ultimo byte sao sempre 0.
+ */
+public class CollatzSequenciaCompacta {
+
+	private static final int TAMANHO_CABECALHO = 12;
+
+	private final long numeroInicial;
+	private final int tamanho;
+	private final long[] paridades;
+
+	private CollatzSequenciaCompacta(long numeroInicial, int tamanho,
+			long[] paridades) {
+		this.numeroInicial = numeroInicial;
+		this.tamanho = tamanho;
+		this.paridades = paridades;
+	}
+
+	/**
+	 * Percorre a sequencia de numeroInicial uma unica vez guardando apenas as
+	 * paridades.
+	 *
+	 * @param numeroInicial
+	 *            - Numero aonde será aplicada a função
+	 * @return CollatzSequenciaCompacta - Sequencia codificada
+	 */
+	public static CollatzSequenciaCompacta codifica(long numeroInicial) {
+		if (numeroInicial < 1)
+			throw new CollatzErro("NumeroInicialInvalido: NumeroInicial=%s",
+					numeroInicial);
+		long[] paridades = new long[8];
+		int tamanho = 0;
+		final PrimitiveIterator.OfLong sequencia = Collatz
+				.iteradorSequencia(numeroInicial);
+		while (sequencia.hasNext()) {
+			final long valor = sequencia.nextLong();
+			if ((tamanho >>> 6) == paridades.length) {
+				paridades = Arrays.copyOf(paridades, paridades.length * 2);
+			}
+			paridades[tamanho >>> 6] |= (valor & 1) << tamanho;
+			tamanho++;
+		}
+		return new CollatzSequenciaCompacta(numeroInicial, tamanho,
+				Arrays.copyOf(paridades, (tamanho + 63) >>> 6));
+	}
+
+	/**
+	 * Reconstroi uma sequencia serializada por {@link #paraBytes()},
+	 * verificando que cada bit corresponde a paridade do valor reconstruido,
+	 * que o ultimo item e o 1, que nenhum passo impar excede um inteiro longo,
+	 * como em {@link #codifica(long)}, e que os bits que completam o ultimo byte sao 0,
+	 * para que cada sequencia tenha uma unica forma serializada.
+	 *
+	 * @param bytes
+	 *            - Sequencia serializada
+	 * @return CollatzSequenciaCompacta - Sequencia codificada
+	 */
+	public static CollatzSequenciaCompacta deBytes(byte[] bytes) {
+		if (bytes == null)
+			throw new CollatzErro("ParametroObrigatorio: bytes");
+		if (bytes.length < TAMANHO_CABECALHO)
+			throw new CollatzErro("SequenciaCompactaInvalida: Bytes=%s",
+					bytes.length);
+		final ByteBuffer conteudo = ByteBuffer.wrap(bytes).order(
+				ByteOrder.LITTLE_ENDIAN);
+		final long numeroInicial = conteudo.getLong();
+		final int tamanho = conteudo.getInt();
+		if (numeroInicial < 1 || tamanho < 1
+				|| bytes.length != TAMANHO_CABECALHO + (tamanho + 7) / 8)
+			throw new CollatzErro(
+					"SequenciaCompactaInvalida: NumeroInicial=%s Tamanho=%s Bytes=%s",
+					numeroInicial, tamanho, bytes.length);
+		final long[] paridades = new long[(tamanho + 63) >>> 6];
+		for (int i = 0; i < tamanho; i += 8) {
+			paridades[i >>> 6] |= (conteudo.get() & 0xFFL) << (i & 63);
+		}
+		if ((tamanho & 63) != 0
+				&& paridades[paridades.length - 1] >>> (tamanho & 63) != 0)
+			throw new CollatzErro(
+					"SequenciaCompactaInvalida: NumeroInicial=%s Tamanho=%s BitsComplementoNaoNulos",
+					numeroInicial, tamanho);
+		final CollatzSequenciaCompacta sequencia = new CollatzSequenciaCompacta(
+				numeroInicial, tamanho, paridades);
+		sequencia.valida();
+		return sequencia;
+	}
+
+	private void valida() {
+		long valor = numeroInicial;
+		for (int i = 0; i < tamanho; i++) {
+			if (isImpar(i) != ((valor & 1) == 1) || (valor == 1) != (i == tamanho - 1)
+					|| (isImpar(i) && valor > Collatz.LIMITE_PASSO_IMPAR))
+				throw new CollatzErro(
+						"SequenciaCompactaInvalida: NumeroInicial=%s Posicao=%s Valor=%s",
+						numeroInicial, i, valor);
+			valor = proximo(valor, i);
+		}
+	}
+
+	public long getNumeroInicial() {
+		return numeroInicial;
+	}
+
+	/**
+	 * @return int - Quantidade de itens da sequencia, incluindo o numero
+	 *         inicial e o 1
+	 */
+	public int getTamanho() {
+		return tamanho;
+	}
+
+	/**
+	 * @return int - Quantidade de bytes da forma serializada
+	 */
+	public int getTamanhoEmBytes() {
+		return TAMANHO_CABECALHO + (tamanho + 7) / 8;
+	}
+
+	/**
+	 * @return true se o item da posicao informada e impar
+	 */
+	public boolean isImpar(int posicao) {
+		return (paridades[posicao >>> 6] >>> posicao & 1) == 1;
+	}
+
+	private long proximo(long valor, int posicao) {
+		return isImpar(posicao) ? 3 * valor + 1 : valor >>> 1;
+	}
+
+	/**
+	 * Reconstroi o item da posicao informada a partir do numero inicial.
+	 *
+	 * @param posicao
+	 *            - Posicao do item, a partir de 0
+	 * @return long - Valor do item
+	 */
+	public long valor(int posicao) {
+		if (posicao < 0 || posicao >= tamanho)
+			throw new CollatzErro("PosicaoInvalida: Posicao=%s Tamanho=%s",
+					posicao, tamanho);
+		long valor = numeroInicial;
+		for (int i = 0; i < posicao; i++) {
+			valor = proximo(valor, i);
+		}
+		return valor;
+	}
+
+	/**
+	 * @return PrimitiveIterator.OfLong - Itens da sequencia, reconstruidos um a
+	 *         um
+	 */
+	public PrimitiveIterator.OfLong iterador() {
+		return new PrimitiveIterator.OfLong() {
+			private int posicao;
+			private long valor = numeroInicial;
+
+			@Override
+			public boolean hasNext() {
+				return posicao < tamanho;
+			}
+
+			@Override
+			public long nextLong() {
+				if (posicao >= tamanho)
+					throw new NoSuchElementException();
+				final long atual = valor;
+				if (posicao < tamanho - 1) {
+					valor = proximo(valor, posicao);
+				}
+				posicao++;
+				return atual;
+			}
+		};
+	}
+
+	/**
+	 * @return LongStream - Itens da sequencia, reconstruidos sob demanda
+	 */
+	public LongStream sequencia() {
+		return StreamSupport.longStream(Spliterators.spliterator(iterador(),
+				tamanho, Spliterator.ORDERED | Spliterator.IMMUTABLE
+						| Spliterator.NONNULL), false);
+	}
+
+	/**
+	 * @return List - Itens da sequencia em uma lista, para quem precisa da
+	 *         forma expandida
+	 */
+	public List<Long> paraLista() {
+		final List<Long> lista = new ArrayList<>(tamanho);
+		final PrimitiveIterator.OfLong itens = iterador();
+		while (itens.hasNext()) {
+			lista.add(itens.nextLong());
+		}
+		return lista;
+	}
+
+	/**
+	 * @return String - Itens da sequencia no formato de
+	 *         {@link List#toString()}, sem construir a lista
+	 */
+	public String formata() {
+		final StringBuilder texto = new StringBuilder("[");
+		final PrimitiveIterator.OfLong itens = iterador();
+		while (itens.hasNext()) {
+			texto.append(itens.nextLong());
+			if (itens.hasNext()) {
+				texto.append(", ");
+			}
+		}
+		return texto.append(']').toString();
+	}
+
+	/**
+	 * @return byte[] - Forma serializada, veja {@link #deBytes(byte[])}
+	 */
+	public byte[] paraBytes() {
+		final ByteBuffer conteudo = ByteBuffer.allocate(getTamanhoEmBytes())
+				.order(ByteOrder.LITTLE_ENDIAN);
+		conteudo.putLong(numeroInicial).putInt(tamanho);
+		for (int i = 0; i < tamanho; i += 8) {
+			conteudo.put((byte) (paridades[i >>> 6] >>> (i & 63)));
+		}
+		return conteudo.array();
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(numeroInicial) * 31 + tamanho;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null || getClass() != obj.getClass())
+			return false;
+		final CollatzSequenciaCompacta other = (CollatzSequenciaCompacta) obj;
+		return numeroInicial == other.numeroInicial
+				&& tamanho == other.tamanho
+				&& Arrays.equals(paridades, other.paridades);
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"CollatzSequenciaCompacta [numeroInicial=%s, tamanho=%s]",
+				numeroInicial, tamanho);
+	}
+
+}
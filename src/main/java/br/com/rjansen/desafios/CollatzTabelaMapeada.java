@@ -0,0 +1,291 @@
+package br.com.rjansen.desafios;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+import br.com.rjansen.desafios.CollatzIntervalo.ResultadoIntervalo;
+import br.com.rjansen.desafios.CollatzIntervalo.TabelaTamanhos;
+
+/**
+ * @author raphaeljansen
+ *
+ *         Tabela de tamanhos de sequencias de Collatz guardada em arquivo e
+ *         acessada via FileChannel.map. A tabela sobrevive entre execucoes:
+ *         uma varredura com limite maior reaproveita todas as entradas ja
+ *         calculadas e estende o arquivo no lugar.
+ *
+ *         Formato do arquivo (little-endian):
+ *
+ *         cabecalho de 64 bytes: magico (int), versao (int), limite concluido
+ *         (long), numero com a maior sequencia (long), tamanho da maior
+ *         sequencia (int)
+ *
+ *         entradas: um short por numero inicial, a partir do numero 0
+ *
+ *         Apenas um processo pode escrever na tabela por vez (trava exclusiva
+ *         no arquivo). Qualquer quantidade de processos pode abrir a tabela
+ *         somente para leitura ao mesmo tempo, sem trava: um leitor responde
+ *         apenas as entradas ate o limite concluido gravado no cabecalho no
+ *         momento da abertura, e trata as demais como desconhecidas.
+ */
+public class CollatzTabelaMapeada implements TabelaTamanhos, Closeable {
+
+	private static final int MAGICO = 0x5A544C43;
+	private static final int VERSAO = 1;
+	private static final int TAMANHO_CABECALHO = 64;
+	private static final int POSICAO_LIMITE_CONCLUIDO = 8;
+	private static final int POSICAO_NUMERO_MAIOR_SEQUENCIA = 16;
+	private static final int POSICAO_TAMANHO_MAIOR_SEQUENCIA = 24;
+
+	/**
+	 * Cada segmento mapeado cobre 1GB de entradas, um MappedByteBuffer e
+	 * limitado a 2GB.
+	 */
+	private static final int BITS_SEGMENTO = 30;
+	private static final long MASCARA_SEGMENTO = (1L << BITS_SEGMENTO) - 1;
+
+	private final RandomAccessFile arquivo;
+	private final FileChannel canal;
+	private final FileLock trava;
+	private final MappedByteBuffer cabecalho;
+	private final MappedByteBuffer[] segmentos;
+	private final long capacidade;
+	private final boolean somenteLeitura;
+
+	/**
+	 * Maior numero cuja entrada e confiavel: o limite concluido na abertura
+	 * para leitores, sem restricao para o escritor.
+	 */
+	private final long limiteLeitura;
+
+	private CollatzTabelaMapeada(RandomAccessFile arquivo, FileLock trava,
+			long tamanhoArquivo, boolean somenteLeitura) throws IOException {
+		this.arquivo = arquivo;
+		this.canal = arquivo.getChannel();
+		this.trava = trava;
+		this.somenteLeitura = somenteLeitura;
+		final MapMode modo = somenteLeitura ? MapMode.READ_ONLY
+				: MapMode.READ_WRITE;
+		this.cabecalho = canal.map(modo, 0, TAMANHO_CABECALHO);
+		this.cabecalho.order(ByteOrder.LITTLE_ENDIAN);
+		this.limiteLeitura = somenteLeitura ? cabecalho
+				.getLong(POSICAO_LIMITE_CONCLUIDO) : Long.MAX_VALUE;
+		final long tamanhoEntradas = tamanhoArquivo - TAMANHO_CABECALHO;
+		this.capacidade = tamanhoEntradas / 2;
+		this.segmentos = new MappedByteBuffer[(int) ((tamanhoEntradas + MASCARA_SEGMENTO) >>> BITS_SEGMENTO)];
+		for (int i = 0; i < segmentos.length; i++) {
+			final long inicio = (long) i << BITS_SEGMENTO;
+			final long tamanho = Math.min(1L << BITS_SEGMENTO, tamanhoEntradas
+					- inicio);
+			segmentos[i] = canal.map(modo, TAMANHO_CABECALHO + inicio,
+					tamanho);
+			segmentos[i].order(ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+
+	/**
+	 * Abre, ou cria, a tabela para leitura e escrita garantindo espaco para os
+	 * numeros ate limite. O arquivo existente e estendido no lugar, sem perder
+	 * as entradas ja calculadas.
+	 *
+	 * @param caminho
+	 *            - Arquivo da tabela
+	 * @param limite
+	 *            - Maior numero inicial que a tabela precisa guardar
+	 * @return CollatzTabelaMapeada - Tabela aberta com trava exclusiva
+	 */
+	public static CollatzTabelaMapeada abre(Path caminho, long limite) {
+		if (caminho == null)
+			throw new CollatzErro("ParametroObrigatorio: caminho");
+		if (limite < 1)
+			throw new CollatzErro("LimiteInvalido: Limite=%s", limite);
+		RandomAccessFile arquivo = null;
+		try {
+			arquivo = new RandomAccessFile(caminho.toFile(), "rw");
+			final FileLock trava = trava(arquivo, caminho);
+			final boolean nova = arquivo.length() == 0;
+			if (!nova) {
+				validaCabecalho(arquivo, caminho);
+			}
+			final long tamanhoNecessario = TAMANHO_CABECALHO + 2
+					* (Math.max(limite, 1) + 1);
+			if (arquivo.length() < tamanhoNecessario) {
+				arquivo.setLength(tamanhoNecessario);
+			}
+			final CollatzTabelaMapeada tabela = new CollatzTabelaMapeada(
+					arquivo, trava, arquivo.length(), false);
+			if (nova) {
+				tabela.cabecalho.putInt(0, MAGICO);
+				tabela.cabecalho.putInt(4, VERSAO);
+				tabela.registra(1, 1);
+				tabela.conclui(new ResultadoIntervalo(1, 1, 1));
+			}
+			return tabela;
+		} catch (IOException e) {
+			fecha(arquivo);
+			throw new CollatzErro("ErroAberturaTabela: Arquivo=[%s]", e,
+					caminho);
+		} catch (RuntimeException e) {
+			fecha(arquivo);
+			throw e;
+		}
+	}
+
+	/**
+	 * Abre uma tabela existente apenas para leitura. Varios processos podem
+	 * manter a mesma tabela aberta para leitura ao mesmo tempo.
+	 *
+	 * @param caminho
+	 *            - Arquivo da tabela
+	 * @return CollatzTabelaMapeada - Tabela que ignora novas entradas
+	 */
+	public static CollatzTabelaMapeada abreLeitura(Path caminho) {
+		if (caminho == null)
+			throw new CollatzErro("ParametroObrigatorio: caminho");
+		RandomAccessFile arquivo = null;
+		try {
+			arquivo = new RandomAccessFile(caminho.toFile(), "r");
+			validaCabecalho(arquivo, caminho);
+			return new CollatzTabelaMapeada(arquivo, null, arquivo.length(),
+					true);
+		} catch (IOException e) {
+			fecha(arquivo);
+			throw new CollatzErro("ErroAberturaTabela: Arquivo=[%s]", e,
+					caminho);
+		} catch (RuntimeException e) {
+			fecha(arquivo);
+			throw e;
+		}
+	}
+
+	private static FileLock trava(RandomAccessFile arquivo, Path caminho)
+			throws IOException {
+		FileLock trava;
+		try {
+			trava = arquivo.getChannel().tryLock();
+		} catch (OverlappingFileLockException e) {
+			trava = null;
+		}
+		if (trava == null)
+			throw new CollatzErro("TabelaEmUso: Arquivo=[%s]", caminho);
+		return trava;
+	}
+
+	private static void validaCabecalho(RandomAccessFile arquivo, Path caminho)
+			throws IOException {
+		if (arquivo.length() < TAMANHO_CABECALHO)
+			throw new CollatzErro("TabelaInvalida: Arquivo=[%s]", caminho);
+		arquivo.seek(0);
+		final int magico = Integer.reverseBytes(arquivo.readInt());
+		final int versao = Integer.reverseBytes(arquivo.readInt());
+		if (magico != MAGICO || versao != VERSAO)
+			throw new CollatzErro(
+					"TabelaInvalida: Arquivo=[%s] Magico=%x Versao=%s",
+					caminho, magico, versao);
+	}
+
+	private static void fecha(RandomAccessFile arquivo) {
+		if (arquivo != null) {
+			try {
+				arquivo.close();
+			} catch (IOException e) {
+				// o erro original e mais relevante
+			}
+		}
+	}
+
+	public boolean isSomenteLeitura() {
+		return somenteLeitura;
+	}
+
+	@Override
+	public long getCapacidade() {
+		return capacidade;
+	}
+
+	/**
+	 * @return int - Tamanho registrado para numero, ou 0 se desconhecido; um
+	 *         leitor responde 0 para numeros alem do limite concluido, cujas
+	 *         entradas o escritor ainda pode estar gravando
+	 */
+	@Override
+	public int tamanho(long numero) {
+		if (numero > limiteLeitura)
+			return 0;
+		final long posicao = numero << 1;
+		return segmentos[(int) (posicao >>> BITS_SEGMENTO)]
+				.getShort((int) (posicao & MASCARA_SEGMENTO));
+	}
+
+	@Override
+	public void registra(long numero, int tamanho) {
+		if (somenteLeitura)
+			return;
+		final long posicao = numero << 1;
+		segmentos[(int) (posicao >>> BITS_SEGMENTO)].putShort(
+				(int) (posicao & MASCARA_SEGMENTO), (short) tamanho);
+	}
+
+	@Override
+	public ResultadoIntervalo getResultadoConcluido() {
+		return new ResultadoIntervalo(
+				cabecalho.getLong(POSICAO_LIMITE_CONCLUIDO),
+				cabecalho.getLong(POSICAO_NUMERO_MAIOR_SEQUENCIA),
+				cabecalho.getInt(POSICAO_TAMANHO_MAIOR_SEQUENCIA));
+	}
+
+	/**
+	 * Grava o resultado no cabecalho depois de descarregar as entradas em
+	 * disco, para que um leitor nunca veja um limite concluido cujas entradas
+	 * ainda nao foram gravadas.
+	 */
+	@Override
+	public void conclui(ResultadoIntervalo resultado) {
+		if (somenteLeitura)
+			return;
+		for (final MappedByteBuffer segmento : segmentos) {
+			segmento.force();
+		}
+		cabecalho.putLong(POSICAO_NUMERO_MAIOR_SEQUENCIA,
+				resultado.getNumeroMaiorSequencia());
+		cabecalho.putInt(POSICAO_TAMANHO_MAIOR_SEQUENCIA,
+				resultado.getTamanhoMaiorSequencia());
+		cabecalho.putLong(POSICAO_LIMITE_CONCLUIDO, resultado.getLimite());
+		cabecalho.force();
+	}
+
+	@Override
+	public void close() {
+		try {
+			if (!somenteLeitura) {
+				for (final MappedByteBuffer segmento : segmentos) {
+					segmento.force();
+				}
+				cabecalho.force();
+			}
+			if (trava != null) {
+				trava.release();
+			}
+			arquivo.close();
+		} catch (IOException e) {
+			throw new CollatzErro(e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String
+				.format("CollatzTabelaMapeada [capacidade=%s, somenteLeitura=%s, concluido=%s]",
+						capacidade, somenteLeitura, getResultadoConcluido());
+	}
+
+}
@@ -0,0 +1,124 @@
+package br.com.rjansen.desafios;
+
+import static java.lang.System.err;
+import static java.lang.System.out;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+import br.com.rjansen.desafios.CollatzIntervalo.TabelaMemoria;
+import br.com.rjansen.desafios.CollatzRanking.ItemRanking;
+
+/**
+ * @author raphaeljansen
+ *
+ *         Processo trabalhador de uma varredura distribuida, veja
+ *         {@link CollatzCoordenador}. Conecta-se ao coordenador e avalia as
+ *         fatias recebidas ate receber FIM. A tabela de tamanhos e criada na
+ *         primeira mensagem e aproveitada por todas as fatias seguintes.
+ */
+public class CollatzTrabalhador {
+
+	private final int paralelismo;
+	private CollatzIntervalo intervalo;
+	private long quantidadeFatias;
+
+	/**
+	 * @param paralelismo
+	 *            - Quantidade de threads utilizadas em cada fatia
+	 */
+	public CollatzTrabalhador(int paralelismo) {
+		if (paralelismo < 1)
+			throw new CollatzErro("ParalelismoInvalido: Paralelismo=%s",
+					paralelismo);
+		this.paralelismo = paralelismo;
+	}
+
+	/**
+	 * @return long - Quantidade de fatias avaliadas por este trabalhador
+	 */
+	public long getQuantidadeFatias() {
+		return quantidadeFatias;
+	}
+
+	/**
+	 * Avalia as fatias enviadas pelo coordenador de conexao ate receber FIM.
+	 *
+	 * @param conexao
+	 *            - Conexao com o coordenador, fechada ao final
+	 */
+	public void trabalha(Socket conexao) throws IOException {
+		try (final Socket socket = conexao;
+				final BufferedReader entrada = new BufferedReader(
+						new InputStreamReader(socket.getInputStream(),
+								StandardCharsets.UTF_8));
+				final Writer saida = new BufferedWriter(new OutputStreamWriter(
+						socket.getOutputStream(), StandardCharsets.UTF_8))) {
+			int quantidade = 0;
+			String mensagem;
+			while ((mensagem = entrada.readLine()) != null) {
+				final String[] partes = mensagem.trim().split("\\s+");
+				if ("FIM".equals(partes[0])) {
+					return;
+				} else if ("VARREDURA".equals(partes[0]) && partes.length == 3) {
+					final long limite = Long.parseLong(partes[1]);
+					quantidade = Integer.parseInt(partes[2]);
+					intervalo = new CollatzIntervalo(limite,
+							TabelaMemoria.paraLimite(limite), new CollatzSaltos());
+				} else if ("FATIA".equals(partes[0]) && partes.length == 4
+						&& intervalo != null) {
+					final CollatzRanking ranking = intervalo.executaMaiores(
+							Long.parseLong(partes[2]),
+							Long.parseLong(partes[3]), quantidade, paralelismo);
+					final StringBuilder resposta = new StringBuilder(
+							"RESULTADO ").append(partes[1]);
+					for (final ItemRanking item : ranking.getMaioresSequencias()) {
+						resposta.append(' ').append(item);
+					}
+					saida.write(resposta.append('\n').toString());
+					saida.flush();
+					quantidadeFatias++;
+				} else {
+					throw new CollatzErro("MensagemInvalida: Mensagem=[%s]",
+							mensagem);
+				}
+			}
+			throw new CollatzErro("ConexaoEncerradaSemFim");
+		}
+	}
+
+	private static void printUsage() {
+		out.println("Use: java br.com.rjansen.desafios.CollatzTrabalhador <endereco_coordenador> <porta> [paralelismo]\n[paralelismo]=p, threads utilizadas por fatia (padrao: processadores disponiveis)");
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2 || args[0] == null || args[1] == null) {
+			printUsage();
+			return;
+		}
+		final int porta;
+		final int paralelismo;
+		try {
+			porta = Integer.parseInt(args[1].trim());
+			paralelismo = args.length < 3 || args[2] == null ? Runtime
+					.getRuntime().availableProcessors() : Integer
+					.parseInt(args[2].trim());
+		} catch (NumberFormatException e) {
+			printUsage();
+			return;
+		}
+		final CollatzTrabalhador trabalhador = new CollatzTrabalhador(
+				paralelismo);
+		trabalhador.trabalha(new Socket(args[0].trim(), porta));
+		err.printf("****** Trabalhador encerrado: Fatias=%s ******\n",
+				trabalhador.getQuantidadeFatias());
+	}
+
+}
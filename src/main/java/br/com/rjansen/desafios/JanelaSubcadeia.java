@@ -0,0 +1,194 @@
+package br.com.rjansen.desafios;
+
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.CalculoErro;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.ResultadoSomaMaxima;
+
+/**
+ * @author raphaeljansen
+ *
+ *         Subcadeia de maior soma entre os ultimos itens de um fluxo sem fim,
+ *         atualizada a cada item recebido. Os itens da janela ficam em um
+ *         vetor circular e a janela e uma fila feita de duas pilhas de
+ *         resumos (veja {@link ResumoSubcadeia}):
+ *
+ *         tras: os itens mais novos, resumidos por um unico
+ *         {@link ResumoSubcadeia} estendido a cada item;
+ *
+ *         frente: os itens mais antigos, cada um com o resumo do trecho que
+ *         vai dele ate o inicio de tras, guardado em vetores primitivos
+ *         paralelos ao vetor circular. Retirar o item mais antigo e apenas
+ *         avancar o inicio da janela.
+ *
+ *         Quando a frente esvazia, os itens de tras passam para a frente,
+ *         resumidos do mais novo para o mais antigo. Cada item passa uma unica
+ *         vez por essa transferencia, entao cada novo item custa O(1)
+ *         amortizado e a consulta combina apenas dois resumos. O resultado e
+ *         identico ao de {@link SubcadeiaSomaMaxima#calcula(long[])} sobre os
+ *         itens da janela, com as posicoes contadas desde o primeiro item do
+ *         fluxo.
+ */
+public class JanelaSubcadeia {
+
+	private final int tamanhoJanela;
+	private final long[] valores;
+	private final long[] total;
+	private final long[] somaPrefixo;
+	private final long[] fimPrefixo;
+	private final long[] somaSufixo;
+	private final long[] inicioSufixo;
+	private final long[] somaMelhor;
+	private final long[] inicioMelhor;
+	private final long[] fimMelhor;
+	private long inicioJanela;
+	private long inicioTras;
+	private ResumoSubcadeia tras;
+
+	/**
+	 * @param tamanhoJanela
+	 *            - Quantidade de itens mais recentes considerados
+	 */
+	public JanelaSubcadeia(int tamanhoJanela) {
+		if (tamanhoJanela < 1)
+			throw new CalculoErro("TamanhoJanelaInvalido: TamanhoJanela=%s",
+					tamanhoJanela);
+		this.tamanhoJanela = tamanhoJanela;
+		this.valores = new long[tamanhoJanela];
+		this.total = new long[tamanhoJanela];
+		this.somaPrefixo = new long[tamanhoJanela];
+		this.fimPrefixo = new long[tamanhoJanela];
+		this.somaSufixo = new long[tamanhoJanela];
+		this.inicioSufixo = new long[tamanhoJanela];
+		this.somaMelhor = new long[tamanhoJanela];
+		this.inicioMelhor = new long[tamanhoJanela];
+		this.fimMelhor = new long[tamanhoJanela];
+		this.tras = new ResumoSubcadeia(0);
+	}
+
+	public int getTamanhoJanela() {
+		return tamanhoJanela;
+	}
+
+	/**
+	 * @return long - Quantidade de itens recebidos desde o inicio do fluxo
+	 */
+	public long getQuantidade() {
+		return tras.getFim();
+	}
+
+	/**
+	 * @return long - Posicao do item mais antigo da janela
+	 */
+	public long getInicioJanela() {
+		return inicioJanela;
+	}
+
+	/**
+	 * Recebe o proximo item do fluxo, descartando o mais antigo quando a
+	 * janela esta cheia.
+	 *
+	 * @param valor
+	 *            - Valor do item
+	 */
+	public void adiciona(long valor) {
+		final long posicao = tras.getFim();
+		if (posicao - inicioJanela == tamanhoJanela) {
+			if (inicioJanela == inicioTras) {
+				transfere();
+			}
+			inicioJanela++;
+		}
+		valores[indice(posicao)] = valor;
+		tras.adiciona(valor);
+	}
+
+	/**
+	 * Passa os itens de tras para a frente, calculando para cada um, do mais
+	 * novo para o mais antigo, o resumo do trecho que vai dele ate o fim da
+	 * frente. Acrescentar um item a esquerda de um trecho so pode criar
+	 * subcadeias que comecam nele, e a melhor delas e o novo melhor prefixo.
+	 */
+	private void transfere() {
+		final long fim = tras.getFim();
+		long anterior = -1;
+		for (long posicao = fim - 1; posicao >= inicioTras; posicao--) {
+			final int i = indice(posicao);
+			final long valor = valores[i];
+			if (anterior < 0) {
+				total[i] = valor;
+				somaPrefixo[i] = valor;
+				fimPrefixo[i] = posicao;
+				somaSufixo[i] = valor;
+				inicioSufixo[i] = posicao;
+				somaMelhor[i] = Math.max(valor, 0);
+				inicioMelhor[i] = valor > 0 ? posicao : 0;
+				fimMelhor[i] = valor > 0 ? posicao : 0;
+			} else {
+				final int j = (int) anterior;
+				if (somaPrefixo[j] > 0) {
+					somaPrefixo[i] = valor + somaPrefixo[j];
+					fimPrefixo[i] = fimPrefixo[j];
+				} else {
+					somaPrefixo[i] = valor;
+					fimPrefixo[i] = posicao;
+				}
+				if (valor + total[j] >= somaSufixo[j]) {
+					somaSufixo[i] = valor + total[j];
+					inicioSufixo[i] = posicao;
+				} else {
+					somaSufixo[i] = somaSufixo[j];
+					inicioSufixo[i] = inicioSufixo[j];
+				}
+				if (somaPrefixo[i] > 0 && somaPrefixo[i] >= somaMelhor[j]) {
+					somaMelhor[i] = somaPrefixo[i];
+					inicioMelhor[i] = posicao;
+					fimMelhor[i] = fimPrefixo[i];
+				} else {
+					somaMelhor[i] = somaMelhor[j];
+					inicioMelhor[i] = inicioMelhor[j];
+					fimMelhor[i] = fimMelhor[j];
+				}
+				total[i] = valor + total[j];
+			}
+			anterior = i;
+		}
+		inicioTras = fim;
+		tras = new ResumoSubcadeia(fim);
+	}
+
+	private int indice(long posicao) {
+		return (int) (posicao % tamanhoJanela);
+	}
+
+	/**
+	 * Combina o resumo da frente inteira, guardado no item mais antigo, com o
+	 * resumo de tras, em O(1).
+	 *
+	 * @return ResultadoSomaMaxima - Melhor subcadeia entre os itens da janela,
+	 *         vazia com posicoes 0 quando nenhuma soma e positiva
+	 */
+	public ResultadoSomaMaxima getResultado() {
+		final ResultadoSomaMaxima resultadoTras = tras.getResultado();
+		if (inicioJanela == inicioTras)
+			return resultadoTras;
+		final int frente = indice(inicioJanela);
+		long melhor = somaMelhor[frente];
+		long inicio = inicioMelhor[frente];
+		long fim = fimMelhor[frente];
+		if (!tras.isVazio()) {
+			final long somaCruzada = somaSufixo[frente]
+					+ tras.getSomaPrefixo();
+			if (somaCruzada > melhor
+					|| (somaCruzada == melhor && somaCruzada > 0 && inicioSufixo[frente] < inicio)) {
+				melhor = somaCruzada;
+				inicio = inicioSufixo[frente];
+				fim = tras.getFimPrefixo();
+			}
+			if (resultadoTras.getSoma() > melhor) {
+				return resultadoTras;
+			}
+		}
+		return melhor > 0 ? new ResultadoSomaMaxima(melhor, inicio, fim)
+				: new ResultadoSomaMaxima(0, 0, 0);
+	}
+
+}
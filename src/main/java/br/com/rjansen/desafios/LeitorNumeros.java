@@ -0,0 +1,162 @@
+package br.com.rjansen.desafios;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.CalculoErro;
+
+/**
+ * @author raphaeljansen
+ *
+ *         Le numeros inteiros de um fluxo de bytes em texto decimal, um por
+ *         vez, sem criar Strings nem guardar os numeros ja lidos. Os numeros
+ *         podem ser separados por virgulas, ponto e virgula, espacos,
+ *         tabulacoes ou quebras de linha, em qualquer combinacao; qualquer
+ *         outro caractere e um erro.
+ */
+public class LeitorNumeros implements Closeable {
+
+	/**
+	 * Retorno de {@link #acumulaDigito(long, int)} quando o numero nao cabe em
+	 * um inteiro longo; um acumulado valido nunca e positivo.
+	 */
+	static final long ESTOURO = 1;
+
+	private static final int TAMANHO_BUFFER = 1 << 16;
+
+	private final InputStream entrada;
+	private final byte[] buffer;
+	private int posicao;
+	private int limite;
+	private long valor;
+	private long quantidade;
+	private long linhaAtual;
+	private long linha;
+
+	/**
+	 * @param entrada
+	 *            - Fluxo de onde os numeros serao lidos, fechado por
+	 *            {@link #close()}
+	 */
+	public LeitorNumeros(InputStream entrada) {
+		if (entrada == null)
+			throw new CalculoErro("ParametroObrigatorio: entrada");
+		this.entrada = entrada;
+		this.buffer = new byte[TAMANHO_BUFFER];
+	}
+
+	/**
+	 * @return long - Ultimo numero lido por {@link #avanca()}
+	 */
+	public long getValor() {
+		return valor;
+	}
+
+	/**
+	 * @return long - Quantidade de numeros lidos ate o momento
+	 */
+	public long getQuantidade() {
+		return quantidade;
+	}
+
+	/**
+	 * @return long - Linha, a partir de 0, em que esta o ultimo numero lido
+	 */
+	public long getLinha() {
+		return linha;
+	}
+
+	private int proximoByte() throws IOException {
+		if (posicao == limite) {
+			limite = entrada.read(buffer, 0, buffer.length);
+			posicao = 0;
+			if (limite <= 0) {
+				limite = 0;
+				return -1;
+			}
+		}
+		return buffer[posicao++] & 0xFF;
+	}
+
+	/**
+	 * Separadores aceitos entre os numeros, tambem utilizados por
+	 * {@link LoteSubcadeias}.
+	 */
+	static boolean isSeparador(int caractere) {
+		return caractere == ',' || caractere == ' ' || caractere == '\n'
+				|| caractere == '\r' || caractere == '\t' || caractere == ';';
+	}
+
+	/**
+	 * Le o proximo numero do fluxo.
+	 *
+	 * @return true se um numero foi lido, disponivel em {@link #getValor()};
+	 *         false ao final do fluxo
+	 */
+	public boolean avanca() throws IOException {
+		int caractere = proximoByte();
+		while (isSeparador(caractere)) {
+			if (caractere == '\n') {
+				linhaAtual++;
+			}
+			caractere = proximoByte();
+		}
+		if (caractere == -1)
+			return false;
+		final boolean negativo = caractere == '-';
+		if (negativo || caractere == '+') {
+			caractere = proximoByte();
+		}
+		if (caractere < '0' || caractere > '9')
+			throw itemInvalido();
+		long acumulado = 0;
+		do {
+			acumulado = acumulaDigito(acumulado, caractere);
+			if (acumulado == ESTOURO)
+				throw itemInvalido();
+			caractere = proximoByte();
+		} while (caractere >= '0' && caractere <= '9');
+		if (caractere != -1 && !isSeparador(caractere)
+				|| (!negativo && acumulado == Long.MIN_VALUE))
+			throw itemInvalido();
+		valor = negativo ? acumulado : -acumulado;
+		linha = linhaAtual;
+		quantidade++;
+		if (caractere == '\n') {
+			linhaAtual++;
+		}
+		return true;
+	}
+
+	/**
+	 * Acrescenta um digito decimal a um numero acumulado em negativo, o que
+	 * permite chegar a Long.MIN_VALUE; o sinal e aplicado ao final. Tambem
+	 * utilizado por {@link LoteSubcadeias}.
+	 *
+	 * @param acumulado
+	 *            - Numero lido ate aqui, negativo ou 0
+	 * @param caractere
+	 *            - Digito entre '0' e '9'
+	 * @return long - Novo acumulado, ou {@link #ESTOURO} se o numero nao cabe
+	 *         em um inteiro longo
+	 */
+	static long acumulaDigito(long acumulado, int caractere) {
+		final int digito = caractere - '0';
+		if (acumulado < Long.MIN_VALUE / 10
+				|| acumulado * 10 < Long.MIN_VALUE + digito)
+			return ESTOURO;
+		return acumulado * 10 - digito;
+	}
+
+	private CalculoErro itemInvalido() {
+		return new CalculoErro("ItemInvalido: Linha=%s Item=%s",
+				linhaAtual + 1, quantidade + 1);
+	}
+
+	@Override
+	public void close() throws IOException {
+		entrada.close();
+	}
+
+}
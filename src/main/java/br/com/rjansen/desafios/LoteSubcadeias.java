@@ -0,0 +1,294 @@
+package br.com.rjansen.desafios;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.CalculoErro;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.ResultadoSomaMaxima;
+
+/**
+ * @author raphaeljansen
+ *
+ *         Calcula a subcadeia de soma maxima de muitas cadeias em uma unica
+ *         execucao. Cada linha de entrada e uma cadeia, com os numeros
+ *         separados como em {@link LeitorNumeros}, e gera uma linha de
+ *         resposta, na mesma ordem:
+ *
+ *         "soma posicaoInicial posicaoFinal", o mesmo resultado de
+ *         {@link SubcadeiaSomaMaxima#calcula(long[])}; uma linha vazia e uma
+ *         cadeia vazia e responde "0 0 0"
+ *
+ *         Uma cadeia invalida responde "ERRO" seguido do motivo, sem
+ *         interromper o lote.
+ *
+ *         A entrada e lida em blocos de linhas inteiras, calculados por um
+ *         pool de threads de tamanho fixo. Apenas {@value #BLOCOS_POR_THREAD}
+ *         blocos por thread existem: quando todos estao em uso a leitura
+ *         espera o bloco mais antigo terminar, escreve as suas respostas e o
+ *         reaproveita, o que mantem a ordem da saida e limita a memoria
+ *         utilizada, qualquer que seja a quantidade de linhas. Cada bloco
+ *         guarda os bytes lidos e as respostas em vetores proprios, sem criar
+ *         Strings nem vetores por linha.
+ */
+public class LoteSubcadeias {
+
+	/**
+	 * Tamanho inicial, em bytes, da entrada e da saida de um bloco. Um bloco
+	 * cresce apenas se uma unica linha nao couber nele.
+	 */
+	private static final int TAMANHO_BLOCO = 1 << 16;
+
+	private static final int BLOCOS_POR_THREAD = 2;
+
+	private LoteSubcadeias() {
+	}
+
+	/**
+	 * Responde todas as cadeias de entrada, uma por linha, escrevendo as
+	 * respostas em saida na ordem das cadeias. Os fluxos nao sao fechados.
+	 *
+	 * @param entrada
+	 *            - Cadeias em texto decimal, uma por linha
+	 * @param saida
+	 *            - Destino das respostas
+	 * @param paralelismo
+	 *            - Quantidade de threads utilizadas
+	 * @return long - Quantidade de cadeias respondidas
+	 */
+	public static long processa(InputStream entrada, OutputStream saida,
+			int paralelismo) throws IOException {
+		if (entrada == null)
+			throw new CalculoErro("ParametroObrigatorio: entrada");
+		if (saida == null)
+			throw new CalculoErro("ParametroObrigatorio: saida");
+		if (paralelismo < 1)
+			throw new CalculoErro("ParalelismoInvalido: Paralelismo=%s",
+					paralelismo);
+		final ArrayDeque<Bloco> livres = new ArrayDeque<>();
+		for (int i = 0; i < BLOCOS_POR_THREAD * paralelismo; i++) {
+			livres.add(new Bloco());
+		}
+		final ArrayDeque<Future<Bloco>> pendentes = new ArrayDeque<>();
+		final ExecutorService pool = Executors.newFixedThreadPool(paralelismo);
+		byte[] resto = new byte[TAMANHO_BLOCO];
+		int tamanhoResto = 0;
+		long linhas = 0;
+		try {
+			boolean fimEntrada = false;
+			while (!fimEntrada) {
+				if (livres.isEmpty()) {
+					linhas += escreve(pendentes.poll(), saida, livres);
+				}
+				final Bloco bloco = livres.poll();
+				bloco.inicia(resto, tamanhoResto);
+				fimEntrada = bloco.le(entrada);
+				tamanhoResto = bloco.tamanho - bloco.limite;
+				if (tamanhoResto > resto.length) {
+					resto = new byte[tamanhoResto];
+				}
+				System.arraycopy(bloco.dados, bloco.limite, resto, 0,
+						tamanhoResto);
+				if (bloco.limite == 0) {
+					livres.add(bloco);
+				} else {
+					pendentes.add(pool.submit(bloco));
+				}
+			}
+			while (!pendentes.isEmpty()) {
+				linhas += escreve(pendentes.poll(), saida, livres);
+			}
+			saida.flush();
+			return linhas;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Espera o bloco terminar, escreve as suas respostas e o devolve aos
+	 * blocos livres.
+	 *
+	 * @return int - Quantidade de cadeias do bloco
+	 */
+	private static int escreve(Future<Bloco> pendente, OutputStream saida,
+			ArrayDeque<Bloco> livres) throws IOException {
+		final Bloco bloco;
+		try {
+			bloco = pendente.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CalculoErro("ProcessamentoInterrompido", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new CalculoErro(e.getCause());
+		}
+		saida.write(bloco.saida, 0, bloco.tamanhoSaida);
+		livres.add(bloco);
+		return bloco.linhas;
+	}
+
+	/**
+	 * @author raphaeljansen
+	 *
+	 *         Trecho da entrada com linhas inteiras, [0, limite) de dados, e as
+	 *         respostas dessas linhas. Os bytes apos o limite sao o inicio de
+	 *         uma linha que continua no proximo bloco.
+	 */
+	private static class Bloco implements Callable<Bloco> {
+		private byte[] dados = new byte[TAMANHO_BLOCO];
+		private int tamanho;
+		private int limite;
+		private byte[] saida = new byte[TAMANHO_BLOCO];
+		private int tamanhoSaida;
+		private int linhas;
+
+		/**
+		 * Reinicia o bloco a partir do final da linha que ficou incompleta no
+		 * bloco anterior.
+		 */
+		public void inicia(byte[] resto, int tamanhoResto) {
+			if (tamanhoResto > dados.length) {
+				dados = new byte[Integer.highestOneBit(tamanhoResto) << 1];
+			}
+			System.arraycopy(resto, 0, dados, 0, tamanhoResto);
+			tamanho = tamanhoResto;
+			limite = 0;
+		}
+
+		/**
+		 * Completa o bloco com bytes de entrada e define o limite apos a
+		 * ultima quebra de linha. Se nenhuma linha termina no bloco ele e
+		 * dobrado, ate que uma termine ou o fluxo acabe.
+		 *
+		 * @return true se o fluxo acabou, caso em que todos os bytes do bloco
+		 *         estao dentro do limite
+		 */
+		public boolean le(InputStream entrada) throws IOException {
+			while (true) {
+				while (tamanho < dados.length) {
+					final int lidos = entrada.read(dados, tamanho, dados.length
+							- tamanho);
+					if (lidos < 0) {
+						limite = tamanho;
+						return true;
+					}
+					tamanho += lidos;
+				}
+				for (int i = tamanho - 1; i >= 0; i--) {
+					if (dados[i] == '\n') {
+						limite = i + 1;
+						return false;
+					}
+				}
+				if (dados.length > Integer.MAX_VALUE / 2)
+					throw new CalculoErro("LinhaMuitoGrande: Tamanho=%s",
+							tamanho);
+				dados = Arrays.copyOf(dados, 2 * dados.length);
+			}
+		}
+
+		@Override
+		public Bloco call() {
+			tamanhoSaida = 0;
+			linhas = 0;
+			int posicao = 0;
+			while (posicao < limite) {
+				posicao = respondeLinha(posicao);
+				linhas++;
+			}
+			return this;
+		}
+
+		/**
+		 * Resume a cadeia que comeca em posicao enquanto os numeros sao lidos,
+		 * com o mesmo {@link ResumoSubcadeia} de
+		 * {@link SubcadeiaSomaMaxima#calcula(long[])}, e escreve a resposta.
+		 *
+		 * @return int - Posicao seguinte ao final da linha
+		 */
+		private int respondeLinha(int posicao) {
+			final ResumoSubcadeia resumo = new ResumoSubcadeia(0);
+			int caractere = proximoByte(posicao);
+			while (caractere != -1 && caractere != '\n') {
+				if (LeitorNumeros.isSeparador(caractere)) {
+					caractere = proximoByte(++posicao);
+					continue;
+				}
+				final boolean negativo = caractere == '-';
+				if (negativo || caractere == '+') {
+					caractere = proximoByte(++posicao);
+				}
+				if (caractere < '0' || caractere > '9')
+					return respondeErro(posicao, resumo.getFim());
+				long acumulado = 0;
+				do {
+					acumulado = LeitorNumeros.acumulaDigito(acumulado,
+							caractere);
+					if (acumulado == LeitorNumeros.ESTOURO)
+						return respondeErro(posicao, resumo.getFim());
+					caractere = proximoByte(++posicao);
+				} while (caractere >= '0' && caractere <= '9');
+				if (caractere != -1 && !LeitorNumeros.isSeparador(caractere)
+						|| (!negativo && acumulado == Long.MIN_VALUE))
+					return respondeErro(posicao, resumo.getFim());
+				resumo.adiciona(negativo ? acumulado : -acumulado);
+			}
+			final ResultadoSomaMaxima resultado = resumo.getResultado();
+			escreveNumero(resultado.getSoma());
+			escreveByte(' ');
+			escreveNumero(resultado.getPosicaoInicial());
+			escreveByte(' ');
+			escreveNumero(resultado.getPosicaoFinal());
+			escreveByte('\n');
+			return posicao + 1;
+		}
+
+		private int proximoByte(int posicao) {
+			return posicao < limite ? dados[posicao] & 0xFF : -1;
+		}
+
+		/**
+		 * Escreve a resposta de erro e descarta o restante da linha.
+		 */
+		private int respondeErro(int posicao, long item) {
+			final byte[] mensagem = String.format(
+					"ERRO ItemInvalido: Item=%s\n", item + 1).getBytes(
+					StandardCharsets.US_ASCII);
+			for (byte caractere : mensagem) {
+				escreveByte(caractere);
+			}
+			while (posicao < limite && dados[posicao] != '\n') {
+				posicao++;
+			}
+			return posicao + 1;
+		}
+
+		/**
+		 * Escreve um numero nao negativo em decimal.
+		 */
+		private void escreveNumero(long numero) {
+			if (numero >= 10) {
+				escreveNumero(numero / 10);
+			}
+			escreveByte('0' + (int) (numero % 10));
+		}
+
+		private void escreveByte(int caractere) {
+			if (tamanhoSaida == saida.length) {
+				saida = Arrays.copyOf(saida, 2 * saida.length);
+			}
+			saida[tamanhoSaida++] = (byte) caractere;
+		}
+	}
+
+}
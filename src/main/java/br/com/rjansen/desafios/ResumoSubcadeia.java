@@ -0,0 +1,284 @@
+package br.com.rjansen.desafios;
+
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.CalculoErro;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.ResultadoSomaMaxima;
+
+/**
+ * @author raphaeljansen
+ *
+ *         Resumo de um trecho contiguo [inicio, fim) de uma cadeia, suficiente
+ *         para combinar trechos vizinhos sem revisitar os itens: a soma total,
+ *         o melhor prefixo, o melhor sufixo e a melhor subcadeia interna, cada
+ *         um com suas posicoes. A combinacao e associativa, entao uma cadeia
+ *         pode ser dividida em blocos resumidos em qualquer ordem e por
+ *         qualquer thread, e o resultado final e identico ao de
+ *         {@link SubcadeiaSomaMaxima#calcula(long[])}, inclusive nos
+ *         desempates.
+ *
+ *         Prefixo e sufixo nunca sao vazios; em empates o prefixo fica com o
+ *         menor fim e o sufixo com o menor inicio. A melhor subcadeia so e
+ *         registrada com soma positiva (soma 0 significa subcadeia vazia).
+ */
+public class ResumoSubcadeia {
+
+	/**
+	 * Resume o trecho [inicio, fim) de uma fonte de itens, veja
+	 * {@link SubcadeiaSomaMaxima#resumeParalelo(long, int, ResumidorBloco)}.
+	 */
+	public interface ResumidorBloco {
+		ResumoSubcadeia resume(long inicio, long fim);
+	}
+
+	/**
+	 * Quantidade de itens de 32 bits convertidos de cada vez por
+	 * {@link #adiciona(int[], int, int)}.
+	 */
+	private static final int TAMANHO_CONVERSAO = 1 << 12;
+
+	/**
+	 * Area de conversao de {@link #adiciona(int[], int, int)}, uma por thread,
+	 * reaproveitada entre as chamadas para que resumir muitos blocos pequenos
+	 * nao aloque memoria.
+	 */
+	private static final ThreadLocal<long[]> CONVERSOES = ThreadLocal
+			.withInitial(() -> new long[TAMANHO_CONVERSAO]);
+
+	private final long inicio;
+	private long fim;
+	private long total;
+	private long somaPrefixo;
+	private long fimPrefixo;
+	private long somaSufixo;
+	private long inicioSufixo;
+	private long somaMelhor;
+	private long inicioMelhor;
+	private long fimMelhor;
+
+	/**
+	 * @param inicio
+	 *            - Posicao na cadeia do primeiro item a ser adicionado
+	 */
+	public ResumoSubcadeia(long inicio) {
+		if (inicio < 0)
+			throw new CalculoErro("PosicaoInvalida: Inicio=%s", inicio);
+		this.inicio = inicio;
+		this.fim = inicio;
+	}
+
+	public long getInicio() {
+		return inicio;
+	}
+
+	/**
+	 * @return long - Posicao seguinte ao ultimo item resumido
+	 */
+	public long getFim() {
+		return fim;
+	}
+
+	public boolean isVazio() {
+		return fim == inicio;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public long getSomaPrefixo() {
+		return somaPrefixo;
+	}
+
+	public long getFimPrefixo() {
+		return fimPrefixo;
+	}
+
+	public long getSomaSufixo() {
+		return somaSufixo;
+	}
+
+	public long getInicioSufixo() {
+		return inicioSufixo;
+	}
+
+	/**
+	 * Acrescenta ao final do trecho o item da posicao {@link #getFim()}. O
+	 * sufixo e a soma corrente do algoritmo de Kadane: so recomeca quando fica
+	 * negativo.
+	 *
+	 * @param valor
+	 *            - Valor do item
+	 * @return ResumoSubcadeia - Este resumo, estendido
+	 */
+	public ResumoSubcadeia adiciona(long valor) {
+		if (fim == inicio) {
+			total = valor;
+			somaPrefixo = valor;
+			fimPrefixo = fim;
+			somaSufixo = valor;
+			inicioSufixo = fim;
+		} else {
+			total += valor;
+			if (total > somaPrefixo) {
+				somaPrefixo = total;
+				fimPrefixo = fim;
+			}
+			if (somaSufixo < 0) {
+				somaSufixo = valor;
+				inicioSufixo = fim;
+			} else {
+				somaSufixo += valor;
+			}
+		}
+		if (somaSufixo > somaMelhor) {
+			somaMelhor = somaSufixo;
+			inicioMelhor = inicioSufixo;
+			fimMelhor = fim;
+		}
+		fim++;
+		return this;
+	}
+
+	/**
+	 * Acrescenta os itens cadeia[de, ate), que devem ocupar as posicoes
+	 * seguintes do trecho. Os itens sao convertidos para 64 bits em grupos de
+	 * {@value #TAMANHO_CONVERSAO} e resumidos por
+	 * {@link #adiciona(long[], int, int)}, que tem o unico laco de resumo.
+	 *
+	 * @return ResumoSubcadeia - Este resumo, estendido
+	 */
+	public ResumoSubcadeia adiciona(int[] cadeia, int de, int ate) {
+		final long[] itens = CONVERSOES.get();
+		for (int grupo = de; grupo < ate; grupo += itens.length) {
+			final int quantidade = Math.min(itens.length, ate - grupo);
+			for (int i = 0; i < quantidade; i++) {
+				itens[i] = cadeia[grupo + i];
+			}
+			adiciona(itens, 0, quantidade);
+		}
+		return this;
+	}
+
+	/**
+	 * Acrescenta os itens cadeia[de, ate), que devem ocupar as posicoes
+	 * seguintes do trecho. Mesmo efeito de {@link #adiciona(long)} item a
+	 * item, com o estado em variaveis locais durante o laco.
+	 *
+	 * @return ResumoSubcadeia - Este resumo, estendido
+	 */
+	public ResumoSubcadeia adiciona(long[] cadeia, int de, int ate) {
+		if (de < ate && isVazio()) {
+			adiciona(cadeia[de++]);
+		}
+		long total = this.total, somaPrefixo = this.somaPrefixo, fimPrefixo = this.fimPrefixo;
+		long somaSufixo = this.somaSufixo, inicioSufixo = this.inicioSufixo;
+		long somaMelhor = this.somaMelhor, inicioMelhor = this.inicioMelhor, fimMelhor = this.fimMelhor;
+		long posicao = fim;
+		for (int i = de; i < ate; i++, posicao++) {
+			final long valor = cadeia[i];
+			total += valor;
+			if (total > somaPrefixo) {
+				somaPrefixo = total;
+				fimPrefixo = posicao;
+			}
+			if (somaSufixo < 0) {
+				somaSufixo = valor;
+				inicioSufixo = posicao;
+			} else {
+				somaSufixo += valor;
+			}
+			if (somaSufixo > somaMelhor) {
+				somaMelhor = somaSufixo;
+				inicioMelhor = inicioSufixo;
+				fimMelhor = posicao;
+			}
+		}
+		this.total = total;
+		this.somaPrefixo = somaPrefixo;
+		this.fimPrefixo = fimPrefixo;
+		this.somaSufixo = somaSufixo;
+		this.inicioSufixo = inicioSufixo;
+		this.somaMelhor = somaMelhor;
+		this.inicioMelhor = inicioMelhor;
+		this.fimMelhor = fimMelhor;
+		this.fim = posicao;
+		return this;
+	}
+
+	/**
+	 * Combina este resumo com o do trecho imediatamente seguinte. A melhor
+	 * subcadeia do trecho combinado esta inteira em um dos dois trechos ou e
+	 * a uniao do melhor sufixo deste com o melhor prefixo do posterior.
+	 *
+	 * @param posterior
+	 *            - Resumo do trecho que comeca em {@link #getFim()}
+	 * @return ResumoSubcadeia - Este resumo, agora cobrindo os dois trechos
+	 */
+	public ResumoSubcadeia combina(ResumoSubcadeia posterior) {
+		if (posterior.inicio != fim)
+			throw new CalculoErro(
+					"TrechosNaoAdjacentes: Fim=%s InicioPosterior=%s", fim,
+					posterior.inicio);
+		if (posterior.isVazio())
+			return this;
+		if (isVazio()) {
+			copia(posterior);
+			return this;
+		}
+		final long somaCruzada = somaSufixo + posterior.somaPrefixo;
+		if (somaCruzada > somaMelhor
+				|| (somaCruzada == somaMelhor && somaCruzada > 0 && inicioSufixo < inicioMelhor)) {
+			somaMelhor = somaCruzada;
+			inicioMelhor = inicioSufixo;
+			fimMelhor = posterior.fimPrefixo;
+		}
+		if (posterior.somaMelhor > somaMelhor) {
+			somaMelhor = posterior.somaMelhor;
+			inicioMelhor = posterior.inicioMelhor;
+			fimMelhor = posterior.fimMelhor;
+		}
+		if (total + posterior.somaPrefixo > somaPrefixo) {
+			somaPrefixo = total + posterior.somaPrefixo;
+			fimPrefixo = posterior.fimPrefixo;
+		}
+		if (somaSufixo + posterior.total < posterior.somaSufixo) {
+			somaSufixo = posterior.somaSufixo;
+			inicioSufixo = posterior.inicioSufixo;
+		} else {
+			somaSufixo += posterior.total;
+		}
+		total += posterior.total;
+		fim = posterior.fim;
+		return this;
+	}
+
+	private void copia(ResumoSubcadeia outro) {
+		fim = outro.fim;
+		total = outro.total;
+		somaPrefixo = outro.somaPrefixo;
+		fimPrefixo = outro.fimPrefixo;
+		somaSufixo = outro.somaSufixo;
+		inicioSufixo = outro.inicioSufixo;
+		somaMelhor = outro.somaMelhor;
+		inicioMelhor = outro.inicioMelhor;
+		fimMelhor = outro.fimMelhor;
+	}
+
+	/**
+	 * @return ResultadoSomaMaxima - Melhor subcadeia do trecho, vazia com
+	 *         posicoes 0 quando nenhuma soma e positiva
+	 */
+	public ResultadoSomaMaxima getResultado() {
+		return somaMelhor > 0 ? new ResultadoSomaMaxima(somaMelhor,
+				inicioMelhor, fimMelhor) : new ResultadoSomaMaxima(0, 0, 0);
+	}
+
+	@Override
+	public String toString() {
+		return String
+				.format("ResumoSubcadeia [inicio=%s, fim=%s, total=%s, somaPrefixo=%s, fimPrefixo=%s, somaSufixo=%s, inicioSufixo=%s, somaMelhor=%s, inicioMelhor=%s, fimMelhor=%s]",
+						inicio, fim, total, somaPrefixo, fimPrefixo,
+						somaSufixo, inicioSufixo, somaMelhor, inicioMelhor,
+						fimMelhor);
+	}
+
+}
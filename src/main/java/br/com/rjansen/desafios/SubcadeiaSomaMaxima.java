@@ -1,11 +1,24 @@
 package br.com.rjansen.desafios;
 
 import static java.lang.System.currentTimeMillis;
+import static java.lang.System.err;
+import static java.lang.System.in;
 import static java.lang.System.out;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import br.com.rjansen.desafios.CadeiaMapeada.FormatoBinario;
+import br.com.rjansen.desafios.ResumoSubcadeia.ResumidorBloco;
+import br.com.rjansen.desafios.SubmatrizSomaMaxima.ResultadoSubmatriz;
 
 /**
  * @author raphaeljansen
@@ -26,6 +39,47 @@ import java.util.List;
  */
 public class SubcadeiaSomaMaxima {
 
+	/**
+	 * Quantidade de itens resumidos por uma mesma tarefa no calculo paralelo.
+	 */
+	private static final long TAMANHO_BLOCO = 1 << 16;
+
+	/**
+	 * @author raphaeljansen
+	 *
+	 *         Forma de entrada da cadeia: cadeia, a propria cadeia informada
+	 *         na linha de comando; fluxo, numeros lidos de um arquivo ou da
+	 *         entrada padrao sem guardar a cadeia em memoria; int32 e int64,
+	 *         arquivo binario mapeado em memoria, veja {@link CadeiaMapeada};
+	 *         matriz, matriz lida de um arquivo ou da entrada padrao, veja
+	 *         {@link SubmatrizSomaMaxima}; lote, uma cadeia por linha de um
+	 *         arquivo ou da entrada padrao, veja {@link LoteSubcadeias}
+	 */
+	public enum ModoExecucao {
+		CADEIA("cadeia"), FLUXO("fluxo"), INT32("int32"), INT64("int64"), MATRIZ(
+				"matriz"), LOTE("lote");
+
+		private final String apelido;
+
+		private ModoExecucao(String apelido) {
+			this.apelido = apelido;
+		}
+
+		public String getApelido() {
+			return apelido;
+		}
+
+		public static ModoExecucao valorPeloApelido(String apelido) {
+			for (ModoExecucao modo : values()) {
+				if (modo.getApelido().equals(apelido)) {
+					return modo;
+				}
+			}
+			throw new CalculoErro(
+					"ImpossivelObterModoPeloApelido: Apelido=[%s]", apelido);
+		}
+	}
+
 	public static class CalculoErro extends RuntimeException {
 		private static final long serialVersionUID = -8474905293572094877L;
 
@@ -96,6 +150,81 @@ public class SubcadeiaSomaMaxima {
 
 	}
 
+	/**
+	 * @author raphaeljansen
+	 *
+	 *         Resultado da analise de uma cadeia de inteiros primitivos, sem a
+	 *         copia da subcadeia: soma: O maior valor de soma obtido, 0 quando
+	 *         nenhuma subcadeia tem soma positiva posicaoInicial e
+	 *         posicaoFinal: Indices, inclusivos, da subcadeia na cadeia
+	 */
+	public static class ResultadoSomaMaxima {
+		private final long soma;
+		private final long posicaoInicial;
+		private final long posicaoFinal;
+
+		public ResultadoSomaMaxima(long soma, long posicaoInicial,
+				long posicaoFinal) {
+			super();
+			this.soma = soma;
+			this.posicaoInicial = posicaoInicial;
+			this.posicaoFinal = posicaoFinal;
+		}
+
+		public long getSoma() {
+			return soma;
+		}
+
+		public long getPosicaoInicial() {
+			return posicaoInicial;
+		}
+
+		public long getPosicaoFinal() {
+			return posicaoFinal;
+		}
+
+		/**
+		 * @return true se nenhuma subcadeia tem soma positiva, caso em que a
+		 *         subcadeia resultante e vazia
+		 */
+		public boolean isVazio() {
+			return soma == 0;
+		}
+
+		/**
+		 * @return long - Quantidade de itens da subcadeia
+		 */
+		public long getTamanho() {
+			return isVazio() ? 0 : posicaoFinal - posicaoInicial + 1;
+		}
+
+		@Override
+		public int hashCode() {
+			return (Long.hashCode(soma) * 31 + Long.hashCode(posicaoInicial))
+					* 31 + Long.hashCode(posicaoFinal);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+			final ResultadoSomaMaxima other = (ResultadoSomaMaxima) obj;
+			return soma == other.soma
+					&& posicaoInicial == other.posicaoInicial
+					&& posicaoFinal == other.posicaoFinal;
+		}
+
+		@Override
+		public String toString() {
+			return String
+					.format("ResultadoSomaMaxima [soma=%s, posicaoInicial=%s, posicaoFinal=%s]",
+							soma, posicaoInicial, posicaoFinal);
+		}
+
+	}
+
 	/**
 	 * Calcula qual é a subcadeia que tem maior valor na soma de seus items
 	 * 
@@ -107,61 +236,562 @@ public class SubcadeiaSomaMaxima {
 	public static ResultadoSubcadeiaMaxima calcula(List<Integer> cadeia) {
 		if (cadeia == null)
 			throw new CalculoErro("ParametroObrigatorio: cadeia");
+		final int[] itens = new int[cadeia.size()];
+		int posicao = 0;
+		for (final Integer item : cadeia) {
+			if (item == null)
+				throw new CalculoErro("ItemNulo: Posicao=%s", posicao);
+			itens[posicao++] = item;
+		}
+		final ResultadoSomaMaxima resultado = calcula(itens);
+		if (resultado.getSoma() > Integer.MAX_VALUE)
+			throw new CalculoErro("SomaExcedeInteiro: Soma=%s",
+					resultado.getSoma());
+		return new ResultadoSubcadeiaMaxima((int) resultado.getSoma(),
+				(int) resultado.getPosicaoInicial(),
+				(int) resultado.getPosicaoFinal(),
+				resultado.isVazio() ? new ArrayList<>() : cadeia.subList(
+						(int) resultado.getPosicaoInicial(),
+						(int) resultado.getPosicaoFinal() + 1));
+	}
+
+	/**
+	 * Calcula a subcadeia de maior soma em uma unica passagem (algoritmo de
+	 * Kadane), feita por {@link ResumoSubcadeia#adiciona(long[], int, int)},
+	 * onde ficam as regras de desempate de todos os calculos. A soma da
+	 * melhor subcadeia terminada em cada posicao so e reiniciada quando fica
+	 * negativa, o que mantem o menor inicio possivel; como a melhor soma so e
+	 * substituida por outra estritamente maior, entre subcadeias de mesma soma
+	 * vence a de menor inicio e, depois, a de menor fim. Sem soma positiva o
+	 * resultado e vazio, com posicoes 0.
+	 * 
+	 * @param cadeia
+	 *            - Sequencia de numero inteiros de onde se deseja extrair a
+	 *            subcadeia
+	 * @return ResultadoSomaMaxima - Retorna o valor da soma e as posicoes da
+	 *         subcadeia
+	 */
+	public static ResultadoSomaMaxima calcula(int[] cadeia) {
+		if (cadeia == null)
+			throw new CalculoErro("ParametroObrigatorio: cadeia");
+		return new ResumoSubcadeia(0).adiciona(cadeia, 0, cadeia.length)
+				.getResultado();
+	}
+
+	/**
+	 * Mesmo calculo de {@link #calcula(int[])} para itens de 64 bits. As somas
+	 * parciais nao sao verificadas contra estouro do inteiro longo.
+	 * 
+	 * @param cadeia
+	 *            - Sequencia de numero inteiros de onde se deseja extrair a
+	 *            subcadeia
+	 * @return ResultadoSomaMaxima - Retorna o valor da soma e as posicoes da
+	 *         subcadeia
+	 */
+	public static ResultadoSomaMaxima calcula(long[] cadeia) {
+		if (cadeia == null)
+			throw new CalculoErro("ParametroObrigatorio: cadeia");
+		return new ResumoSubcadeia(0).adiciona(cadeia, 0, cadeia.length)
+				.getResultado();
+	}
 
-		Integer maiorSoma = 0, inicioSubCadeia = 0, fimSubCadeia = 0;
+	/**
+	 * Calcula a subcadeia de maior soma entre as que tem de tamanhoMinimo a
+	 * tamanhoMaximo itens, veja {@link #calcula(long[], int, int)}.
+	 * 
+	 * @param cadeia
+	 *            - Sequencia de numero inteiros de onde se deseja extrair a
+	 *            subcadeia
+	 * @param tamanhoMinimo
+	 *            - Menor quantidade de itens da subcadeia, ao menos 1
+	 * @param tamanhoMaximo
+	 *            - Maior quantidade de itens da subcadeia
+	 * @return ResultadoSomaMaxima - Retorna o valor da soma e as posicoes da
+	 *         subcadeia
+	 */
+	public static ResultadoSomaMaxima calcula(int[] cadeia, int tamanhoMinimo,
+			int tamanhoMaximo) {
+		if (cadeia == null)
+			throw new CalculoErro("ParametroObrigatorio: cadeia");
+		final long[] somasPrefixo = new long[cadeia.length + 1];
+		for (int i = 0; i < cadeia.length; i++) {
+			somasPrefixo[i + 1] = cadeia[i];
+		}
+		return calculaLimitado(somasPrefixo, tamanhoMinimo, tamanhoMaximo);
+	}
 
-		for (int primeiro = 0; primeiro < cadeia.size(); primeiro++) {
-			for (int ultimo = 0; ultimo < cadeia.subList(primeiro,
-					cadeia.size()).size(); ultimo++) {
-				Integer soma = 0;
-				for (int k = primeiro; k < ultimo + 1; k++) {
-					soma += cadeia.get(k);
-				}
-				if (soma > maiorSoma) {
-					maiorSoma = soma;
-					inicioSubCadeia = primeiro;
-					fimSubCadeia = ultimo;
-				}
+	/**
+	 * Calcula a subcadeia de maior soma entre as que tem de tamanhoMinimo a
+	 * tamanhoMaximo itens, em O(n). Com as somas de prefixo P, a soma de
+	 * [inicio, fim] e P[fim + 1] - P[inicio]; para cada fim basta o menor
+	 * P[inicio] entre os inicios permitidos, mantido em uma fila monotonica
+	 * de posicoes que avanca junto com o fim. Como em {@link #calcula(long[])}
+	 * apenas somas positivas sao consideradas e, em empates, vence o menor
+	 * inicio e depois o menor fim.
+	 * 
+	 * @param cadeia
+	 *            - Sequencia de numero inteiros de onde se deseja extrair a
+	 *            subcadeia
+	 * @param tamanhoMinimo
+	 *            - Menor quantidade de itens da subcadeia, ao menos 1
+	 * @param tamanhoMaximo
+	 *            - Maior quantidade de itens da subcadeia
+	 * @return ResultadoSomaMaxima - Retorna o valor da soma e as posicoes da
+	 *         subcadeia
+	 */
+	public static ResultadoSomaMaxima calcula(long[] cadeia,
+			int tamanhoMinimo, int tamanhoMaximo) {
+		if (cadeia == null)
+			throw new CalculoErro("ParametroObrigatorio: cadeia");
+		final long[] somasPrefixo = new long[cadeia.length + 1];
+		System.arraycopy(cadeia, 0, somasPrefixo, 1, cadeia.length);
+		return calculaLimitado(somasPrefixo, tamanhoMinimo, tamanhoMaximo);
+	}
+
+	/**
+	 * @param somasPrefixo
+	 *            - Itens da cadeia a partir da posicao 1, transformados aqui
+	 *            nas somas de prefixo, com somasPrefixo[0] = 0
+	 */
+	private static ResultadoSomaMaxima calculaLimitado(long[] somasPrefixo,
+			int tamanhoMinimo, int tamanhoMaximo) {
+		if (tamanhoMinimo < 1 || tamanhoMaximo < tamanhoMinimo)
+			throw new CalculoErro(
+					"TamanhosInvalidos: TamanhoMinimo=%s TamanhoMaximo=%s",
+					tamanhoMinimo, tamanhoMaximo);
+		for (int i = 1; i < somasPrefixo.length; i++) {
+			somasPrefixo[i] += somasPrefixo[i - 1];
+		}
+		// Posicoes de inicio candidatas, com somas de prefixo crescentes; em
+		// empates fica a mais antiga, que e o menor inicio
+		final int[] fila = new int[somasPrefixo.length];
+		int cabeca = 0, cauda = 0;
+		long maiorSoma = 0;
+		int inicioSubCadeia = 0, fimSubCadeia = 0;
+		for (int fim = tamanhoMinimo; fim < somasPrefixo.length; fim++) {
+			final int novoInicio = fim - tamanhoMinimo;
+			while (cauda > cabeca
+					&& somasPrefixo[fila[cauda - 1]] > somasPrefixo[novoInicio]) {
+				cauda--;
+			}
+			fila[cauda++] = novoInicio;
+			if (fila[cabeca] < fim - tamanhoMaximo) {
+				cabeca++;
+			}
+			final long soma = somasPrefixo[fim] - somasPrefixo[fila[cabeca]];
+			if (soma > maiorSoma) {
+				maiorSoma = soma;
+				inicioSubCadeia = fila[cabeca];
+				fimSubCadeia = fim - 1;
+			}
+		}
+		return new ResultadoSomaMaxima(maiorSoma, inicioSubCadeia,
+				fimSubCadeia);
+	}
+
+	/**
+	 * Calcula as quantidade subcadeias de maior soma que nao se sobrepoem,
+	 * veja {@link #calculaMaiores(long[], int)}.
+	 * 
+	 * @param cadeia
+	 *            - Sequencia de numero inteiros de onde se deseja extrair as
+	 *            subcadeias
+	 * @param quantidade
+	 *            - Quantidade maxima de subcadeias
+	 * @return List - Subcadeias em ordem decrescente de soma
+	 */
+	public static List<ResultadoSomaMaxima> calculaMaiores(int[] cadeia,
+			int quantidade) {
+		if (cadeia == null)
+			throw new CalculoErro("ParametroObrigatorio: cadeia");
+		return calculaMaiores(new ArvoreSubcadeias(cadeia), quantidade);
+	}
+
+	/**
+	 * Calcula as quantidade subcadeias de maior soma que nao se sobrepoem. A
+	 * primeira e a de {@link #calcula(long[])}; cada seguinte e a melhor
+	 * subcadeia que nao toca nenhuma das ja escolhidas, o mesmo que repetir o
+	 * calculo mascarando as subcadeias escolhidas. Cada escolha divide o
+	 * trecho que a contem em dois; o melhor de cada trecho e consultado em
+	 * O(log n) em uma {@link ArvoreSubcadeias} e os trechos ficam em uma fila
+	 * de prioridade, o que leva a O(n + quantidade * log n) no total.
+	 * 
+	 * @param cadeia
+	 *            - Sequencia de numero inteiros de onde se deseja extrair as
+	 *            subcadeias
+	 * @param quantidade
+	 *            - Quantidade maxima de subcadeias
+	 * @return List - Subcadeias em ordem decrescente de soma, menos que
+	 *         quantidade quando nao restam somas positivas
+	 */
+	public static List<ResultadoSomaMaxima> calculaMaiores(long[] cadeia,
+			int quantidade) {
+		if (cadeia == null)
+			throw new CalculoErro("ParametroObrigatorio: cadeia");
+		return calculaMaiores(new ArvoreSubcadeias(cadeia), quantidade);
+	}
+
+	private static List<ResultadoSomaMaxima> calculaMaiores(
+			ArvoreSubcadeias arvore, int quantidade) {
+		if (quantidade < 1)
+			throw new CalculoErro("QuantidadeInvalida: Quantidade=%s",
+					quantidade);
+		final List<ResultadoSomaMaxima> maiores = new ArrayList<>();
+		final PriorityQueue<TrechoCadeia> trechos = new PriorityQueue<>();
+		adicionaTrecho(trechos, arvore, 0, arvore.getTamanho() - 1);
+		while (maiores.size() < quantidade && !trechos.isEmpty()) {
+			final TrechoCadeia trecho = trechos.poll();
+			maiores.add(trecho.melhor);
+			adicionaTrecho(trechos, arvore, trecho.inicio,
+					(int) trecho.melhor.getPosicaoInicial() - 1);
+			adicionaTrecho(trechos, arvore,
+					(int) trecho.melhor.getPosicaoFinal() + 1, trecho.fim);
+		}
+		return maiores;
+	}
+
+	private static void adicionaTrecho(PriorityQueue<TrechoCadeia> trechos,
+			ArvoreSubcadeias arvore, int inicio, int fim) {
+		if (inicio <= fim) {
+			final ResultadoSomaMaxima melhor = arvore.consulta(inicio, fim);
+			if (!melhor.isVazio()) {
+				trechos.add(new TrechoCadeia(inicio, fim, melhor));
+			}
+		}
+	}
+
+	/**
+	 * @author raphaeljansen
+	 *
+	 *         Trecho [inicio, fim] ainda livre da cadeia e a sua melhor
+	 *         subcadeia. Os trechos sao ordenados pela maior soma e, em
+	 *         empates, pela menor posicao, como em {@link #calcula(long[])}.
+	 */
+	private static class TrechoCadeia implements Comparable<TrechoCadeia> {
+		private final int inicio;
+		private final int fim;
+		private final ResultadoSomaMaxima melhor;
+
+		public TrechoCadeia(int inicio, int fim, ResultadoSomaMaxima melhor) {
+			super();
+			this.inicio = inicio;
+			this.fim = fim;
+			this.melhor = melhor;
+		}
+
+		@Override
+		public int compareTo(TrechoCadeia outro) {
+			final int comparacao = Long.compare(outro.melhor.getSoma(),
+					melhor.getSoma());
+			return comparacao != 0 ? comparacao : Integer.compare(inicio,
+					outro.inicio);
+		}
+	}
+
+	/**
+	 * Resume os numeros lidos de entrada, um por vez, guardando apenas o
+	 * estado de {@link ResumoSubcadeia}: a memoria utilizada nao depende do
+	 * tamanho da cadeia. O fluxo nao e fechado.
+	 * 
+	 * @param entrada
+	 *            - Numeros em texto decimal, veja {@link LeitorNumeros}
+	 * @return ResumoSubcadeia - Resumo da cadeia inteira, com a quantidade de
+	 *         itens em {@link ResumoSubcadeia#getFim()}
+	 */
+	public static ResumoSubcadeia resume(InputStream entrada)
+			throws IOException {
+		final LeitorNumeros leitor = new LeitorNumeros(entrada);
+		final ResumoSubcadeia resumo = new ResumoSubcadeia(0);
+		while (leitor.avanca()) {
+			resumo.adiciona(leitor.getValor());
+		}
+		return resumo;
+	}
+
+	/**
+	 * Mesmo calculo de {@link #calcula(long[])} sobre numeros lidos de um
+	 * fluxo, sem guardar a cadeia, veja {@link #resume(InputStream)}.
+	 * 
+	 * @param entrada
+	 *            - Numeros em texto decimal, veja {@link LeitorNumeros}
+	 * @return ResultadoSomaMaxima - Retorna o valor da soma e as posicoes da
+	 *         subcadeia
+	 */
+	public static ResultadoSomaMaxima calcula(InputStream entrada)
+			throws IOException {
+		return resume(entrada).getResultado();
+	}
+
+	/**
+	 * Calcula a subcadeia de maior soma dividindo a cadeia em blocos resumidos
+	 * em paralelo, veja {@link ResumoSubcadeia}.
+	 * 
+	 * @param cadeia
+	 *            - Sequencia de numero inteiros de onde se deseja extrair a
+	 *            subcadeia
+	 * @param paralelismo
+	 *            - Quantidade de threads utilizadas
+	 * @return ResultadoSomaMaxima - Resultado identico ao de
+	 *         {@link #calcula(int[])}
+	 */
+	public static ResultadoSomaMaxima calculaParalelo(int[] cadeia,
+			int paralelismo) {
+		if (cadeia == null)
+			throw new CalculoErro("ParametroObrigatorio: cadeia");
+		return resumeParalelo(cadeia.length, paralelismo,
+				(inicio, fim) -> new ResumoSubcadeia(inicio).adiciona(cadeia,
+						(int) inicio, (int) fim)).getResultado();
+	}
+
+	/**
+	 * Mesmo calculo de {@link #calculaParalelo(int[], int)} para itens de 64
+	 * bits.
+	 * 
+	 * @param cadeia
+	 *            - Sequencia de numero inteiros de onde se deseja extrair a
+	 *            subcadeia
+	 * @param paralelismo
+	 *            - Quantidade de threads utilizadas
+	 * @return ResultadoSomaMaxima - Resultado identico ao de
+	 *         {@link #calcula(long[])}
+	 */
+	public static ResultadoSomaMaxima calculaParalelo(long[] cadeia,
+			int paralelismo) {
+		if (cadeia == null)
+			throw new CalculoErro("ParametroObrigatorio: cadeia");
+		return resumeParalelo(cadeia.length, paralelismo,
+				(inicio, fim) -> new ResumoSubcadeia(inicio).adiciona(cadeia,
+						(int) inicio, (int) fim)).getResultado();
+	}
+
+	/**
+	 * Resume as posicoes [0, tamanho) de uma fonte de itens em blocos de
+	 * {@value #TAMANHO_BLOCO} itens, resumidos e combinados em paralelo.
+	 * 
+	 * @param tamanho
+	 *            - Quantidade de itens da fonte
+	 * @param paralelismo
+	 *            - Quantidade de threads utilizadas
+	 * @param resumidor
+	 *            - Resume um bloco da fonte
+	 * @return ResumoSubcadeia - Resumo da fonte inteira
+	 */
+	static ResumoSubcadeia resumeParalelo(long tamanho, int paralelismo,
+			ResumidorBloco resumidor) {
+		if (paralelismo < 1)
+			throw new CalculoErro("ParalelismoInvalido: Paralelismo=%s",
+					paralelismo);
+		if (tamanho == 0)
+			return new ResumoSubcadeia(0);
+		final ForkJoinPool pool = new ForkJoinPool(paralelismo);
+		try {
+			return pool.invoke(new TarefaResumo(0, tamanho, resumidor));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * @author raphaeljansen
+	 *
+	 *         Tarefa que resume o trecho [inicio, fim) dividindo-o ao meio ate
+	 *         o tamanho de um bloco. O resumo da metade esquerda e combinado
+	 *         com o da direita, preservando a ordem da cadeia.
+	 */
+	private static class TarefaResumo extends RecursiveTask<ResumoSubcadeia> {
+		private static final long serialVersionUID = 2871301541307815422L;
+
+		private final long inicio;
+		private final long fim;
+		private final ResumidorBloco resumidor;
+
+		public TarefaResumo(long inicio, long fim, ResumidorBloco resumidor) {
+			super();
+			this.inicio = inicio;
+			this.fim = fim;
+			this.resumidor = resumidor;
+		}
+
+		@Override
+		protected ResumoSubcadeia compute() {
+			if (fim - inicio <= TAMANHO_BLOCO) {
+				return resumidor.resume(inicio, fim);
 			}
+			final long meio = inicio + (fim - inicio) / 2;
+			final TarefaResumo direita = new TarefaResumo(meio, fim, resumidor);
+			direita.fork();
+			final ResumoSubcadeia resumoEsquerda = new TarefaResumo(inicio,
+					meio, resumidor).compute();
+			return resumoEsquerda.combina(direita.join());
 		}
-		return new ResultadoSubcadeiaMaxima(maiorSoma, inicioSubCadeia,
-				fimSubCadeia, fimSubCadeia == 0 ? new ArrayList<>()
-						: cadeia.subList(inicioSubCadeia, fimSubCadeia + 1));
 	}
 
 	/**
 	 * Imprime um exemplo de chamada da classe
 	 */
 	private static void printUsage() {
-		out.println("Use: java br.com.rjansen.desafios.SubcadeiaSomaMaxima <cadeia>\n<cadeia>=1,20,-3,4000,n\nn precisa ser um numero inteiro valido");
+		out.println("Use: java br.com.rjansen.desafios.SubcadeiaSomaMaxima <cadeia> [modo] [paralelismo]\n<cadeia>=1,20,-3,4000,n\nn precisa ser um numero inteiro valido\n[modo]=cadeia|fluxo|int32|int64|matriz|lote (padrao: cadeia)\nNo modo fluxo <cadeia> e o caminho do arquivo com os numeros, ou - para a entrada padrao\nNos modos int32 e int64 <cadeia> e o caminho do arquivo binario little-endian\nNo modo matriz <cadeia> e o caminho do arquivo com uma linha da matriz por linha, ou - para a entrada padrao\nNo modo lote <cadeia> e o caminho do arquivo com uma cadeia por linha, ou - para a entrada padrao; as respostas \"soma posicao_inicial posicao_final\" sao escritas uma por linha, na ordem das cadeias\n[paralelismo]=p, threads utilizadas nos modos int32, int64, matriz e lote (padrao: processadores disponiveis)");
 	}
 
 	public static void main(String[] args) {
 		final long startTime = currentTimeMillis();
-		final List<Integer> cadeia;
+		final ModoExecucao modo;
 		if (args.length < 1 || args[0] == null) {
 			printUsage();
 			return;
+		}
+		if (args.length < 2 || args[1] == null) {
+			modo = ModoExecucao.CADEIA;
+		} else {
+			try {
+				modo = ModoExecucao.valorPeloApelido(args[1].trim());
+			} catch (CalculoErro e) {
+				printUsage();
+				return;
+			}
+		}
+		if (modo == ModoExecucao.FLUXO) {
+			exibeFluxo(args[0].trim());
+		} else if (modo == ModoExecucao.INT32 || modo == ModoExecucao.INT64
+				|| modo == ModoExecucao.MATRIZ || modo == ModoExecucao.LOTE) {
+			final int paralelismo;
+			try {
+				paralelismo = args.length < 3 || args[2] == null ? Runtime
+						.getRuntime().availableProcessors() : Integer
+						.parseInt(args[2].trim());
+			} catch (NumberFormatException e) {
+				printUsage();
+				return;
+			}
+			if (modo == ModoExecucao.LOTE) {
+				exibeLote(args[0].trim(), paralelismo, startTime);
+				return;
+			} else if (modo == ModoExecucao.MATRIZ) {
+				exibeMatriz(args[0].trim(), paralelismo);
+			} else {
+				exibeBinario(args[0].trim(),
+						FormatoBinario.valorPeloApelido(modo.getApelido()),
+						paralelismo);
+			}
 		} else {
-			cadeia = new ArrayList<>();
-			Arrays.stream(args[0].replaceAll("[ ]+", "").split(","))
-					.mapToInt(Integer::valueOf)
-					.forEachOrdered(itemCadeia -> cadeia.add(itemCadeia));
+			exibeCadeia(Arrays
+					.stream(args[0].replaceAll("[ ]+", "").split(","))
+					.mapToInt(Integer::parseInt).toArray());
 		}
+		final long endTime = currentTimeMillis();
+		out.printf(
+				"****** Tempo Execucao Subcadeia Soma Maxima: %dms ******\n",
+				endTime - startTime);
+
+	}
+
+	private static void exibeCadeia(int[] cadeia) {
 		out.println("****** Subcadeia de Soma Maxima - Analisa e demonstra a subsequencia que gera a maior soma ******");
 		out.println("****** Aguarde ... Calculando os valores ******");
-		final ResultadoSubcadeiaMaxima resultadoSomaMaxima = calcula(cadeia);
+		final ResultadoSomaMaxima resultadoSomaMaxima = calcula(cadeia);
 		out.printf(
 				"Subcadeia com Maior Soma: \n\tCadeia=%s \n\tMaior Soma=%s \n\tPosicao Inicial na Cadeia=%s \n\tPosicao final na cadeia=%s \n\tSubcadeia=%s\n",
-				cadeia, resultadoSomaMaxima.getValorSoma(),
-				resultadoSomaMaxima.getPosicaoInicialNaCadeia(),
-				resultadoSomaMaxima.getPosicaoFinalNaCadeia(),
-				resultadoSomaMaxima.getSubCadeia());
-		final long endTime = currentTimeMillis();
+				Arrays.toString(cadeia), resultadoSomaMaxima.getSoma(),
+				resultadoSomaMaxima.getPosicaoInicial(),
+				resultadoSomaMaxima.getPosicaoFinal(),
+				Arrays.toString(Arrays.copyOfRange(cadeia,
+						(int) resultadoSomaMaxima.getPosicaoInicial(),
+						(int) (resultadoSomaMaxima.getPosicaoInicial() + resultadoSomaMaxima
+								.getTamanho()))));
+	}
+
+	private static void exibeFluxo(String origem) {
+		out.println("****** Subcadeia de Soma Maxima - Analisa e demonstra a subsequencia que gera a maior soma ******");
+		out.println("****** Aguarde ... Lendo os valores ******");
+		final ResumoSubcadeia resumo;
+		try {
+			if ("-".equals(origem)) {
+				resumo = resume(in);
+			} else {
+				try (final InputStream entrada = Files.newInputStream(Paths
+						.get(origem))) {
+					resumo = resume(entrada);
+				}
+			}
+		} catch (IOException e) {
+			throw new CalculoErro("ErroLeituraCadeia: Origem=%s", e, origem);
+		}
+		final ResultadoSomaMaxima resultadoSomaMaxima = resumo.getResultado();
 		out.printf(
-				"****** Tempo Execucao Subcadeia Soma Maxima: %dms ******\n",
-				endTime - startTime);
+				"Subcadeia com Maior Soma: \n\tOrigem=%s \n\tQuantidade de Itens=%s \n\tMaior Soma=%s \n\tPosicao Inicial na Cadeia=%s \n\tPosicao final na cadeia=%s\n",
+				origem, resumo.getFim(), resultadoSomaMaxima.getSoma(),
+				resultadoSomaMaxima.getPosicaoInicial(),
+				resultadoSomaMaxima.getPosicaoFinal());
+	}
+
+	private static void exibeBinario(String origem, FormatoBinario formato,
+			int paralelismo) {
+		out.println("****** Subcadeia de Soma Maxima - Analisa e demonstra a subsequencia que gera a maior soma ******");
+		out.println("****** Aguarde ... Calculando os valores ******");
+		try (final CadeiaMapeada cadeia = CadeiaMapeada.abre(Paths.get(origem),
+				formato)) {
+			final ResultadoSomaMaxima resultadoSomaMaxima = cadeia
+					.calcula(paralelismo);
+			out.printf(
+					"Subcadeia com Maior Soma: \n\tOrigem=%s \n\tFormato=%s \n\tQuantidade de Itens=%s \n\tMaior Soma=%s \n\tPosicao Inicial na Cadeia=%s \n\tPosicao final na cadeia=%s\n",
+					origem, formato.getApelido(), cadeia.getQuantidade(),
+					resultadoSomaMaxima.getSoma(),
+					resultadoSomaMaxima.getPosicaoInicial(),
+					resultadoSomaMaxima.getPosicaoFinal());
+		}
+	}
+
+	private static void exibeMatriz(String origem, int paralelismo) {
+		out.println("****** Submatriz de Soma Maxima - Analisa e demonstra o retangulo que gera a maior soma ******");
+		out.println("****** Aguarde ... Lendo os valores ******");
+		final SubmatrizSomaMaxima matriz;
+		try {
+			if ("-".equals(origem)) {
+				matriz = SubmatrizSomaMaxima.le(in);
+			} else {
+				try (final InputStream entrada = Files.newInputStream(Paths
+						.get(origem))) {
+					matriz = SubmatrizSomaMaxima.le(entrada);
+				}
+			}
+		} catch (IOException e) {
+			throw new CalculoErro("ErroLeituraMatriz: Origem=%s", e, origem);
+		}
+		final ResultadoSubmatriz resultadoSubmatriz = matriz
+				.calcula(paralelismo);
+		out.printf(
+				"Submatriz com Maior Soma: \n\tOrigem=%s \n\tLinhas=%s \n\tColunas=%s \n\tMaior Soma=%s \n\tLinha Inicial=%s \n\tColuna Inicial=%s \n\tLinha Final=%s \n\tColuna Final=%s\n",
+				origem, matriz.getLinhas(), matriz.getColunas(),
+				resultadoSubmatriz.getSoma(),
+				resultadoSubmatriz.getLinhaInicial(),
+				resultadoSubmatriz.getColunaInicial(),
+				resultadoSubmatriz.getLinhaFinal(),
+				resultadoSubmatriz.getColunaFinal());
+	}
 
+	/**
+	 * As respostas ocupam a saida padrao; o resumo da execucao vai para a
+	 * saida de erro.
+	 */
+	private static void exibeLote(String origem, int paralelismo,
+			long startTime) {
+		final long cadeias;
+		try {
+			if ("-".equals(origem)) {
+				cadeias = LoteSubcadeias.processa(in, out, paralelismo);
+			} else {
+				try (final InputStream entrada = Files.newInputStream(Paths
+						.get(origem))) {
+					cadeias = LoteSubcadeias.processa(entrada, out,
+							paralelismo);
+				}
+			}
+		} catch (IOException e) {
+			throw new CalculoErro("ErroLeituraLote: Origem=%s", e, origem);
+		}
+		err.printf(
+				"****** Lote Subcadeia Soma Maxima: Cadeias=%s Tempo=%dms ******\n",
+				cadeias, currentTimeMillis() - startTime);
 	}
 
 }
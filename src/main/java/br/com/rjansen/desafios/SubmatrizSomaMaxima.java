@@ -0,0 +1,426 @@
+package br.com.rjansen.desafios;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.CalculoErro;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.ResultadoSomaMaxima;
+
+/**
+ * @author raphaeljansen
+ *
+ *         Subcadeia de soma maxima em duas dimensoes: o retangulo de maior
+ *         soma de uma matriz de linhas x colunas inteiros.
+ *
+ *         Para cada faixa de linhas [linhaInicial, linhaFinal] as colunas sao
+ *         comprimidas em um unico vetor com a soma de cada coluna dentro da
+ *         faixa, e o melhor retangulo da faixa e a subcadeia de maior soma
+ *         desse vetor, calculada pelo mesmo {@link ResumoSubcadeia} de
+ *         {@link SubcadeiaSomaMaxima#calcula(long[])}. A faixa
+ *         [linhaInicial, linhaFinal + 1] reaproveita o vetor da anterior
+ *         somando apenas mais uma linha, entao o custo total e O(R^2 * C).
+ *         Quando ha mais linhas que colunas a matriz e transposta antes, para
+ *         que o termo ao quadrado seja sempre a menor dimensao.
+ *
+ *         A matriz fica em um unico vetor primitivo, linha apos linha. As
+ *         faixas com a mesma linha inicial sao calculadas por uma mesma tarefa
+ *         e as linhas iniciais sao divididas entre as threads.
+ *
+ *         Entre retangulos de mesma soma vence o de menor linha inicial, depois
+ *         menor linha final, menor coluna inicial e menor coluna final. Apenas
+ *         somas positivas sao consideradas: quando nenhuma e positiva o
+ *         resultado e vazio, com soma e posicoes 0.
+ */
+public class SubmatrizSomaMaxima {
+
+	/**
+	 * Quantidade aproximada de somas feitas por uma mesma tarefa no calculo
+	 * paralelo.
+	 */
+	private static final long TAMANHO_TAREFA = 1 << 20;
+
+	private static final int TAMANHO_INICIAL_LEITURA = 1 << 10;
+
+	private static final int TAMANHO_MAXIMO = Integer.MAX_VALUE - 8;
+
+	/**
+	 * @author raphaeljansen
+	 *
+	 *         Resultado da analise de uma matriz: soma: O maior valor de soma
+	 *         obtido, 0 quando nenhum retangulo tem soma positiva linhaInicial,
+	 *         colunaInicial, linhaFinal e colunaFinal: Indices, inclusivos, dos
+	 *         cantos do retangulo
+	 */
+	public static class ResultadoSubmatriz {
+		private final long soma;
+		private final int linhaInicial;
+		private final int colunaInicial;
+		private final int linhaFinal;
+		private final int colunaFinal;
+
+		public ResultadoSubmatriz(long soma, int linhaInicial,
+				int colunaInicial, int linhaFinal, int colunaFinal) {
+			super();
+			this.soma = soma;
+			this.linhaInicial = linhaInicial;
+			this.colunaInicial = colunaInicial;
+			this.linhaFinal = linhaFinal;
+			this.colunaFinal = colunaFinal;
+		}
+
+		public long getSoma() {
+			return soma;
+		}
+
+		public int getLinhaInicial() {
+			return linhaInicial;
+		}
+
+		public int getColunaInicial() {
+			return colunaInicial;
+		}
+
+		public int getLinhaFinal() {
+			return linhaFinal;
+		}
+
+		public int getColunaFinal() {
+			return colunaFinal;
+		}
+
+		/**
+		 * @return true se nenhum retangulo tem soma positiva
+		 */
+		public boolean isVazio() {
+			return soma == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			return (((Long.hashCode(soma) * 31 + linhaInicial) * 31 + colunaInicial) * 31 + linhaFinal)
+					* 31 + colunaFinal;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+			final ResultadoSubmatriz other = (ResultadoSubmatriz) obj;
+			return soma == other.soma && linhaInicial == other.linhaInicial
+					&& colunaInicial == other.colunaInicial
+					&& linhaFinal == other.linhaFinal
+					&& colunaFinal == other.colunaFinal;
+		}
+
+		@Override
+		public String toString() {
+			return String
+					.format("ResultadoSubmatriz [soma=%s, linhaInicial=%s, colunaInicial=%s, linhaFinal=%s, colunaFinal=%s]",
+							soma, linhaInicial, colunaInicial, linhaFinal,
+							colunaFinal);
+		}
+
+	}
+
+	private final int linhas;
+	private final int colunas;
+	private final long[] valores;
+
+	/**
+	 * @param linhas
+	 *            - Quantidade de linhas da matriz
+	 * @param colunas
+	 *            - Quantidade de colunas da matriz
+	 * @param valores
+	 *            - Itens da matriz, linha apos linha; o vetor nao e copiado
+	 */
+	public SubmatrizSomaMaxima(int linhas, int colunas, long[] valores) {
+		if (valores == null)
+			throw new CalculoErro("ParametroObrigatorio: valores");
+		if (linhas < 0 || colunas < 0
+				|| (long) linhas * colunas != valores.length)
+			throw new CalculoErro(
+					"DimensoesInvalidas: Linhas=%s Colunas=%s Itens=%s",
+					linhas, colunas, valores.length);
+		this.linhas = linhas;
+		this.colunas = colunas;
+		this.valores = valores;
+	}
+
+	/**
+	 * Le uma matriz em texto decimal, uma linha da matriz por linha do texto,
+	 * com os itens separados como em {@link LeitorNumeros}. Linhas em branco
+	 * sao ignoradas e todas as linhas precisam ter a mesma quantidade de
+	 * itens. O fluxo nao e fechado.
+	 *
+	 * @param entrada
+	 *            - Matriz em texto decimal
+	 * @return SubmatrizSomaMaxima - Matriz lida
+	 */
+	public static SubmatrizSomaMaxima le(InputStream entrada)
+			throws IOException {
+		final LeitorNumeros leitor = new LeitorNumeros(entrada);
+		long[] valores = new long[TAMANHO_INICIAL_LEITURA];
+		int quantidade = 0, linhas = 0, colunas = -1, itensLinha = 0;
+		long linhaAtual = -1;
+		while (leitor.avanca()) {
+			if (leitor.getLinha() != linhaAtual) {
+				if (linhas > 0) {
+					colunas = validaLinha(linhaAtual, itensLinha, colunas);
+				}
+				linhaAtual = leitor.getLinha();
+				linhas++;
+				itensLinha = 0;
+			}
+			if (quantidade == valores.length) {
+				if (quantidade == TAMANHO_MAXIMO)
+					throw new CalculoErro("MatrizMuitoGrande: Itens=%s",
+							leitor.getQuantidade());
+				valores = Arrays.copyOf(valores,
+						(int) Math.min(2L * quantidade, TAMANHO_MAXIMO));
+			}
+			valores[quantidade++] = leitor.getValor();
+			itensLinha++;
+		}
+		if (linhas > 0) {
+			colunas = validaLinha(linhaAtual, itensLinha, colunas);
+		}
+		return new SubmatrizSomaMaxima(linhas, Math.max(colunas, 0),
+				Arrays.copyOf(valores, quantidade));
+	}
+
+	private static int validaLinha(long linha, int itens, int colunas) {
+		if (colunas >= 0 && itens != colunas)
+			throw new CalculoErro(
+					"MatrizIrregular: Linha=%s Colunas=%s Esperado=%s", linha,
+					itens, colunas);
+		return itens;
+	}
+
+	public int getLinhas() {
+		return linhas;
+	}
+
+	public int getColunas() {
+		return colunas;
+	}
+
+	/**
+	 * @return long - Valor do item na linha e coluna, a partir de 0
+	 */
+	public long item(int linha, int coluna) {
+		if (linha < 0 || linha >= linhas || coluna < 0 || coluna >= colunas)
+			throw new CalculoErro(
+					"PosicaoInvalida: Linha=%s Coluna=%s Linhas=%s Colunas=%s",
+					linha, coluna, linhas, colunas);
+		return valores[linha * colunas + coluna];
+	}
+
+	/**
+	 * Calcula o retangulo de maior soma na thread atual.
+	 *
+	 * @return ResultadoSubmatriz - Retorna o valor da soma e os cantos do
+	 *         retangulo
+	 */
+	public ResultadoSubmatriz calcula() {
+		final Faixas faixas = new Faixas(this);
+		return faixas.calcula(0, faixas.externas).getResultado(faixas);
+	}
+
+	/**
+	 * Calcula o retangulo de maior soma com as linhas iniciais das faixas
+	 * divididas entre as threads.
+	 *
+	 * @param paralelismo
+	 *            - Quantidade de threads utilizadas
+	 * @return ResultadoSubmatriz - Resultado identico ao de {@link #calcula()}
+	 */
+	public ResultadoSubmatriz calcula(int paralelismo) {
+		if (paralelismo < 1)
+			throw new CalculoErro("ParalelismoInvalido: Paralelismo=%s",
+					paralelismo);
+		final Faixas faixas = new Faixas(this);
+		if (faixas.externas == 0)
+			return new ResultadoSubmatriz(0, 0, 0, 0, 0);
+		final ForkJoinPool pool = new ForkJoinPool(paralelismo);
+		try {
+			return pool.invoke(new TarefaFaixas(faixas, 0, faixas.externas))
+					.getResultado(faixas);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * @author raphaeljansen
+	 *
+	 *         Matriz orientada para o calculo: externas e a menor dimensao,
+	 *         percorrida em faixas, e internas a maior, comprimida em um vetor.
+	 *         Quando transposta, as linhas da matriz original sao as internas.
+	 */
+	private static class Faixas {
+		private final boolean transposta;
+		private final int externas;
+		private final int internas;
+		private final long[] valores;
+
+		public Faixas(SubmatrizSomaMaxima matriz) {
+			this.transposta = matriz.linhas > matriz.colunas;
+			if (transposta) {
+				this.externas = matriz.colunas;
+				this.internas = matriz.linhas;
+				this.valores = new long[matriz.valores.length];
+				for (int linha = 0; linha < matriz.linhas; linha++) {
+					final int base = linha * matriz.colunas;
+					for (int coluna = 0; coluna < matriz.colunas; coluna++) {
+						valores[coluna * internas + linha] = matriz.valores[base
+								+ coluna];
+					}
+				}
+			} else {
+				this.externas = matriz.linhas;
+				this.internas = matriz.colunas;
+				this.valores = matriz.valores;
+			}
+		}
+
+		/**
+		 * Calcula o melhor retangulo entre as faixas que comecam em [de, ate).
+		 * Para cada nova linha da faixa, a linha e somada as colunas e a
+		 * subcadeia de maior soma das colunas e resumida por
+		 * {@link ResumoSubcadeia}, com os mesmos desempates de
+		 * {@link SubcadeiaSomaMaxima#calcula(long[])}.
+		 */
+		public MelhorRetangulo calcula(int de, int ate) {
+			final MelhorRetangulo melhor = new MelhorRetangulo();
+			final long[] colunas = new long[internas];
+			for (int inicio = de; inicio < ate; inicio++) {
+				Arrays.fill(colunas, 0);
+				for (int fim = inicio; fim < externas; fim++) {
+					final int base = fim * internas;
+					for (int i = 0; i < internas; i++) {
+						colunas[i] += valores[base + i];
+					}
+					final ResultadoSomaMaxima faixa = new ResumoSubcadeia(0)
+							.adiciona(colunas, 0, internas).getResultado();
+					if (!faixa.isVazio() && faixa.getSoma() >= melhor.soma) {
+						melhor.considera(this, faixa.getSoma(), inicio, fim,
+								(int) faixa.getPosicaoInicial(),
+								(int) faixa.getPosicaoFinal());
+					}
+				}
+			}
+			return melhor;
+		}
+	}
+
+	/**
+	 * @author raphaeljansen
+	 *
+	 *         Melhor retangulo encontrado por uma tarefa, nas coordenadas de
+	 *         {@link Faixas}.
+	 */
+	private static class MelhorRetangulo {
+		private long soma;
+		private int inicioExterno;
+		private int fimExterno;
+		private int inicioInterno;
+		private int fimInterno;
+
+		public void considera(Faixas faixas, long soma, int inicioExterno,
+				int fimExterno, int inicioInterno, int fimInterno) {
+			if (soma > this.soma
+					|| (soma == this.soma && compara(faixas, inicioExterno,
+							fimExterno, inicioInterno, fimInterno) < 0)) {
+				this.soma = soma;
+				this.inicioExterno = inicioExterno;
+				this.fimExterno = fimExterno;
+				this.inicioInterno = inicioInterno;
+				this.fimInterno = fimInterno;
+			}
+		}
+
+		public MelhorRetangulo combina(Faixas faixas, MelhorRetangulo outro) {
+			if (outro.soma > 0) {
+				considera(faixas, outro.soma, outro.inicioExterno,
+						outro.fimExterno, outro.inicioInterno, outro.fimInterno);
+			}
+			return this;
+		}
+
+		/**
+		 * Compara os cantos na ordem de desempate da matriz original: linhas
+		 * antes de colunas, inicio antes de fim.
+		 */
+		private int compara(Faixas faixas, int inicioExterno, int fimExterno,
+				int inicioInterno, int fimInterno) {
+			final int[] outro = faixas.transposta ? new int[] { inicioInterno,
+					fimInterno, inicioExterno, fimExterno } : new int[] {
+					inicioExterno, fimExterno, inicioInterno, fimInterno };
+			final int[] atual = faixas.transposta ? new int[] {
+					this.inicioInterno, this.fimInterno, this.inicioExterno,
+					this.fimExterno } : new int[] { this.inicioExterno,
+					this.fimExterno, this.inicioInterno, this.fimInterno };
+			for (int i = 0; i < outro.length; i++) {
+				if (outro[i] != atual[i]) {
+					return Integer.compare(outro[i], atual[i]);
+				}
+			}
+			return 0;
+		}
+
+		public ResultadoSubmatriz getResultado(Faixas faixas) {
+			if (soma == 0)
+				return new ResultadoSubmatriz(0, 0, 0, 0, 0);
+			return faixas.transposta ? new ResultadoSubmatriz(soma,
+					inicioInterno, inicioExterno, fimInterno, fimExterno)
+					: new ResultadoSubmatriz(soma, inicioExterno,
+							inicioInterno, fimExterno, fimInterno);
+		}
+	}
+
+	/**
+	 * @author raphaeljansen
+	 *
+	 *         Tarefa que calcula as faixas que comecam em [de, ate), dividindo
+	 *         o trecho ao meio enquanto ele tiver mais de uma linha inicial e
+	 *         mais de {@value #TAMANHO_TAREFA} somas. As primeiras linhas
+	 *         iniciais tem faixas mais longas, por isso o limite e pela
+	 *         quantidade de somas e nao de linhas.
+	 */
+	private static class TarefaFaixas extends RecursiveTask<MelhorRetangulo> {
+		private static final long serialVersionUID = -3170984655129838215L;
+
+		private final Faixas faixas;
+		private final int de;
+		private final int ate;
+
+		public TarefaFaixas(Faixas faixas, int de, int ate) {
+			super();
+			this.faixas = faixas;
+			this.de = de;
+			this.ate = ate;
+		}
+
+		@Override
+		protected MelhorRetangulo compute() {
+			final long somas = (long) (ate - de) * (faixas.externas - de)
+					* faixas.internas;
+			if (ate - de == 1 || somas <= TAMANHO_TAREFA) {
+				return faixas.calcula(de, ate);
+			}
+			final int meio = (de + ate) >>> 1;
+			final TarefaFaixas direita = new TarefaFaixas(faixas, meio, ate);
+			direita.fork();
+			final MelhorRetangulo melhorEsquerda = new TarefaFaixas(faixas, de,
+					meio).compute();
+			return melhorEsquerda.combina(faixas, direita.join());
+		}
+	}
+
+}
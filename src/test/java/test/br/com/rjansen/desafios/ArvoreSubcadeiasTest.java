@@ -0,0 +1,106 @@
+/**
+ *
+ */
+package test.br.com.rjansen.desafios;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import br.com.rjansen.desafios.ArvoreSubcadeias;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.CalculoErro;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.ResultadoSomaMaxima;
+
+/**
+ * @author raphaeljansen
+ *
+ * Classe responsavel por efetuar os testes na classe ArvoreSubcadeias.
+ *
+ */
+public class ArvoreSubcadeiasTest {
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.ArvoreSubcadeias#consulta(int, int)}.
+	 *
+	 * Intercala alteracoes de itens e consultas de trechos aleatorios, comparando com o calculo sobre uma copia do trecho.
+	 *
+	 */
+	@Test
+	public void testConsultaIgualCalcula() {
+		final Random aleatorio = new Random(19);
+		for (int tamanho : new int[] { 1, 2, 3, 5, 64, 100, 1000 }) {
+			final long[] cadeia = new long[tamanho];
+			for (int i = 0; i < tamanho; i++) {
+				cadeia[i] = aleatorio.nextInt(9) - 4;
+			}
+			final ArvoreSubcadeias arvore = new ArvoreSubcadeias(cadeia);
+			assertEquals(tamanho, arvore.getTamanho());
+			assertEquals(SubcadeiaSomaMaxima.calcula(cadeia), arvore.getResultado());
+			for (int operacao = 0; operacao < 2000; operacao++) {
+				if (aleatorio.nextInt(3) == 0) {
+					final int posicao = aleatorio.nextInt(tamanho);
+					cadeia[posicao] = aleatorio.nextInt(9) - 4;
+					arvore.atualiza(posicao, cadeia[posicao]);
+					assertEquals(cadeia[posicao], arvore.item(posicao));
+				} else {
+					final int inicio = aleatorio.nextInt(tamanho);
+					final int fim = inicio + aleatorio.nextInt(tamanho - inicio);
+					assertEquals(esperado(cadeia, inicio, fim), arvore.consulta(inicio, fim));
+				}
+			}
+			assertEquals(SubcadeiaSomaMaxima.calcula(cadeia), arvore.getResultado());
+			assertEquals(SubcadeiaSomaMaxima.calcula(cadeia), arvore.consulta(0, tamanho - 1));
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.ArvoreSubcadeias#ArvoreSubcadeias(int[])}.
+	 *
+	 * A arvore construida a partir de inteiros de 32 bits responde como a construida com inteiros longos.
+	 *
+	 */
+	@Test
+	public void testArvoreInteiros() {
+		final int[] cadeia = { 2, -4, 6, 8, -10, 100, -6, 5 };
+		final ArvoreSubcadeias arvore = new ArvoreSubcadeias(cadeia);
+		assertEquals(new ResultadoSomaMaxima(104, 2, 5), arvore.getResultado());
+		assertEquals(new ResultadoSomaMaxima(14, 2, 3), arvore.consulta(0, 4));
+		assertEquals(new ResultadoSomaMaxima(0, 0, 0), arvore.consulta(1, 1));
+		arvore.atualiza(4, -20);
+		assertEquals(new ResultadoSomaMaxima(100, 5, 5), arvore.getResultado());
+		assertTrue(new ArvoreSubcadeias(new int[0]).getResultado().isVazio());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.ArvoreSubcadeias#consulta(int, int)}.
+	 *
+	 * Verifica o comportamento do sistema no caso de um trecho fora da cadeia.
+	 *
+	 */
+	@Test(expected = CalculoErro.class)
+	public void testConsultaTrechoInvalido() {
+		new ArvoreSubcadeias(new long[] { 1, 2, 3 }).consulta(1, 3);
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.ArvoreSubcadeias#atualiza(int, long)}.
+	 *
+	 * Verifica o comportamento do sistema no caso de uma posicao fora da cadeia.
+	 *
+	 */
+	@Test(expected = CalculoErro.class)
+	public void testAtualizaPosicaoInvalida() {
+		new ArvoreSubcadeias(new long[] { 1, 2, 3 }).atualiza(-1, 0);
+	}
+
+	private static ResultadoSomaMaxima esperado(long[] cadeia, int inicio, int fim) {
+		final ResultadoSomaMaxima trecho = SubcadeiaSomaMaxima.calcula(Arrays.copyOfRange(cadeia, inicio, fim + 1));
+		return trecho.isVazio() ? trecho : new ResultadoSomaMaxima(trecho.getSoma(), trecho.getPosicaoInicial() + inicio,
+				trecho.getPosicaoFinal() + inicio);
+	}
+
+}
@@ -0,0 +1,108 @@
+/**
+ *
+ */
+package test.br.com.rjansen.desafios;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import br.com.rjansen.desafios.CadeiaMapeada;
+import br.com.rjansen.desafios.CadeiaMapeada.FormatoBinario;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.CalculoErro;
+
+/**
+ * @author raphaeljansen
+ *
+ * Classe responsavel por efetuar os testes na classe CadeiaMapeada.
+ *
+ */
+public class CadeiaMapeadaTest {
+
+	@Rule
+	public TemporaryFolder pastaTemporaria = new TemporaryFolder();
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CadeiaMapeada#calcula(int)}.
+	 *
+	 * Converte uma cadeia para os dois formatos binarios e compara o calculo sobre o arquivo mapeado com o calculo em memoria.
+	 *
+	 */
+	@Test
+	public void testCalculaIgualCalcula() throws IOException {
+		final Random aleatorio = new Random(17);
+		final long[] cadeia = new long[300000];
+		final StringBuilder texto = new StringBuilder();
+		for (int i = 0; i < cadeia.length; i++) {
+			cadeia[i] = aleatorio.nextInt(201) - 100;
+			texto.append(cadeia[i]).append('\n');
+		}
+		for (FormatoBinario formato : FormatoBinario.values()) {
+			final Path arquivo = pastaTemporaria.newFile("cadeia." + formato.getApelido()).toPath();
+			assertEquals(300000L, CadeiaMapeada.converte(new ByteArrayInputStream(texto.toString().getBytes(
+					StandardCharsets.US_ASCII)), arquivo, formato));
+			assertEquals(300000L * formato.getTamanhoItem(), Files.size(arquivo));
+			try (final CadeiaMapeada mapeada = CadeiaMapeada.abre(arquivo, formato)) {
+				assertEquals(300000L, mapeada.getQuantidade());
+				assertEquals(cadeia[0], mapeada.item(0));
+				assertEquals(cadeia[299999], mapeada.item(299999));
+				for (int paralelismo : new int[] { 1, 3 }) {
+					assertEquals(SubcadeiaSomaMaxima.calcula(cadeia), mapeada.calcula(paralelismo));
+				}
+				assertEquals(SubcadeiaSomaMaxima.calcula(cadeia), mapeada.resume(0, 300000).getResultado());
+			}
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CadeiaMapeada#converte(java.io.InputStream, java.nio.file.Path, br.com.rjansen.desafios.CadeiaMapeada.FormatoBinario)}.
+	 *
+	 * Verifica o comportamento do sistema no caso de um numero que nao cabe em 32 bits.
+	 *
+	 */
+	@Test(expected = CalculoErro.class)
+	public void testConverteExcedeFormato() throws IOException {
+		CadeiaMapeada.converte(new ByteArrayInputStream("1, 2147483648".getBytes(StandardCharsets.US_ASCII)),
+				pastaTemporaria.newFile().toPath(), FormatoBinario.INT32);
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CadeiaMapeada#abre(java.nio.file.Path, br.com.rjansen.desafios.CadeiaMapeada.FormatoBinario)}.
+	 *
+	 * Verifica o comportamento do sistema no caso de um arquivo que nao contem uma quantidade inteira de itens.
+	 *
+	 */
+	@Test(expected = CalculoErro.class)
+	public void testAbreArquivoInvalido() throws IOException {
+		final Path arquivo = pastaTemporaria.newFile().toPath();
+		Files.write(arquivo, new byte[12]);
+		CadeiaMapeada.abre(arquivo, FormatoBinario.INT64);
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CadeiaMapeada#item(long)}.
+	 *
+	 * Verifica o comportamento do sistema no caso de uma posicao fora da cadeia.
+	 *
+	 */
+	@Test(expected = CalculoErro.class)
+	public void testItemPosicaoInvalida() throws IOException {
+		final Path arquivo = pastaTemporaria.newFile().toPath();
+		Files.write(arquivo, new byte[8]);
+		try (final CadeiaMapeada mapeada = CadeiaMapeada.abre(arquivo, FormatoBinario.INT32)) {
+			assertEquals(0L, mapeada.item(1));
+			mapeada.item(2);
+		}
+	}
+
+}
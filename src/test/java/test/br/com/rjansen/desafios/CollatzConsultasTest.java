@@ -0,0 +1,154 @@
+/**
+ *
+ */
+package test.br.com.rjansen.desafios;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import br.com.rjansen.desafios.Collatz;
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+import br.com.rjansen.desafios.CollatzConsultas;
+
+/**
+ * @author raphaeljansen
+ *
+ * Classe responsavel por efetuar os testes na classe CollatzConsultas.
+ *
+ */
+public class CollatzConsultasTest {
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzConsultas#tamanho(long)}.
+	 *
+	 * Compara os tamanhos com os da caminhada completa utilizando um cache pequeno, que precisa substituir entradas.
+	 *
+	 */
+	@Test
+	public void testTamanhoIgualCaminhadaCompleta() {
+		final CollatzConsultas consultas = new CollatzConsultas(8);
+		for (long k = 1; k <= 20000; k++) {
+			assertEquals(Collatz.tamanhoSequencia(k), consultas.tamanho(k));
+		}
+		final long grande = (1L << 60) + 27;
+		assertEquals(Collatz.tamanhoSequencia(grande), consultas.tamanho(grande));
+		assertEquals(20001L, consultas.getConsultas());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzConsultas#processa(java.io.BufferedReader, java.io.Writer)}.
+	 *
+	 * Responde um lote com todos os formatos de consulta e verifica os contadores de acerto do cache.
+	 *
+	 */
+	@Test
+	public void testProcessa() throws IOException {
+		final CollatzConsultas consultas = new CollatzConsultas();
+		final StringWriter saida = new StringWriter();
+		final long respondidas = consultas.processa(new BufferedReader(new StringReader(
+				"27\ntamanho 27\n\nsequencia 13\n41\nabc\n0\n")), saida);
+		assertEquals(6L, respondidas);
+		final String[] linhas = saida.toString().split("\n");
+		assertEquals("27 112", linhas[0]);
+		assertEquals("27 112", linhas[1]);
+		assertEquals("13 13 40 20 10 5 16 8 4 2 1", linhas[2]);
+		assertEquals("41 110", linhas[3]);
+		assertTrue(linhas[4].startsWith("ERRO NumeroInicialInvalido"));
+		assertTrue(linhas[5].startsWith("ERRO NumeroInicialInvalido"));
+		// 27 calculado, 27 repetido, 41 ja visitado pela caminhada do 27
+		assertEquals(3L, consultas.getConsultas());
+		assertEquals(2L, consultas.getAcertos());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzConsultas#atende(java.net.ServerSocket, int)}.
+	 *
+	 * Envia consultas por duas conexoes, que compartilham o mesmo cache, e consulta os contadores por uma terceira.
+	 *
+	 */
+	@Test
+	public void testAtende() throws Exception {
+		final CollatzConsultas consultas = new CollatzConsultas();
+		final ServerSocket servidor = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		final Thread atendimento = new Thread(() -> consultas.atende(servidor, 2));
+		try {
+			atendimento.start();
+			assertEquals("97 119", consulta(servidor.getLocalPort(), "97"));
+			assertEquals("97 119", consulta(servidor.getLocalPort(), "tamanho 97"));
+			assertEquals("Consultas=2 Acertos=1 TaxaAcerto=0.5000", consulta(servidor.getLocalPort(), "estatisticas"));
+		} finally {
+			servidor.close();
+		}
+		atendimento.join(10000);
+		assertFalse(atendimento.isAlive());
+		assertEquals(2L, consultas.getConsultas());
+		assertEquals(1L, consultas.getAcertos());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzConsultas#atende(java.net.ServerSocket, int)}.
+	 *
+	 * Uma falha ao aceitar uma conexao nao deve encerrar o atendimento.
+	 *
+	 */
+	@Test
+	public void testAtendeFalhaAoAceitar() throws Exception {
+		final CollatzConsultas consultas = new CollatzConsultas();
+		final AtomicInteger falhas = new AtomicInteger(2);
+		final ServerSocket servidor = new ServerSocket(0, 50, InetAddress.getLoopbackAddress()) {
+			@Override
+			public Socket accept() throws IOException {
+				if (falhas.getAndDecrement() > 0)
+					throw new IOException("Too many open files");
+				return super.accept();
+			}
+		};
+		final Thread atendimento = new Thread(() -> consultas.atende(servidor, 1));
+		try {
+			atendimento.start();
+			assertEquals("27 112", consulta(servidor.getLocalPort(), "27"));
+		} finally {
+			servidor.close();
+		}
+		atendimento.join(10000);
+		assertFalse(atendimento.isAlive());
+	}
+
+	private static String consulta(int porta, String consulta) throws IOException {
+		try (final Socket socket = new Socket(InetAddress.getLoopbackAddress(), porta);
+				final Writer saida = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+				final BufferedReader entrada = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+						StandardCharsets.UTF_8))) {
+			saida.write(consulta + "\n");
+			saida.flush();
+			socket.shutdownOutput();
+			return entrada.readLine();
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzConsultas#CollatzConsultas(int)}.
+	 *
+	 * Verifica o comportamento do sistema no caso de um tamanho de cache invalido.
+	 *
+	 */
+	@Test(expected = CollatzErro.class)
+	public void testBitsCacheInvalido() {
+		new CollatzConsultas(31);
+	}
+
+}
@@ -0,0 +1,123 @@
+/**
+ *
+ */
+package test.br.com.rjansen.desafios;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+import br.com.rjansen.desafios.CollatzCoordenador;
+import br.com.rjansen.desafios.CollatzIntervalo;
+import br.com.rjansen.desafios.CollatzRanking;
+import br.com.rjansen.desafios.CollatzTrabalhador;
+
+/**
+ * @author raphaeljansen
+ *
+ * Classe responsavel por efetuar os testes na classe CollatzCoordenador.
+ *
+ */
+public class CollatzCoordenadorTest {
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzCoordenador#coordena(java.net.ServerSocket)}.
+	 *
+	 * Distribui a varredura entre dois trabalhadores e compara com o modo ranking.
+	 *
+	 */
+	@Test
+	public void testCoordenaIgualRanking() throws Exception {
+		final CollatzCoordenador coordenador = new CollatzCoordenador(200000L, 10000L, 10, 0);
+		final ServerSocket servidor = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		final Thread trabalhador1 = iniciaTrabalhador(servidor.getLocalPort());
+		final Thread trabalhador2 = iniciaTrabalhador(servidor.getLocalPort());
+		final CollatzRanking ranking = coordenador.coordena(servidor);
+		trabalhador1.join(10000);
+		trabalhador2.join(10000);
+		assertEquals(new CollatzIntervalo(200000L).executaRanking(10, 1).getMaioresSequencias(),
+				ranking.getMaioresSequencias());
+		assertEquals(156159L, ranking.getResultado().getNumeroMaiorSequencia());
+		assertEquals(20L, coordenador.getQuantidadeConcluidas());
+		assertEquals(0L, coordenador.getQuantidadeReatribuidas());
+		assertTrue(servidor.isClosed());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzCoordenador#coordena(java.net.ServerSocket)}.
+	 *
+	 * Um trabalhador cai depois de receber uma fatia; a fatia deve ser entregue a outro trabalhador.
+	 *
+	 */
+	@Test
+	public void testReatribuiFatiaDeTrabalhadorQueCaiu() throws Exception {
+		final CollatzCoordenador coordenador = new CollatzCoordenador(100000L, 10000L, 5, 0);
+		final ServerSocket servidor = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		final FutureTask<CollatzRanking> coordenacao = new FutureTask<>(() -> coordenador.coordena(servidor));
+		new Thread(coordenacao).start();
+		final Thread queda = new Thread(() -> {
+			try (final Socket socket = new Socket(InetAddress.getLoopbackAddress(), servidor.getLocalPort());
+					final BufferedReader entrada = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+							StandardCharsets.UTF_8))) {
+				assertTrue(entrada.readLine().startsWith("VARREDURA"));
+				assertTrue(entrada.readLine().startsWith("FATIA 0 "));
+			} catch (IOException e) {
+				throw new CollatzErro(e);
+			}
+		});
+		queda.start();
+		queda.join(10000);
+		assertFalse(queda.isAlive());
+		final Thread trabalhador = iniciaTrabalhador(servidor.getLocalPort());
+		final CollatzRanking ranking = coordenacao.get(30, TimeUnit.SECONDS);
+		trabalhador.join(10000);
+		assertEquals(1L, coordenador.getQuantidadeReatribuidas());
+		assertEquals(77031L, ranking.getResultado().getNumeroMaiorSequencia());
+		assertEquals(351, ranking.getResultado().getTamanhoMaiorSequencia());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzCoordenador#cancela()}.
+	 *
+	 * Sem trabalhadores a coordenacao so termina cancelada.
+	 *
+	 */
+	@Test(expected = CollatzErro.class)
+	public void testCancela() throws Exception {
+		final CollatzCoordenador coordenador = new CollatzCoordenador(1000L, 100L, 5, 0);
+		final Thread cancelamento = new Thread(() -> {
+			try {
+				Thread.sleep(200);
+			} catch (InterruptedException e) {
+				return;
+			}
+			coordenador.cancela();
+		});
+		cancelamento.start();
+		coordenador.coordena(new ServerSocket(0, 50, InetAddress.getLoopbackAddress()));
+	}
+
+	private static Thread iniciaTrabalhador(int porta) {
+		final Thread trabalhador = new Thread(() -> {
+			try {
+				new CollatzTrabalhador(1).trabalha(new Socket(InetAddress.getLoopbackAddress(), porta));
+			} catch (IOException e) {
+				throw new CollatzErro(e);
+			}
+		});
+		trabalhador.start();
+		return trabalhador;
+	}
+
+}
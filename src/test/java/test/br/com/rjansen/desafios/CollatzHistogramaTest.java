@@ -0,0 +1,94 @@
+/**
+ *
+ */
+package test.br.com.rjansen.desafios;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import br.com.rjansen.desafios.Collatz;
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+import br.com.rjansen.desafios.CollatzHistograma;
+import br.com.rjansen.desafios.CollatzIntervalo;
+
+/**
+ * @author raphaeljansen
+ *
+ * Classe responsavel por efetuar os testes na classe CollatzHistograma.
+ *
+ */
+public class CollatzHistogramaTest {
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzIntervalo#executaHistograma(int)}.
+	 *
+	 * Compara a distribuicao com a obtida avaliando cada sequencia completa.
+	 *
+	 */
+	@Test
+	public void testExecutaHistogramaIgualForcaBruta() {
+		final long limite = 200000L;
+		final int[] tamanhos = new int[(int) limite];
+		final long[] contagemTamanhos = new long[1024];
+		final long[] contagemFaixasPico = new long[CollatzHistograma.QUANTIDADE_FAIXAS_PICO];
+		for (long k = 1; k <= limite; k++) {
+			final int tamanho = Collatz.tamanhoSequencia(k);
+			tamanhos[(int) k - 1] = tamanho;
+			contagemTamanhos[tamanho]++;
+			contagemFaixasPico[CollatzHistograma.faixaPico(Collatz.sequencia(k).max().getAsLong())]++;
+		}
+		Arrays.sort(tamanhos);
+		for (int paralelismo : new int[] { 1, 4 }) {
+			final CollatzHistograma histograma = new CollatzIntervalo(limite).executaHistograma(paralelismo);
+			assertEquals(limite, histograma.getQuantidade());
+			for (int i = 0; i < contagemTamanhos.length; i++) {
+				assertEquals(contagemTamanhos[i], histograma.getContagemTamanho(i));
+			}
+			for (int i = 0; i < contagemFaixasPico.length; i++) {
+				assertEquals(contagemFaixasPico[i], histograma.getContagemFaixaPico(i));
+			}
+			assertEquals(tamanhos[(int) limite / 2 - 1], histograma.getPercentilTamanho(50));
+			assertEquals(tamanhos[(int) limite - 1], histograma.getPercentilTamanho(100));
+			assertEquals(156159L, histograma.getResultado().getNumeroMaiorSequencia());
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzHistograma#faixaPico(long)}.
+	 *
+	 * Verifica que as faixas sao crescentes e que os limites de cada faixa a reproduzem.
+	 *
+	 */
+	@Test
+	public void testFaixaPico() {
+		assertEquals(1, CollatzHistograma.faixaPico(1L));
+		assertEquals(8, CollatzHistograma.faixaPico(4L));
+		assertEquals(12, CollatzHistograma.faixaPico(8L));
+		assertEquals(12, CollatzHistograma.faixaPico(9L));
+		assertEquals(CollatzHistograma.QUANTIDADE_FAIXAS_PICO - 5, CollatzHistograma.faixaPico(Long.MAX_VALUE));
+		assertEquals(Long.MAX_VALUE, CollatzHistograma.maiorValorFaixaPico(CollatzHistograma.faixaPico(Long.MAX_VALUE)));
+		int faixaAnterior = 0;
+		for (long valor = 1; valor < 100000; valor++) {
+			final int faixa = CollatzHistograma.faixaPico(valor);
+			assertTrue(faixa >= faixaAnterior);
+			assertTrue(CollatzHistograma.menorValorFaixaPico(faixa) <= valor);
+			assertTrue(CollatzHistograma.maiorValorFaixaPico(faixa) >= valor);
+			faixaAnterior = faixa;
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzHistograma#getPercentilTamanho(double)}.
+	 *
+	 * Verifica o comportamento do sistema no caso de um percentual invalido.
+	 *
+	 */
+	@Test(expected = CollatzErro.class)
+	public void testPercentualInvalido() {
+		new CollatzIntervalo(100L).executaHistograma(1).getPercentilTamanho(0);
+	}
+
+}
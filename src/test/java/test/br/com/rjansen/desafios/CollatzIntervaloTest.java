@@ -0,0 +1,158 @@
+/**
+ *
+ */
+package test.br.com.rjansen.desafios;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import br.com.rjansen.desafios.Collatz;
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+import br.com.rjansen.desafios.CollatzIntervalo;
+import br.com.rjansen.desafios.CollatzIntervalo.ResultadoIntervalo;
+
+/**
+ * @author raphaeljansen
+ *
+ * Classe responsavel por efetuar os testes na classe CollatzIntervalo.
+ *
+ */
+public class CollatzIntervaloTest {
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzIntervalo#tamanho(long)}.
+	 *
+	 * Compara o tamanho obtido com a tabela com o tamanho da sequencia gerada passo a passo.
+	 *
+	 */
+	@Test
+	public void testTamanhoIgualSequenciaGerada() {
+		final CollatzIntervalo intervalo = new CollatzIntervalo(2000L);
+		final Collatz collatz = new Collatz();
+		for (long k = 1; k <= 2000L; k++) {
+			collatz.executa(k);
+			assertEquals("Tamanho invalido para " + k, collatz.getSequenciaGerada().size(), intervalo.tamanho(k));
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzIntervalo#executa()}.
+	 *
+	 * Valida o resultado conhecido para o intervalo do desafio.
+	 *
+	 */
+	@Test
+	public void testExecuta() {
+		final ResultadoIntervalo resultado = new CollatzIntervalo(1000000L).executa();
+		assertEquals(837799L, resultado.getNumeroMaiorSequencia());
+		assertEquals(525, resultado.getTamanhoMaiorSequencia());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzIntervalo#executa()}.
+	 *
+	 * Valida que uma tabela menor que o intervalo produz o mesmo resultado.
+	 *
+	 */
+	@Test
+	public void testExecutaTabelaReduzida() {
+		final ResultadoIntervalo resultado = new CollatzIntervalo(1000000L, 1000L).executa();
+		assertEquals(837799L, resultado.getNumeroMaiorSequencia());
+		assertEquals(525, resultado.getTamanhoMaiorSequencia());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzIntervalo#executaParalelo(int)}.
+	 *
+	 * Valida que a varredura paralela produz o mesmo resultado da sequencial, inclusive nos empates.
+	 *
+	 */
+	@Test
+	public void testExecutaParaleloIgualSequencial() {
+		for (long limite : new long[] { 1L, 2L, 19L, 97L, 1000L, 131073L, 1000000L }) {
+			final ResultadoIntervalo sequencial = new CollatzIntervalo(limite).executa();
+			final ResultadoIntervalo paralelo = new CollatzIntervalo(limite).executaParalelo(4);
+			assertEquals("Numero invalido para " + limite, sequencial.getNumeroMaiorSequencia(), paralelo.getNumeroMaiorSequencia());
+			assertEquals("Tamanho invalido para " + limite, sequencial.getTamanhoMaiorSequencia(), paralelo.getTamanhoMaiorSequencia());
+		}
+		// 18 e 19 geram sequencias de 21 itens, prevalece o menor
+		assertEquals(18L, new CollatzIntervalo(19L).executaParalelo(2).getNumeroMaiorSequencia());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzIntervalo#executaPodado(int)}.
+	 *
+	 * Valida que a busca podada produz o mesmo resultado da varredura completa avaliando menos numeros.
+	 *
+	 */
+	@Test
+	public void testExecutaPodadoIgualSequencial() {
+		for (long limite = 1; limite <= 3000L; limite++) {
+			final ResultadoIntervalo sequencial = new CollatzIntervalo(limite).executa();
+			final ResultadoIntervalo podado = new CollatzIntervalo(limite).executaPodado(2);
+			assertEquals("Numero invalido para " + limite, sequencial.getNumeroMaiorSequencia(), podado.getNumeroMaiorSequencia());
+			assertEquals("Tamanho invalido para " + limite, sequencial.getTamanhoMaiorSequencia(), podado.getTamanhoMaiorSequencia());
+		}
+		final ResultadoIntervalo podado = new CollatzIntervalo(1000000L).executaPodado(4);
+		assertEquals(837799L, podado.getNumeroMaiorSequencia());
+		assertTrue("Poucos numeros descartados", podado.getQuantidadeAvaliada() < 400000L);
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzIntervalo#isDescartavel(long, long)}.
+	 *
+	 * Verifica as regras de descarte contra os tamanhos reais das sequencias.
+	 *
+	 */
+	@Test
+	public void testIsDescartavel() {
+		final long limite = 100000L;
+		for (long k = 1; k <= limite; k++) {
+			if (k > limite / 2 && k % 6 == 4 && k > 4) {
+				assertTrue(Collatz.tamanhoSequencia((k - 1) / 3) > Collatz.tamanhoSequencia(k));
+			}
+			if (k > limite / 2 && (k & 7) == 5 && k > 5) {
+				assertEquals(Collatz.tamanhoSequencia(k - 1), Collatz.tamanhoSequencia(k));
+			}
+		}
+		assertFalse(CollatzIntervalo.isDescartavel(4L, 4L));
+		assertFalse(CollatzIntervalo.isDescartavel(5L, 5L));
+		assertTrue(CollatzIntervalo.isDescartavel(13L, 13L));
+		assertTrue(CollatzIntervalo.isDescartavel(10L, 20L));
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzIntervalo#CollatzIntervalo(long)}.
+	 *
+	 * Verifica o comportamento do sistema no caso de um limite invalido.
+	 *
+	 */
+	@Test(expected = CollatzErro.class)
+	public void testLimiteInvalido() {
+		new CollatzIntervalo(0L);
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzIntervalo#tamanho(long)}.
+	 *
+	 * Verifica o comportamento do sistema no caso do numero inicial 0, que nunca chegaria ao 1.
+	 *
+	 */
+	@Test(expected = CollatzErro.class)
+	public void testTamanhoNumeroZero() {
+		new CollatzIntervalo(100L).tamanho(0L);
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzIntervalo#tamanho(long)}.
+	 *
+	 * Verifica o comportamento do sistema no caso de um numero inicial negativo.
+	 *
+	 */
+	@Test(expected = CollatzErro.class)
+	public void testTamanhoNumeroNegativo() {
+		new CollatzIntervalo(100L).tamanho(-3L);
+	}
+
+}
@@ -0,0 +1,83 @@
+/**
+ *
+ */
+package test.br.com.rjansen.desafios;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import br.com.rjansen.desafios.Collatz;
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+import br.com.rjansen.desafios.CollatzIntervalo;
+import br.com.rjansen.desafios.CollatzIntervalo.ResultadoIntervalo;
+import br.com.rjansen.desafios.CollatzIntervalo.TabelaMemoria;
+import br.com.rjansen.desafios.CollatzPistas;
+
+/**
+ * @author raphaeljansen
+ *
+ * Classe responsavel por efetuar os testes na classe CollatzPistas.
+ *
+ */
+public class CollatzPistasTest {
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzPistas#tamanhos(long, int)}.
+	 *
+	 * Compara o tamanho de cada numero com o da caminhada completa, para varias quantidades de pistas.
+	 *
+	 */
+	@Test
+	public void testTamanhosIgualCaminhadaCompleta() {
+		for (int quantidadePistas : new int[] { 1, 3, 4, 16 }) {
+			final CollatzPistas pistas = new CollatzPistas(TabelaMemoria.paraLimite(100000L), quantidadePistas);
+			final int[] tamanhos = pistas.tamanhos(1L, 100000);
+			for (int i = 0; i < tamanhos.length; i++) {
+				assertEquals(Collatz.tamanhoSequencia(i + 1L), tamanhos[i]);
+			}
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzPistas#tamanhos(long, int)}.
+	 *
+	 * Numeros fora da tabela e trajetorias que ultrapassam o inteiro longo deixam a pista e continuam com precisao arbitraria.
+	 *
+	 */
+	@Test
+	public void testTamanhosEstouroInteiroLongo() {
+		final long inicio = (1L << 60) + 1;
+		final int[] tamanhos = new CollatzPistas(new TabelaMemoria(1000L)).tamanhos(inicio, 64);
+		for (int i = 0; i < tamanhos.length; i++) {
+			assertEquals(Collatz.tamanhoSequencia(inicio + i), tamanhos[i]);
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzIntervalo#executaPistas(int, int)}.
+	 *
+	 * A varredura por pistas deve encontrar o mesmo resultado da varredura sequencial.
+	 *
+	 */
+	@Test
+	public void testExecutaPistasIgualSequencial() {
+		final ResultadoIntervalo esperado = new CollatzIntervalo(1000000L).executa();
+		final ResultadoIntervalo resultado = new CollatzIntervalo(1000000L).executaPistas(4, 4);
+		assertEquals(esperado.getNumeroMaiorSequencia(), resultado.getNumeroMaiorSequencia());
+		assertEquals(esperado.getTamanhoMaiorSequencia(), resultado.getTamanhoMaiorSequencia());
+		assertEquals(837799L, resultado.getNumeroMaiorSequencia());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzPistas#CollatzPistas(br.com.rjansen.desafios.CollatzIntervalo.TabelaTamanhos, int)}.
+	 *
+	 * Verifica o comportamento do sistema no caso de uma quantidade de pistas invalida.
+	 *
+	 */
+	@Test(expected = CollatzErro.class)
+	public void testQuantidadePistasInvalida() {
+		new CollatzPistas(TabelaMemoria.paraLimite(10L), 0);
+	}
+
+}
@@ -0,0 +1,98 @@
+/**
+ *
+ */
+package test.br.com.rjansen.desafios;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import br.com.rjansen.desafios.Collatz;
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+import br.com.rjansen.desafios.CollatzIntervalo;
+import br.com.rjansen.desafios.CollatzIntervalo.TabelaMemoria;
+import br.com.rjansen.desafios.CollatzPontoControle;
+import br.com.rjansen.desafios.CollatzRanking;
+import br.com.rjansen.desafios.CollatzSaltos;
+
+/**
+ * @author raphaeljansen
+ *
+ * Classe responsavel por efetuar os testes na classe CollatzPontoControle.
+ *
+ */
+public class CollatzPontoControleTest {
+
+	@Rule
+	public TemporaryFolder pastaTemporaria = new TemporaryFolder();
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzIntervalo#executaRetomavel(CollatzPontoControle, int, long)}.
+	 *
+	 * A varredura completa deve encontrar as mesmas maiores sequencias que o modo ranking.
+	 *
+	 */
+	@Test
+	public void testExecutaRetomavelIgualRanking() {
+		final Path arquivo = pastaTemporaria.getRoot().toPath().resolve("varredura.pc");
+		final CollatzPontoControle pontoControle = CollatzPontoControle.abre(arquivo, 200000L, 10, 10000L);
+		final CollatzRanking ranking = new CollatzIntervalo(200000L, TabelaMemoria.paraLimite(200000L), new CollatzSaltos())
+				.executaRetomavel(pontoControle, 4, 1000L);
+		assertEquals(new CollatzIntervalo(200000L).executaRanking(10, 1).getMaioresSequencias(),
+				ranking.getMaioresSequencias());
+		assertEquals(156159L, ranking.getResultado().getNumeroMaiorSequencia());
+		assertTrue(pontoControle.isCompleto());
+		assertTrue(Files.exists(arquivo));
+		assertTrue(CollatzPontoControle.abre(arquivo, 200000L, 10).isCompleto());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzPontoControle#abre(java.nio.file.Path, long, int, long)}.
+	 *
+	 * Simula uma varredura interrompida e a retoma com outro paralelismo; os blocos ja concluidos nao sao reavaliados.
+	 *
+	 */
+	@Test
+	public void testRetomaVarreduraInterrompida() {
+		final Path arquivo = pastaTemporaria.getRoot().toPath().resolve("varredura.pc");
+		final CollatzPontoControle interrompido = CollatzPontoControle.abre(arquivo, 200000L, 5, 10000L);
+		for (long bloco = 0; bloco < 8; bloco++) {
+			final CollatzRanking rankingBloco = new CollatzRanking(interrompido.getFimBloco(bloco), 5);
+			for (long k = interrompido.getInicioBloco(bloco); k <= interrompido.getFimBloco(bloco); k++) {
+				rankingBloco.registraTamanho(k, Collatz.tamanhoSequencia(k));
+			}
+			interrompido.conclui(bloco, rankingBloco);
+		}
+		// o bloco 15 contem o vencedor 156159 e e marcado como concluido sem nenhuma sequencia
+		interrompido.conclui(15, new CollatzRanking(interrompido.getFimBloco(15), 5));
+		interrompido.grava();
+
+		final CollatzPontoControle retomado = CollatzPontoControle.abre(arquivo, 200000L, 5, 1L);
+		assertEquals(10000L, retomado.getTamanhoBloco());
+		assertEquals(9L, retomado.getQuantidadeBlocosConcluidos());
+		assertEquals(interrompido.getRanking().getMaioresSequencias(), retomado.getRanking().getMaioresSequencias());
+		final CollatzRanking ranking = new CollatzIntervalo(200000L).executaRetomavel(retomado, 1, 1000L);
+		assertTrue(retomado.isCompleto());
+		assertEquals(142587L, ranking.getResultado().getNumeroMaiorSequencia());
+		assertEquals(375, ranking.getResultado().getTamanhoMaiorSequencia());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzPontoControle#abre(java.nio.file.Path, long, int)}.
+	 *
+	 * Verifica o comportamento do sistema no caso de um ponto de controle de outra varredura.
+	 *
+	 */
+	@Test(expected = CollatzErro.class)
+	public void testPontoControleIncompativel() {
+		final Path arquivo = pastaTemporaria.getRoot().toPath().resolve("varredura.pc");
+		CollatzPontoControle.abre(arquivo, 1000L, 10).grava();
+		CollatzPontoControle.abre(arquivo, 2000L, 10);
+	}
+
+}
@@ -0,0 +1,91 @@
+/**
+ *
+ */
+package test.br.com.rjansen.desafios;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import br.com.rjansen.desafios.Collatz;
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+import br.com.rjansen.desafios.CollatzIntervalo;
+import br.com.rjansen.desafios.CollatzRanking;
+import br.com.rjansen.desafios.CollatzRanking.ItemRanking;
+
+/**
+ * @author raphaeljansen
+ *
+ * Classe responsavel por efetuar os testes na classe CollatzRanking.
+ *
+ */
+public class CollatzRankingTest {
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzIntervalo#executaRanking(int, int)}.
+	 *
+	 * Compara o ranking e os recordes com os obtidos avaliando cada sequencia completa.
+	 *
+	 */
+	@Test
+	public void testExecutaRankingIgualForcaBruta() {
+		final long limite = 200000L;
+		final int quantidade = 15;
+		final List<ItemRanking> recordesTamanho = new ArrayList<>();
+		final List<ItemRanking> recordesPico = new ArrayList<>();
+		final CollatzRanking esperado = new CollatzRanking(limite, quantidade);
+		for (long k = 1; k <= limite; k++) {
+			final int tamanho = Collatz.tamanhoSequencia(k);
+			final long pico = Collatz.sequencia(k).max().getAsLong();
+			if (recordesTamanho.isEmpty() || tamanho > recordesTamanho.get(recordesTamanho.size() - 1).getValor()) {
+				recordesTamanho.add(new ItemRanking(k, tamanho));
+			}
+			if (recordesPico.isEmpty() || pico > recordesPico.get(recordesPico.size() - 1).getValor()) {
+				recordesPico.add(new ItemRanking(k, pico));
+			}
+			esperado.registra(k, tamanho, pico);
+		}
+		for (int paralelismo : new int[] { 1, 4 }) {
+			final CollatzRanking ranking = new CollatzIntervalo(limite).executaRanking(quantidade, paralelismo);
+			assertEquals(recordesTamanho, ranking.getRecordesTamanho());
+			assertEquals(recordesPico, ranking.getRecordesPico());
+			assertEquals(esperado.getMaioresSequencias(), ranking.getMaioresSequencias());
+			assertEquals(156159L, ranking.getResultado().getNumeroMaiorSequencia());
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzRanking#getMaioresSequencias()}.
+	 *
+	 * Verifica a ordenacao e o desempate pelo menor numero.
+	 *
+	 */
+	@Test
+	public void testMaioresSequencias() {
+		final CollatzRanking ranking = new CollatzRanking(10L, 3);
+		ranking.registra(1L, 5, 1L);
+		ranking.registra(2L, 9, 1L);
+		ranking.registra(3L, 7, 1L);
+		ranking.registra(4L, 9, 1L);
+		ranking.registra(5L, 2, 1L);
+		ranking.registra(6L, 8, 1L);
+		assertEquals(Arrays.asList(new ItemRanking(2L, 9L), new ItemRanking(4L, 9L), new ItemRanking(6L, 8L)),
+				ranking.getMaioresSequencias());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzRanking#CollatzRanking(long, int)}.
+	 *
+	 * Verifica o comportamento do sistema no caso de uma quantidade invalida.
+	 *
+	 */
+	@Test(expected = CollatzErro.class)
+	public void testQuantidadeInvalida() {
+		new CollatzRanking(10L, 0);
+	}
+
+}
@@ -0,0 +1,83 @@
+/**
+ *
+ */
+package test.br.com.rjansen.desafios;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import br.com.rjansen.desafios.Collatz;
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+import br.com.rjansen.desafios.CollatzIntervalo;
+import br.com.rjansen.desafios.CollatzIntervalo.ResultadoIntervalo;
+import br.com.rjansen.desafios.CollatzIntervalo.TabelaMemoria;
+import br.com.rjansen.desafios.CollatzSaltos;
+
+/**
+ * @author raphaeljansen
+ *
+ * Classe responsavel por efetuar os testes na classe CollatzSaltos.
+ *
+ */
+public class CollatzSaltosTest {
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzSaltos#tamanhoSequencia(long)}.
+	 *
+	 * Compara os tamanhos obtidos com saltos de diferentes tamanhos com a caminhada passo a passo.
+	 *
+	 */
+	@Test
+	public void testTamanhoSequenciaIgualPassoAPasso() {
+		for (int bits : new int[] { 1, 4, 16, 20 }) {
+			final CollatzSaltos saltos = new CollatzSaltos(bits);
+			for (long k = 1; k <= 20000L; k++) {
+				assertEquals("Tamanho invalido para " + k + " bits " + bits, Collatz.tamanhoSequencia(k), saltos.tamanhoSequencia(k));
+			}
+			assertEquals(Collatz.tamanhoSequencia(989345275647L), saltos.tamanhoSequencia(989345275647L));
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzSaltos#salta(long)}.
+	 *
+	 * Verifica que um salto equivale a k passos da forma reduzida.
+	 *
+	 */
+	@Test
+	public void testSalta() {
+		final CollatzSaltos saltos = new CollatzSaltos(4);
+		// 27 -> 82 41 -> 124 62 -> 31 -> 94 47: 4 passos reduzidos, 7 itens
+		assertTrue(saltos.podeSaltar(27L));
+		assertEquals(47L, saltos.salta(27L));
+		assertEquals(7, saltos.passos(27L));
+		assertFalse(saltos.podeSaltar(16L));
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzIntervalo#executa()} com saltos.
+	 *
+	 * Valida que a varredura com saltos produz o mesmo resultado da varredura passo a passo.
+	 *
+	 */
+	@Test
+	public void testIntervaloComSaltos() {
+		final ResultadoIntervalo resultado = new CollatzIntervalo(1000000L, TabelaMemoria.paraLimite(1000000L),
+				new CollatzSaltos()).executaParalelo(2);
+		assertEquals(837799L, resultado.getNumeroMaiorSequencia());
+		assertEquals(525, resultado.getTamanhoMaiorSequencia());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzSaltos#CollatzSaltos(int)}.
+	 *
+	 * Verifica o comportamento do sistema no caso de uma quantidade de bits invalida.
+	 *
+	 */
+	@Test(expected = CollatzErro.class)
+	public void testBitsInvalidos() {
+		new CollatzSaltos(0);
+	}
+
+}
@@ -0,0 +1,167 @@
+/**
+ *
+ */
+package test.br.com.rjansen.desafios;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import br.com.rjansen.desafios.Collatz;
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+import br.com.rjansen.desafios.CollatzSequenciaCompacta;
+
+/**
+ * @author raphaeljansen
+ *
+ * Classe responsavel por efetuar os testes na classe CollatzSequenciaCompacta.
+ *
+ */
+public class CollatzSequenciaCompactaTest {
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzSequenciaCompacta#codifica(long)}.
+	 *
+	 * A sequencia decodificada deve ser igual a gerada diretamente.
+	 *
+	 */
+	@Test
+	public void testCodificaIgualSequencia() {
+		for (long numero = 1; numero <= 3000; numero++) {
+			final CollatzSequenciaCompacta sequencia = CollatzSequenciaCompacta.codifica(numero);
+			assertEquals(Collatz.sequencia(numero).boxed().collect(Collectors.toList()), sequencia.paraLista());
+			assertEquals(Collatz.tamanhoSequencia(numero), sequencia.getTamanho());
+			assertEquals(sequencia.paraLista().toString(), sequencia.formata());
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzSequenciaCompacta#valor(int)}.
+	 *
+	 * Acesso a posicoes avulsas da sequencia de 837799.
+	 *
+	 */
+	@Test
+	public void testValor() {
+		final CollatzSequenciaCompacta sequencia = CollatzSequenciaCompacta.codifica(837799L);
+		final long[] valores = Collatz.sequencia(837799L).toArray();
+		assertEquals(525, sequencia.getTamanho());
+		for (int posicao : new int[] { 0, 1, 63, 64, 200, 524 }) {
+			assertEquals(valores[posicao], sequencia.valor(posicao));
+		}
+		assertEquals(valores.length, sequencia.sequencia().count());
+		assertEquals(1L, sequencia.valor(524));
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzSequenciaCompacta#valor(int)}.
+	 *
+	 * Verifica o comportamento do sistema no caso de uma posicao fora da sequencia.
+	 *
+	 */
+	@Test(expected = CollatzErro.class)
+	public void testValorPosicaoInvalida() {
+		CollatzSequenciaCompacta.codifica(27L).valor(112);
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzSequenciaCompacta#paraBytes()}.
+	 *
+	 * A forma serializada deve ocupar o cabecalho mais um bit por item e voltar identica.
+	 *
+	 */
+	@Test
+	public void testParaBytesDeBytes() {
+		for (long numero : new long[] { 1L, 27L, 97L, 837799L, 63728127L }) {
+			final CollatzSequenciaCompacta sequencia = CollatzSequenciaCompacta.codifica(numero);
+			final byte[] bytes = sequencia.paraBytes();
+			assertEquals(12 + (sequencia.getTamanho() + 7) / 8, bytes.length);
+			assertEquals(bytes.length, sequencia.getTamanhoEmBytes());
+			final CollatzSequenciaCompacta lida = CollatzSequenciaCompacta.deBytes(bytes);
+			assertEquals(sequencia, lida);
+			assertEquals(sequencia.formata(), lida.formata());
+		}
+		assertEquals(131, CollatzSequenciaCompacta.codifica(63728127L).getTamanhoEmBytes());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzSequenciaCompacta#deBytes(byte[])}.
+	 *
+	 * Verifica o comportamento do sistema no caso de um bit de paridade corrompido.
+	 *
+	 */
+	@Test(expected = CollatzErro.class)
+	public void testDeBytesCorrompido() {
+		final byte[] bytes = CollatzSequenciaCompacta.codifica(27L).paraBytes();
+		bytes[14] ^= 4;
+		CollatzSequenciaCompacta.deBytes(bytes);
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzSequenciaCompacta#deBytes(byte[])}.
+	 *
+	 * Verifica o comportamento do sistema no caso de um bit ligado no complemento do ultimo byte.
+	 *
+	 */
+	@Test(expected = CollatzErro.class)
+	public void testDeBytesComplementoNaoNulo() {
+		final byte[] bytes = CollatzSequenciaCompacta.codifica(7L).paraBytes();
+		assertEquals(17, CollatzSequenciaCompacta.deBytes(bytes).getTamanho());
+		bytes[bytes.length - 1] |= (byte) 0x80;
+		CollatzSequenciaCompacta.deBytes(bytes);
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzSequenciaCompacta#deBytes(byte[])}.
+	 *
+	 * Verifica o comportamento do sistema no caso de paridades de uma sequencia que so chega ao 1 excedendo um inteiro longo.
+	 *
+	 */
+	@Test(expected = CollatzErro.class)
+	public void testDeBytesExcedeInteiroLongo() {
+		final long numeroInicial = 3371407021738721639L;
+		final ByteBuffer conteudo = ByteBuffer.allocate(12 + (474 + 7) / 8).order(ByteOrder.LITTLE_ENDIAN);
+		conteudo.putLong(numeroInicial).putInt(474);
+		final byte[] bytes = conteudo.array();
+		long valor = numeroInicial;
+		for (int i = 0; i < 474; i++) {
+			assertEquals(i == 473, valor == 1);
+			if ((valor & 1) == 1) {
+				bytes[12 + i / 8] |= 1 << (i & 7);
+				valor = 3 * valor + 1;
+			} else {
+				valor >>>= 1;
+			}
+		}
+		CollatzSequenciaCompacta.deBytes(bytes);
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzSequenciaCompacta#deBytes(byte[])}.
+	 *
+	 * Verifica o comportamento do sistema no caso de um tamanho incompativel com os bytes.
+	 *
+	 */
+	@Test(expected = CollatzErro.class)
+	public void testDeBytesTruncado() {
+		final byte[] bytes = CollatzSequenciaCompacta.codifica(27L).paraBytes();
+		CollatzSequenciaCompacta.deBytes(Arrays.copyOf(bytes, bytes.length - 1));
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzSequenciaCompacta#codifica(long)}.
+	 *
+	 * Verifica o comportamento do sistema no caso de um numero inicial invalido.
+	 *
+	 */
+	@Test(expected = CollatzErro.class)
+	public void testCodificaNumeroInvalido() {
+		CollatzSequenciaCompacta.codifica(0L);
+	}
+
+}
@@ -0,0 +1,133 @@
+/**
+ *
+ */
+package test.br.com.rjansen.desafios;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+import br.com.rjansen.desafios.CollatzIntervalo;
+import br.com.rjansen.desafios.CollatzIntervalo.ResultadoIntervalo;
+import br.com.rjansen.desafios.CollatzTabelaMapeada;
+
+/**
+ * @author raphaeljansen
+ *
+ * Classe responsavel por efetuar os testes na classe CollatzTabelaMapeada.
+ *
+ */
+public class CollatzTabelaMapeadaTest {
+
+	@Rule
+	public TemporaryFolder pastaTemporaria = new TemporaryFolder();
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzTabelaMapeada#abre(java.nio.file.Path, long)}.
+	 *
+	 * Executa duas varreduras seguidas com limites crescentes, a segunda deve continuar de onde a primeira parou.
+	 *
+	 */
+	@Test
+	public void testReaproveitaEntreExecucoes() throws IOException {
+		final Path arquivo = pastaTemporaria.getRoot().toPath().resolve("tamanhos.tbl");
+		try (CollatzTabelaMapeada tabela = CollatzTabelaMapeada.abre(arquivo, 1000L)) {
+			final ResultadoIntervalo resultado = new CollatzIntervalo(1000L, tabela).executa();
+			assertEquals(871L, resultado.getNumeroMaiorSequencia());
+			assertEquals(179, resultado.getTamanhoMaiorSequencia());
+		}
+		try (CollatzTabelaMapeada tabela = CollatzTabelaMapeada.abre(arquivo, 1000000L)) {
+			assertEquals(1000L, tabela.getResultadoConcluido().getLimite());
+			assertEquals(179, tabela.tamanho(871L));
+			assertEquals(0, tabela.tamanho(837799L));
+			final ResultadoIntervalo resultado = new CollatzIntervalo(1000000L, tabela).executaParalelo(4);
+			assertEquals(837799L, resultado.getNumeroMaiorSequencia());
+			assertEquals(525, resultado.getTamanhoMaiorSequencia());
+		}
+		try (CollatzTabelaMapeada tabela = CollatzTabelaMapeada.abre(arquivo, 500L)) {
+			final ResultadoIntervalo esperado = new CollatzIntervalo(500L).executa();
+			final ResultadoIntervalo resultado = new CollatzIntervalo(500L, tabela).executa();
+			assertEquals(esperado.getNumeroMaiorSequencia(), resultado.getNumeroMaiorSequencia());
+			assertEquals(1000000L, tabela.getResultadoConcluido().getLimite());
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzTabelaMapeada#abreLeitura(java.nio.file.Path)}.
+	 *
+	 * Abre a mesma tabela mais de uma vez para leitura, sem permitir alteracoes.
+	 *
+	 */
+	@Test
+	public void testLeituraSimultanea() throws IOException {
+		final Path arquivo = pastaTemporaria.getRoot().toPath().resolve("tamanhos.tbl");
+		try (CollatzTabelaMapeada tabela = CollatzTabelaMapeada.abre(arquivo, 100000L)) {
+			new CollatzIntervalo(100000L, tabela).executa();
+		}
+		try (CollatzTabelaMapeada leitor1 = CollatzTabelaMapeada.abreLeitura(arquivo);
+				CollatzTabelaMapeada leitor2 = CollatzTabelaMapeada.abreLeitura(arquivo)) {
+			assertEquals(leitor1.tamanho(77031L), leitor2.tamanho(77031L));
+			assertEquals(351, leitor1.tamanho(77031L));
+			final ResultadoIntervalo resultado = new CollatzIntervalo(200000L, leitor1).executa();
+			assertEquals(156159L, resultado.getNumeroMaiorSequencia());
+			assertEquals(100000L, leitor1.getResultadoConcluido().getLimite());
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzTabelaMapeada#tamanho(long)}.
+	 *
+	 * Um leitor nao responde entradas alem do limite concluido, mesmo que o escritor ja as tenha gravado.
+	 *
+	 */
+	@Test
+	public void testLeituraAteLimiteConcluido() throws IOException {
+		final Path arquivo = pastaTemporaria.getRoot().toPath().resolve("tamanhos.tbl");
+		try (CollatzTabelaMapeada tabela = CollatzTabelaMapeada.abre(arquivo, 1000L)) {
+			new CollatzIntervalo(100L, tabela).executa();
+			tabela.registra(871L, 179);
+			try (CollatzTabelaMapeada leitor = CollatzTabelaMapeada.abreLeitura(arquivo)) {
+				assertEquals(100L, leitor.getResultadoConcluido().getLimite());
+				assertEquals(119, leitor.tamanho(97L));
+				assertEquals(0, leitor.tamanho(871L));
+				assertEquals(179, tabela.tamanho(871L));
+			}
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzTabelaMapeada#abre(java.nio.file.Path, long)}.
+	 *
+	 * Verifica que apenas um escritor pode abrir a tabela por vez.
+	 *
+	 */
+	@Test(expected = CollatzErro.class)
+	public void testEscritaExclusiva() throws IOException {
+		final Path arquivo = pastaTemporaria.getRoot().toPath().resolve("tamanhos.tbl");
+		try (CollatzTabelaMapeada tabela = CollatzTabelaMapeada.abre(arquivo, 10L)) {
+			assertFalse(tabela.isSomenteLeitura());
+			CollatzTabelaMapeada.abre(arquivo, 10L);
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzTabelaMapeada#abreLeitura(java.nio.file.Path)}.
+	 *
+	 * Verifica o comportamento do sistema no caso de um arquivo que nao e uma tabela.
+	 *
+	 */
+	@Test(expected = CollatzErro.class)
+	public void testArquivoInvalido() throws IOException {
+		final Path arquivo = pastaTemporaria.newFile("invalido.tbl").toPath();
+		Files.write(arquivo, new byte[128]);
+		CollatzTabelaMapeada.abreLeitura(arquivo);
+	}
+
+}
@@ -5,12 +5,19 @@ package test.br.com.rjansen.desafios;
 
 import static org.junit.Assert.*;
 
+import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.List;
+import java.util.PrimitiveIterator;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import br.com.rjansen.desafios.Collatz;
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+import br.com.rjansen.desafios.CollatzIntervalo;
+import br.com.rjansen.desafios.CollatzSaltos;
 
 /**
  * @author raphaeljansen
@@ -20,6 +27,9 @@ import br.com.rjansen.desafios.Collatz;
  */
 public class CollatzTest {
 
+	@Rule
+	public TemporaryFolder pastaTemporaria = new TemporaryFolder();
+
 	/**
 	 * Método para testar {@link br.com.rjansen.desafios.Collatz#executa(java.lang.Long)}.
 	 * 
@@ -59,6 +69,91 @@ public class CollatzTest {
 			fail(String.format("O tempo limite de 5000ms de execucao foi excedido. Tempo execucao: %sms", tempoExecucao));
 	}
 
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.Collatz#tamanhoSequencia(long)}.
+	 * 
+	 * Valida se o tamanho calculado sem construir a lista e igual ao tamanho da sequencia gerada.
+	 * 
+	 */
+	@Test
+	public void testTamanhoSequencia() {
+		final Collatz collatz = new Collatz();
+		for (long k = 1; k <= 1000L; k++) {
+			collatz.executa(k);
+			assertEquals("Tamanho invalido para " + k, collatz.getSequenciaGerada().size(), Collatz.tamanhoSequencia(k));
+		}
+		assertEquals(525, Collatz.tamanhoSequencia(837799L));
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.Collatz#tamanhoSequencia(long)}.
+	 * 
+	 * Valida numeros cujas sequencias ultrapassam o maior inteiro longo, comparando com uma caminhada em BigInteger.
+	 * 
+	 */
+	@Test
+	public void testTamanhoSequenciaEstouroInteiroLongo() {
+		for (long numero : new long[] { (1L << 40) - 1, (1L << 60) - 1, (1L << 60) + 27 }) {
+			BigInteger valor = BigInteger.valueOf(numero);
+			int esperado = 1;
+			while (!valor.equals(BigInteger.ONE)) {
+				valor = valor.testBit(0) ? valor.multiply(BigInteger.valueOf(3)).add(BigInteger.ONE) : valor.shiftRight(1);
+				esperado++;
+			}
+			assertEquals("Tamanho invalido para " + numero, esperado, Collatz.tamanhoSequencia(numero));
+			assertEquals("Tamanho com saltos invalido para " + numero, esperado, new CollatzSaltos().tamanhoSequencia(numero));
+			assertEquals("Tamanho com tabela invalido para " + numero, esperado, new CollatzIntervalo(numero, 1000L).tamanho(numero));
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.Collatz#executa(java.lang.Long)}.
+	 * 
+	 * Verifica que a geracao da lista falha de forma explicita quando a sequencia ultrapassa o maior inteiro longo.
+	 * 
+	 */
+	@Test(expected = CollatzErro.class)
+	public void testExecutaEstouroInteiroLongo() {
+		new Collatz().executa((1L << 40) - 1);
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.Collatz#sequencia(long)}.
+	 * 
+	 * Valida a sequencia gerada sob demanda e consultas que param antes do fim da sequencia.
+	 * 
+	 */
+	@Test
+	public void testSequencia() {
+		final long[] resultadoEsperado = new long[] { 13L, 40L, 20L, 10L, 5L, 16L, 8L, 4L, 2L, 1L };
+		assertArrayEquals(resultadoEsperado, Collatz.sequencia(13L).toArray());
+		assertEquals(9232L, Collatz.sequencia(27L).max().getAsLong());
+		assertEquals(23L, Collatz.sequencia(27L).filter(valor -> valor < 27L).findFirst().getAsLong());
+		assertArrayEquals(new long[] { 27L, 82L, 41L }, Collatz.sequencia(27L).limit(3).toArray());
+		assertEquals(Collatz.tamanhoSequencia(837799L), Collatz.sequencia(837799L).count());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.Collatz#iteradorSequencia(long)}.
+	 * 
+	 * Verifica que o iterador pode ser consumido parcialmente mesmo quando a sequencia ultrapassa o maior inteiro longo.
+	 * 
+	 */
+	@Test
+	public void testIteradorSequenciaEstouroInteiroLongo() {
+		final PrimitiveIterator.OfLong sequencia = Collatz.iteradorSequencia((1L << 40) - 1);
+		assertEquals((1L << 40) - 1, sequencia.nextLong());
+		assertEquals(3 * ((1L << 40) - 1) + 1, sequencia.nextLong());
+		try {
+			while (sequencia.hasNext()) {
+				sequencia.nextLong();
+			}
+			fail("A sequencia deveria exceder o maior inteiro longo");
+		} catch (CollatzErro e) {
+			assertTrue(e.getMessage().startsWith("SequenciaExcedeInteiroLongo"));
+		}
+	}
+
 	/**
 	 * Método para testar {@link br.com.rjansen.desafios.Collatz#main(java.lang.String[])}.
 	 * 
@@ -71,6 +166,40 @@ public class CollatzTest {
 		Collatz.main(args);
 	}
 
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.Collatz#main(java.lang.String[])}.
+	 * 
+	 * Testa a execução do metodo principal informando o modo de varredura sequencial.
+	 * 
+	 */
+	@Test
+	public void testMainSequencial() {
+		final String[] args = new String[]{"13", "sequencial"};
+		Collatz.main(args);
+		args[1] = "podado";
+		Collatz.main(args);
+		args[1] = "ranking";
+		Collatz.main(args);
+		args[1] = "histograma";
+		Collatz.main(args);
+		args[1] = "pistas";
+		Collatz.main(args);
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.Collatz#main(java.lang.String[])}.
+	 * 
+	 * Executa o modo retomavel duas vezes com o mesmo ponto de controle, a segunda execucao apenas o carrega.
+	 * 
+	 */
+	@Test
+	public void testMainRetomavel() {
+		final String arquivo = pastaTemporaria.getRoot().toPath().resolve("varredura.pc").toString();
+		final String[] args = new String[]{"1000", "retomavel", "-", arquivo};
+		Collatz.main(args);
+		Collatz.main(args);
+	}
+
 	/**
 	 * Método para testar {@link br.com.rjansen.desafios.Collatz#main(java.lang.String[])}.
 	 * 
@@ -0,0 +1,78 @@
+/**
+ *
+ */
+package test.br.com.rjansen.desafios;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import br.com.rjansen.desafios.Collatz.CollatzErro;
+import br.com.rjansen.desafios.CollatzTrabalhador;
+
+/**
+ * @author raphaeljansen
+ *
+ * Classe responsavel por efetuar os testes na classe CollatzTrabalhador.
+ *
+ */
+public class CollatzTrabalhadorTest {
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzTrabalhador#trabalha(java.net.Socket)}.
+	 *
+	 * Simula o coordenador e verifica as respostas de duas fatias.
+	 *
+	 */
+	@Test
+	public void testTrabalha() throws Exception {
+		final CollatzTrabalhador trabalhador = new CollatzTrabalhador(2);
+		try (final ServerSocket servidor = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+			final Thread execucao = new Thread(() -> {
+				try {
+					trabalhador.trabalha(new Socket(InetAddress.getLoopbackAddress(), servidor.getLocalPort()));
+				} catch (Exception e) {
+					throw new CollatzErro(e);
+				}
+			});
+			execucao.start();
+			try (final Socket coordenador = servidor.accept();
+					final Writer saida = new OutputStreamWriter(coordenador.getOutputStream(), StandardCharsets.UTF_8);
+					final BufferedReader entrada = new BufferedReader(new InputStreamReader(
+							coordenador.getInputStream(), StandardCharsets.UTF_8))) {
+				saida.write("VARREDURA 1000 3\nFATIA 0 1 10\n");
+				saida.flush();
+				assertEquals("RESULTADO 0 9=20 7=17 6=9", entrada.readLine());
+				saida.write("FATIA 7 801 1000\n");
+				saida.flush();
+				assertEquals("RESULTADO 7 871=179 937=174 859=148", entrada.readLine());
+				saida.write("FIM\n");
+				saida.flush();
+			}
+			execucao.join(10000);
+			assertFalse(execucao.isAlive());
+		}
+		assertEquals(2L, trabalhador.getQuantidadeFatias());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.CollatzTrabalhador#CollatzTrabalhador(int)}.
+	 *
+	 * Verifica o comportamento do sistema no caso de um paralelismo invalido.
+	 *
+	 */
+	@Test(expected = CollatzErro.class)
+	public void testParalelismoInvalido() {
+		new CollatzTrabalhador(0);
+	}
+
+}
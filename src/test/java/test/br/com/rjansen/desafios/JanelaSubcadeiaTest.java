@@ -0,0 +1,80 @@
+/**
+ *
+ */
+package test.br.com.rjansen.desafios;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import br.com.rjansen.desafios.JanelaSubcadeia;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.CalculoErro;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.ResultadoSomaMaxima;
+
+/**
+ * @author raphaeljansen
+ *
+ * Classe responsavel por efetuar os testes na classe JanelaSubcadeia.
+ *
+ */
+public class JanelaSubcadeiaTest {
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.JanelaSubcadeia#getResultado()}.
+	 *
+	 * A cada item recebido compara o resultado da janela com o calculo sobre uma copia dos ultimos itens.
+	 *
+	 */
+	@Test
+	public void testGetResultadoIgualCalcula() {
+		final Random aleatorio = new Random(23);
+		for (int tamanhoJanela : new int[] { 1, 2, 3, 7, 50 }) {
+			final JanelaSubcadeia janela = new JanelaSubcadeia(tamanhoJanela);
+			final long[] fluxo = new long[1000];
+			for (int posicao = 0; posicao < fluxo.length; posicao++) {
+				fluxo[posicao] = aleatorio.nextInt(9) - 4;
+				janela.adiciona(fluxo[posicao]);
+				final int inicio = Math.max(0, posicao + 1 - tamanhoJanela);
+				assertEquals(inicio, janela.getInicioJanela());
+				assertEquals(posicao + 1L, janela.getQuantidade());
+				final ResultadoSomaMaxima trecho = SubcadeiaSomaMaxima.calcula(Arrays.copyOfRange(fluxo, inicio,
+						posicao + 1));
+				final ResultadoSomaMaxima esperado = trecho.isVazio() ? trecho : new ResultadoSomaMaxima(trecho.getSoma(),
+						trecho.getPosicaoInicial() + inicio, trecho.getPosicaoFinal() + inicio);
+				assertEquals(esperado, janela.getResultado());
+			}
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.JanelaSubcadeia#getResultado()}.
+	 *
+	 * A melhor subcadeia deixa a janela quando seus itens ficam antigos.
+	 *
+	 */
+	@Test
+	public void testGetResultadoItemSaiDaJanela() {
+		final JanelaSubcadeia janela = new JanelaSubcadeia(3);
+		assertTrue(janela.getResultado().isVazio());
+		for (long valor : new long[] { 100, -1, 2, -5 }) {
+			janela.adiciona(valor);
+		}
+		assertEquals(new ResultadoSomaMaxima(2, 2, 2), janela.getResultado());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.JanelaSubcadeia#JanelaSubcadeia(int)}.
+	 *
+	 * Verifica o comportamento do sistema no caso de uma janela sem itens.
+	 *
+	 */
+	@Test(expected = CalculoErro.class)
+	public void testTamanhoJanelaInvalido() {
+		new JanelaSubcadeia(0);
+	}
+
+}
@@ -0,0 +1,106 @@
+/**
+ *
+ */
+package test.br.com.rjansen.desafios;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import br.com.rjansen.desafios.LeitorNumeros;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.CalculoErro;
+
+/**
+ * @author raphaeljansen
+ *
+ * Classe responsavel por efetuar os testes na classe LeitorNumeros.
+ *
+ */
+public class LeitorNumerosTest {
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.LeitorNumeros#avanca()}.
+	 *
+	 * Le numeros com sinais e separadores variados, incluindo os extremos do inteiro longo, e informa a linha de cada um.
+	 *
+	 */
+	@Test
+	public void testAvanca() throws IOException {
+		final LeitorNumeros leitor = leitor("2, -4,6 \r\n+8;-10\t100\n\n,,-9223372036854775808 9223372036854775807");
+		final long[] valores = { 2, -4, 6, 8, -10, 100, Long.MIN_VALUE, Long.MAX_VALUE };
+		final long[] linhas = { 0, 0, 0, 1, 1, 1, 3, 3 };
+		for (int i = 0; i < valores.length; i++) {
+			assertTrue(leitor.avanca());
+			assertEquals(valores[i], leitor.getValor());
+			assertEquals(linhas[i], leitor.getLinha());
+		}
+		assertFalse(leitor.avanca());
+		assertEquals(8L, leitor.getQuantidade());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.LeitorNumeros#avanca()}.
+	 *
+	 * Numeros que atravessam o limite do buffer interno devem ser lidos inteiros.
+	 *
+	 */
+	@Test
+	public void testAvancaBufferCheio() throws IOException {
+		final StringBuilder texto = new StringBuilder();
+		for (int i = 0; i < 100000; i++) {
+			texto.append(i - 50000).append(',');
+		}
+		final LeitorNumeros leitor = leitor(texto.toString());
+		for (int i = 0; i < 100000; i++) {
+			assertTrue(leitor.avanca());
+			assertEquals(i - 50000L, leitor.getValor());
+		}
+		assertFalse(leitor.avanca());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.LeitorNumeros#avanca()}.
+	 *
+	 * Verifica o comportamento do sistema no caso de um item que nao e numero.
+	 *
+	 */
+	@Test(expected = CalculoErro.class)
+	public void testAvancaItemInvalido() throws IOException {
+		final LeitorNumeros leitor = leitor("1, 2x, 3");
+		assertTrue(leitor.avanca());
+		leitor.avanca();
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.LeitorNumeros#avanca()}.
+	 *
+	 * Verifica o comportamento do sistema no caso de um numero maior que o inteiro longo.
+	 *
+	 */
+	@Test(expected = CalculoErro.class)
+	public void testAvancaEstouro() throws IOException {
+		leitor("9223372036854775808").avanca();
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.LeitorNumeros#avanca()}.
+	 *
+	 * Verifica o comportamento do sistema no caso de um sinal sem numero.
+	 *
+	 */
+	@Test(expected = CalculoErro.class)
+	public void testAvancaSinalSemNumero() throws IOException {
+		final LeitorNumeros leitor = leitor("1, -, 3");
+		assertTrue(leitor.avanca());
+		leitor.avanca();
+	}
+
+	private static LeitorNumeros leitor(String texto) {
+		return new LeitorNumeros(new ByteArrayInputStream(texto.getBytes(StandardCharsets.US_ASCII)));
+	}
+
+}
@@ -0,0 +1,88 @@
+/**
+ *
+ */
+package test.br.com.rjansen.desafios;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+import br.com.rjansen.desafios.LoteSubcadeias;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.CalculoErro;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.ResultadoSomaMaxima;
+
+/**
+ * @author raphaeljansen
+ *
+ * Classe responsavel por efetuar os testes na classe LoteSubcadeias.
+ *
+ */
+public class LoteSubcadeiasTest {
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.LoteSubcadeias#processa(java.io.InputStream, java.io.OutputStream, int)}.
+	 *
+	 * Muitas cadeias, que ocupam varios blocos, e uma cadeia maior que um bloco devem responder na ordem, igual ao calculo de cada cadeia.
+	 *
+	 */
+	@Test
+	public void testProcessaIgualCalcula() throws IOException {
+		final Random aleatorio = new Random(47);
+		final StringBuilder entrada = new StringBuilder();
+		final StringBuilder esperado = new StringBuilder();
+		for (int linha = 0; linha < 30000; linha++) {
+			final long[] cadeia = new long[linha == 12345 ? 50000 : aleatorio.nextInt(12)];
+			for (int i = 0; i < cadeia.length; i++) {
+				cadeia[i] = aleatorio.nextInt(201) - 100;
+				entrada.append(i == 0 ? "" : i % 3 == 0 ? ", " : " ").append(cadeia[i]);
+			}
+			entrada.append(linha % 2 == 0 ? "\n" : "\r\n");
+			final ResultadoSomaMaxima resultado = SubcadeiaSomaMaxima.calcula(cadeia);
+			esperado.append(resultado.getSoma()).append(' ').append(resultado.getPosicaoInicial()).append(' ')
+					.append(resultado.getPosicaoFinal()).append('\n');
+		}
+		for (int paralelismo : new int[] { 1, 3 }) {
+			final ByteArrayOutputStream saida = new ByteArrayOutputStream();
+			assertEquals(30000L, processa(entrada.toString(), saida, paralelismo));
+			assertEquals(esperado.toString(), saida.toString("US-ASCII"));
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.LoteSubcadeias#processa(java.io.InputStream, java.io.OutputStream, int)}.
+	 *
+	 * Cadeias invalidas respondem com erro sem interromper o lote, e a ultima linha pode nao ter quebra de linha.
+	 *
+	 */
+	@Test
+	public void testProcessaCadeiaInvalida() throws IOException {
+		final ByteArrayOutputStream saida = new ByteArrayOutputStream();
+		assertEquals(5L, processa("2, -4, 6, 8, -10, 100, -6, 5\n1 2x 3\n\n-9223372036854775808 -\n-1 -2;3", saida, 2));
+		assertEquals("104 2 5\nERRO ItemInvalido: Item=2\n0 0 0\nERRO ItemInvalido: Item=2\n3 2 2\n",
+				saida.toString("US-ASCII"));
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.LoteSubcadeias#processa(java.io.InputStream, java.io.OutputStream, int)}.
+	 *
+	 * Verifica o comportamento do sistema no caso de um paralelismo invalido.
+	 *
+	 */
+	@Test(expected = CalculoErro.class)
+	public void testProcessaParalelismoInvalido() throws IOException {
+		processa("1", new ByteArrayOutputStream(), 0);
+	}
+
+	private static long processa(String entrada, ByteArrayOutputStream saida, int paralelismo) throws IOException {
+		return LoteSubcadeias.processa(new ByteArrayInputStream(entrada.getBytes(StandardCharsets.US_ASCII)), saida,
+				paralelismo);
+	}
+
+}
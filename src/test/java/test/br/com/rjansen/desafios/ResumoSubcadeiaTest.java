@@ -0,0 +1,86 @@
+/**
+ *
+ */
+package test.br.com.rjansen.desafios;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import br.com.rjansen.desafios.ResumoSubcadeia;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.CalculoErro;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.ResultadoSomaMaxima;
+
+/**
+ * @author raphaeljansen
+ *
+ * Classe responsavel por efetuar os testes na classe ResumoSubcadeia.
+ *
+ */
+public class ResumoSubcadeiaTest {
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.ResumoSubcadeia#combina(br.com.rjansen.desafios.ResumoSubcadeia)}.
+	 *
+	 * Divide cadeias aleatorias em tres trechos em todas as posicoes possiveis; as duas ordens de combinacao devem reproduzir o calculo sequencial.
+	 *
+	 */
+	@Test
+	public void testCombinaIgualCalcula() {
+		final Random aleatorio = new Random(7);
+		for (int teste = 0; teste < 300; teste++) {
+			final long[] cadeia = new long[1 + aleatorio.nextInt(16)];
+			for (int i = 0; i < cadeia.length; i++) {
+				cadeia[i] = aleatorio.nextInt(7) - 3;
+			}
+			final ResultadoSomaMaxima esperado = SubcadeiaSomaMaxima.calcula(cadeia);
+			for (int a = 0; a <= cadeia.length; a++) {
+				for (int b = a; b <= cadeia.length; b++) {
+					final ResumoSubcadeia esquerda = resume(cadeia, 0, a);
+					final ResumoSubcadeia direita = resume(cadeia, b, cadeia.length);
+					assertEquals(esperado, esquerda.combina(resume(cadeia, a, b)).combina(direita).getResultado());
+					assertEquals(esperado, resume(cadeia, 0, a).combina(resume(cadeia, a, b).combina(direita))
+							.getResultado());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.ResumoSubcadeia#adiciona(long)}.
+	 *
+	 * Verifica a soma total, o melhor prefixo e o melhor sufixo, com os desempates.
+	 *
+	 */
+	@Test
+	public void testAdiciona() {
+		final ResumoSubcadeia resumo = new ResumoSubcadeia(10).adiciona(new long[] { -2, 3, -3, 3, -1 }, 0, 5);
+		assertEquals(10L, resumo.getInicio());
+		assertEquals(15L, resumo.getFim());
+		assertEquals(0L, resumo.getTotal());
+		assertEquals(1L, resumo.getSomaPrefixo());
+		assertEquals(11L, resumo.getFimPrefixo());
+		assertEquals(2L, resumo.getSomaSufixo());
+		assertEquals(11L, resumo.getInicioSufixo());
+		assertEquals(new ResultadoSomaMaxima(3, 11, 11), resumo.getResultado());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.ResumoSubcadeia#combina(br.com.rjansen.desafios.ResumoSubcadeia)}.
+	 *
+	 * Verifica o comportamento do sistema no caso de trechos que nao sao vizinhos.
+	 *
+	 */
+	@Test(expected = CalculoErro.class)
+	public void testCombinaNaoAdjacentes() {
+		new ResumoSubcadeia(0).adiciona(1).combina(new ResumoSubcadeia(2).adiciona(1));
+	}
+
+	private static ResumoSubcadeia resume(long[] cadeia, int de, int ate) {
+		return new ResumoSubcadeia(de).adiciona(cadeia, de, ate);
+	}
+
+}
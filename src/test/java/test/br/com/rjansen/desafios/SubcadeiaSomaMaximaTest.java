@@ -5,14 +5,25 @@ package test.br.com.rjansen.desafios;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import br.com.rjansen.desafios.SubcadeiaSomaMaxima;
 import br.com.rjansen.desafios.SubcadeiaSomaMaxima.CalculoErro;
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.ResultadoSomaMaxima;
 import br.com.rjansen.desafios.SubcadeiaSomaMaxima.ResultadoSubcadeiaMaxima;
 
 /**
@@ -23,6 +34,9 @@ import br.com.rjansen.desafios.SubcadeiaSomaMaxima.ResultadoSubcadeiaMaxima;
  */
 public class SubcadeiaSomaMaximaTest {
 
+	@Rule
+	public TemporaryFolder pastaTemporaria = new TemporaryFolder();
+
 	/**
 	 * Método para testar {@link br.com.rjansen.desafios.SubcadeiaSomaMaxima#calcula(java.util.List)}.
 	 * 
@@ -68,6 +82,274 @@ public class SubcadeiaSomaMaximaTest {
 		assertTrue("Subcadeia nao esta vazia", resultadoSomaMaxima.getSubCadeia().isEmpty());
 	}
 
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.SubcadeiaSomaMaxima#calcula(java.util.List)}.
+	 * 
+	 * A subcadeia formada apenas pelo primeiro item e as subcadeias que terminam depois da metade da cadeia devem ser encontradas.
+	 * 
+	 */
+	@Test
+	public void testCalculaExtremos() {
+		final ResultadoSubcadeiaMaxima primeiro = SubcadeiaSomaMaxima.calcula(Arrays.asList(5, -10, 1));
+		assertEquals(Integer.valueOf(5), primeiro.getValorSoma());
+		assertEquals(Arrays.asList(5), primeiro.getSubCadeia());
+		final ResultadoSubcadeiaMaxima ultimo = SubcadeiaSomaMaxima.calcula(Arrays.asList(-1, -1, -1, 7));
+		assertEquals(Integer.valueOf(3), ultimo.getPosicaoInicialNaCadeia());
+		assertEquals(Integer.valueOf(3), ultimo.getPosicaoFinalNaCadeia());
+		assertEquals(Arrays.asList(7), ultimo.getSubCadeia());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.SubcadeiaSomaMaxima#calcula(int[])}.
+	 * 
+	 * Compara a passagem unica com todas as subcadeias possiveis, incluindo o desempate pelo menor inicio e pelo menor fim.
+	 * 
+	 */
+	@Test
+	public void testCalculaIgualForcaBruta() {
+		final Random aleatorio = new Random(42);
+		for (int teste = 0; teste < 2000; teste++) {
+			final int[] cadeia = new int[aleatorio.nextInt(30)];
+			for (int i = 0; i < cadeia.length; i++) {
+				cadeia[i] = aleatorio.nextInt(7) - 3;
+			}
+			final ResultadoSomaMaxima esperado = forcaBruta(cadeia);
+			assertEquals(esperado, SubcadeiaSomaMaxima.calcula(cadeia));
+			assertEquals(esperado, SubcadeiaSomaMaxima.calcula(Arrays.stream(cadeia).asLongStream().toArray()));
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.SubcadeiaSomaMaxima#calcula(int[])}.
+	 * 
+	 * Empates de soma e cadeias sem soma positiva.
+	 * 
+	 */
+	@Test
+	public void testCalculaEmpatesENegativos() {
+		assertEquals(new ResultadoSomaMaxima(3, 0, 0), SubcadeiaSomaMaxima.calcula(new int[] { 3, -3, 3 }));
+		assertEquals(new ResultadoSomaMaxima(2, 0, 1), SubcadeiaSomaMaxima.calcula(new int[] { 0, 2, -2, 2 }));
+		final ResultadoSomaMaxima negativos = SubcadeiaSomaMaxima.calcula(new int[] { -3, -1, -2 });
+		assertTrue(negativos.isVazio());
+		assertEquals(new ResultadoSomaMaxima(0, 0, 0), negativos);
+		assertEquals(0L, negativos.getTamanho());
+		assertTrue(SubcadeiaSomaMaxima.calcula(Arrays.asList(-3, -1, -2)).getSubCadeia().isEmpty());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.SubcadeiaSomaMaxima#calcula(int[])}.
+	 * 
+	 * A soma de uma cadeia longa de inteiros ultrapassa o limite de um inteiro de 32 bits.
+	 * 
+	 */
+	@Test
+	public void testCalculaCadeiaLonga() {
+		final int[] cadeia = new int[10000000];
+		Arrays.fill(cadeia, Integer.MAX_VALUE);
+		cadeia[0] = -1;
+		final ResultadoSomaMaxima resultado = SubcadeiaSomaMaxima.calcula(cadeia);
+		assertEquals((cadeia.length - 1L) * Integer.MAX_VALUE, resultado.getSoma());
+		assertEquals(1L, resultado.getPosicaoInicial());
+		assertEquals(cadeia.length - 1L, resultado.getPosicaoFinal());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.SubcadeiaSomaMaxima#calcula(java.util.List)}.
+	 * 
+	 * Verifica o comportamento do sistema no caso de uma soma maior que um inteiro.
+	 * 
+	 */
+	@Test(expected = CalculoErro.class)
+	public void testCalculaSomaExcedeInteiro() {
+		SubcadeiaSomaMaxima.calcula(Arrays.asList(Integer.MAX_VALUE, 1));
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.SubcadeiaSomaMaxima#calculaParalelo(int[], int)}.
+	 * 
+	 * O calculo paralelo deve reproduzir exatamente o sequencial, inclusive as posicoes em caso de empate entre blocos.
+	 * 
+	 */
+	@Test
+	public void testCalculaParaleloIgualCalcula() {
+		final Random aleatorio = new Random(11);
+		for (int tamanho : new int[] { 0, 1, 65536, 65537, 1000000 }) {
+			final int[] cadeia = new int[tamanho];
+			for (int i = 0; i < cadeia.length; i++) {
+				cadeia[i] = aleatorio.nextInt(7) - 3;
+			}
+			final long[] cadeiaLongos = Arrays.stream(cadeia).asLongStream().toArray();
+			for (int paralelismo : new int[] { 1, 4 }) {
+				assertEquals(SubcadeiaSomaMaxima.calcula(cadeia), SubcadeiaSomaMaxima.calculaParalelo(cadeia, paralelismo));
+				assertEquals(SubcadeiaSomaMaxima.calcula(cadeiaLongos),
+						SubcadeiaSomaMaxima.calculaParalelo(cadeiaLongos, paralelismo));
+			}
+		}
+		final int[] empate = new int[300000];
+		empate[10] = 5;
+		empate[200000] = 5;
+		empate[299999] = -1;
+		assertEquals(new ResultadoSomaMaxima(10, 0, 200000), SubcadeiaSomaMaxima.calculaParalelo(empate, 2));
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.SubcadeiaSomaMaxima#calculaParalelo(int[], int)}.
+	 * 
+	 * Verifica o comportamento do sistema no caso de um paralelismo invalido.
+	 * 
+	 */
+	@Test(expected = CalculoErro.class)
+	public void testCalculaParaleloParalelismoInvalido() {
+		SubcadeiaSomaMaxima.calculaParalelo(new int[] { 1 }, 0);
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.SubcadeiaSomaMaxima#calcula(long[], int, int)}.
+	 * 
+	 * Compara o calculo com tamanho limitado com todas as subcadeias de tamanho permitido.
+	 * 
+	 */
+	@Test
+	public void testCalculaTamanhoLimitadoIgualForcaBruta() {
+		final Random aleatorio = new Random(29);
+		for (int teste = 0; teste < 2000; teste++) {
+			final int[] cadeia = new int[aleatorio.nextInt(25)];
+			for (int i = 0; i < cadeia.length; i++) {
+				cadeia[i] = aleatorio.nextInt(9) - 4;
+			}
+			final int tamanhoMinimo = 1 + aleatorio.nextInt(6);
+			final int tamanhoMaximo = tamanhoMinimo + aleatorio.nextInt(8);
+			final ResultadoSomaMaxima esperado = forcaBruta(cadeia, tamanhoMinimo, tamanhoMaximo);
+			assertEquals(esperado, SubcadeiaSomaMaxima.calcula(cadeia, tamanhoMinimo, tamanhoMaximo));
+			assertEquals(esperado, SubcadeiaSomaMaxima.calcula(Arrays.stream(cadeia).asLongStream().toArray(),
+					tamanhoMinimo, tamanhoMaximo));
+		}
+		final int[] cadeia = { 2, -4, 6, 8, -10, 100, -6, 5 };
+		assertEquals(SubcadeiaSomaMaxima.calcula(cadeia), SubcadeiaSomaMaxima.calcula(cadeia, 1, cadeia.length));
+		assertEquals(new ResultadoSomaMaxima(94, 5, 6), SubcadeiaSomaMaxima.calcula(cadeia, 2, 2));
+		assertEquals(new ResultadoSomaMaxima(99, 5, 7), SubcadeiaSomaMaxima.calcula(cadeia, 3, 3));
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.SubcadeiaSomaMaxima#calcula(int[], int, int)}.
+	 * 
+	 * Verifica o comportamento do sistema no caso de um tamanho maximo menor que o minimo.
+	 * 
+	 */
+	@Test(expected = CalculoErro.class)
+	public void testCalculaTamanhosInvalidos() {
+		SubcadeiaSomaMaxima.calcula(new int[] { 1, 2, 3 }, 3, 2);
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.SubcadeiaSomaMaxima#calculaMaiores(long[], int)}.
+	 * 
+	 * Compara com o calculo repetido sobre a cadeia, mascarando a cada passo a subcadeia escolhida.
+	 * 
+	 */
+	@Test
+	public void testCalculaMaioresIgualCalculoMascarado() {
+		final Random aleatorio = new Random(31);
+		for (int teste = 0; teste < 500; teste++) {
+			final long[] cadeia = new long[1 + aleatorio.nextInt(40)];
+			for (int i = 0; i < cadeia.length; i++) {
+				cadeia[i] = aleatorio.nextInt(9) - 4;
+			}
+			final int quantidade = 1 + aleatorio.nextInt(6);
+			final List<ResultadoSomaMaxima> esperado = new ArrayList<>();
+			final long[] mascarada = cadeia.clone();
+			while (esperado.size() < quantidade) {
+				final ResultadoSomaMaxima melhor = SubcadeiaSomaMaxima.calcula(mascarada);
+				if (melhor.isVazio()) {
+					break;
+				}
+				esperado.add(melhor);
+				for (long i = melhor.getPosicaoInicial(); i <= melhor.getPosicaoFinal(); i++) {
+					mascarada[(int) i] = -1000000L;
+				}
+			}
+			assertEquals(esperado, SubcadeiaSomaMaxima.calculaMaiores(cadeia, quantidade));
+		}
+		assertEquals(Arrays.asList(new ResultadoSomaMaxima(104, 2, 5), new ResultadoSomaMaxima(5, 7, 7),
+				new ResultadoSomaMaxima(2, 0, 0)),
+				SubcadeiaSomaMaxima.calculaMaiores(new int[] { 2, -4, 6, 8, -10, 100, -6, 5 }, 10));
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.SubcadeiaSomaMaxima#calculaMaiores(int[], int)}.
+	 * 
+	 * Verifica o comportamento do sistema no caso de uma quantidade invalida.
+	 * 
+	 */
+	@Test(expected = CalculoErro.class)
+	public void testCalculaMaioresQuantidadeInvalida() {
+		SubcadeiaSomaMaxima.calculaMaiores(new int[] { 1 }, 0);
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.SubcadeiaSomaMaxima#calcula(java.io.InputStream)}.
+	 * 
+	 * A leitura em fluxo deve reproduzir o calculo sobre a cadeia inteira.
+	 * 
+	 */
+	@Test
+	public void testCalculaFluxoIgualCalcula() throws IOException {
+		final Random aleatorio = new Random(13);
+		final long[] cadeia = new long[200000];
+		final StringBuilder texto = new StringBuilder();
+		for (int i = 0; i < cadeia.length; i++) {
+			cadeia[i] = aleatorio.nextInt(2001) - 1000;
+			texto.append(cadeia[i]).append(i % 10 == 9 ? "\n" : ", ");
+		}
+		assertEquals(SubcadeiaSomaMaxima.calcula(cadeia), SubcadeiaSomaMaxima.calcula(new ByteArrayInputStream(texto
+				.toString().getBytes(StandardCharsets.US_ASCII))));
+		assertEquals(200000L, SubcadeiaSomaMaxima.resume(new ByteArrayInputStream(texto.toString().getBytes(
+				StandardCharsets.US_ASCII))).getFim());
+		assertTrue(SubcadeiaSomaMaxima.calcula(new ByteArrayInputStream(new byte[0])).isVazio());
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.SubcadeiaSomaMaxima#main(java.lang.String[])}.
+	 * 
+	 * Verifica a execucao do metodo principal no modo int64, lendo um arquivo binario.
+	 * 
+	 */
+	@Test
+	public void testExecucaoMainBinario() throws IOException {
+		final File arquivo = pastaTemporaria.newFile("cadeia.bin");
+		final ByteBuffer conteudo = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+		for (long item : new long[] { 2, -4, 6, 8, -10, 100, -6, 5 }) {
+			conteudo.putLong(item);
+		}
+		Files.write(arquivo.toPath(), conteudo.array());
+		SubcadeiaSomaMaxima.main(new String[] { arquivo.getAbsolutePath(), "int64", "2" });
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.SubcadeiaSomaMaxima#main(java.lang.String[])}.
+	 * 
+	 * Verifica a execucao do metodo principal no modo fluxo, lendo a cadeia de um arquivo.
+	 * 
+	 */
+	@Test
+	public void testExecucaoMainFluxo() throws IOException {
+		final File arquivo = pastaTemporaria.newFile("cadeia.txt");
+		Files.write(arquivo.toPath(), "2, -4, 6, 8\n-10, 100, -6, 5\n".getBytes(StandardCharsets.US_ASCII));
+		SubcadeiaSomaMaxima.main(new String[] { arquivo.getAbsolutePath(), "fluxo" });
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.SubcadeiaSomaMaxima#main(java.lang.String[])}.
+	 * 
+	 * Verifica o comportamento do sistema no caso de um arquivo inexistente no modo fluxo.
+	 * 
+	 */
+	@Test(expected = CalculoErro.class)
+	public void testMainFluxoArquivoInexistente() {
+		SubcadeiaSomaMaxima.main(new String[] { new File(pastaTemporaria.getRoot(), "inexistente").getAbsolutePath(),
+				"fluxo" });
+	}
+
 	/**
 	 * Método para testar {@link br.com.rjansen.desafios.SubcadeiaSomaMaxima#main(java.lang.String[])}.
 	 * 
@@ -92,4 +374,38 @@ public class SubcadeiaSomaMaximaTest {
 		SubcadeiaSomaMaxima.main(args);
 	}
 
+	private static ResultadoSomaMaxima forcaBruta(int[] cadeia) {
+		long maiorSoma = 0;
+		int inicio = 0, fim = 0;
+		for (int primeiro = 0; primeiro < cadeia.length; primeiro++) {
+			long soma = 0;
+			for (int ultimo = primeiro; ultimo < cadeia.length; ultimo++) {
+				soma += cadeia[ultimo];
+				if (soma > maiorSoma) {
+					maiorSoma = soma;
+					inicio = primeiro;
+					fim = ultimo;
+				}
+			}
+		}
+		return new ResultadoSomaMaxima(maiorSoma, inicio, fim);
+	}
+
+	private static ResultadoSomaMaxima forcaBruta(int[] cadeia, int tamanhoMinimo, int tamanhoMaximo) {
+		long maiorSoma = 0;
+		int inicio = 0, fim = 0;
+		for (int primeiro = 0; primeiro < cadeia.length; primeiro++) {
+			long soma = 0;
+			for (int ultimo = primeiro; ultimo < cadeia.length && ultimo - primeiro < tamanhoMaximo; ultimo++) {
+				soma += cadeia[ultimo];
+				if (ultimo - primeiro + 1 >= tamanhoMinimo && soma > maiorSoma) {
+					maiorSoma = soma;
+					inicio = primeiro;
+					fim = ultimo;
+				}
+			}
+		}
+		return new ResultadoSomaMaxima(maiorSoma, inicio, fim);
+	}
+
 }
@@ -0,0 +1,123 @@
+/**
+ *
+ */
+package test.br.com.rjansen.desafios;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+import br.com.rjansen.desafios.SubcadeiaSomaMaxima.CalculoErro;
+import br.com.rjansen.desafios.SubmatrizSomaMaxima;
+import br.com.rjansen.desafios.SubmatrizSomaMaxima.ResultadoSubmatriz;
+
+/**
+ * @author raphaeljansen
+ *
+ * Classe responsavel por efetuar os testes na classe SubmatrizSomaMaxima.
+ *
+ */
+public class SubmatrizSomaMaximaTest {
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.SubmatrizSomaMaxima#calcula()}.
+	 *
+	 * Compara com todos os retangulos de matrizes aleatorias, mais largas e mais altas, incluindo os desempates.
+	 *
+	 */
+	@Test
+	public void testCalculaIgualForcaBruta() {
+		final Random aleatorio = new Random(41);
+		for (int teste = 0; teste < 400; teste++) {
+			final int linhas = 1 + aleatorio.nextInt(9);
+			final int colunas = 1 + aleatorio.nextInt(9);
+			final long[] valores = new long[linhas * colunas];
+			for (int i = 0; i < valores.length; i++) {
+				valores[i] = aleatorio.nextInt(7) - 4;
+			}
+			final SubmatrizSomaMaxima matriz = new SubmatrizSomaMaxima(linhas, colunas, valores);
+			final ResultadoSubmatriz esperado = forcaBruta(linhas, colunas, valores);
+			assertEquals(esperado, matriz.calcula());
+			assertEquals(esperado, matriz.calcula(3));
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.SubmatrizSomaMaxima#calcula(int)}.
+	 *
+	 * Matriz grande o suficiente para ser dividida em varias tarefas.
+	 *
+	 */
+	@Test
+	public void testCalculaParalelo() {
+		final Random aleatorio = new Random(43);
+		final long[] valores = new long[120 * 300];
+		for (int i = 0; i < valores.length; i++) {
+			valores[i] = aleatorio.nextInt(201) - 100;
+		}
+		for (int[] dimensoes : new int[][] { { 120, 300 }, { 300, 120 } }) {
+			final SubmatrizSomaMaxima matriz = new SubmatrizSomaMaxima(dimensoes[0], dimensoes[1], valores);
+			assertEquals(matriz.calcula(), matriz.calcula(4));
+		}
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.SubmatrizSomaMaxima#le(java.io.InputStream)}.
+	 *
+	 * Le uma matriz com linhas em branco e calcula o retangulo de maior soma.
+	 *
+	 */
+	@Test
+	public void testLe() throws IOException {
+		final SubmatrizSomaMaxima matriz = le("0 -2 -7 0\n9, 2, -6, 2\n\n-4 1 -4 1\r\n-1 8 0 -2\n");
+		assertEquals(4, matriz.getLinhas());
+		assertEquals(4, matriz.getColunas());
+		assertEquals(8L, matriz.item(3, 1));
+		assertEquals(new ResultadoSubmatriz(15, 1, 0, 3, 1), matriz.calcula());
+		assertEquals(new ResultadoSubmatriz(0, 0, 0, 0, 0), le("-1 -2\n-3 -4").calcula(2));
+		assertEquals(new ResultadoSubmatriz(0, 0, 0, 0, 0), le("").calcula(2));
+	}
+
+	/**
+	 * Método para testar {@link br.com.rjansen.desafios.SubmatrizSomaMaxima#le(java.io.InputStream)}.
+	 *
+	 * Verifica o comportamento do sistema no caso de linhas com quantidades diferentes de itens.
+	 *
+	 */
+	@Test(expected = CalculoErro.class)
+	public void testLeMatrizIrregular() throws IOException {
+		le("1 2 3\n4 5\n");
+	}
+
+	private static SubmatrizSomaMaxima le(String texto) throws IOException {
+		return SubmatrizSomaMaxima.le(new ByteArrayInputStream(texto.getBytes(StandardCharsets.US_ASCII)));
+	}
+
+	private static ResultadoSubmatriz forcaBruta(int linhas, int colunas, long[] valores) {
+		ResultadoSubmatriz melhor = new ResultadoSubmatriz(0, 0, 0, 0, 0);
+		for (int linhaInicial = 0; linhaInicial < linhas; linhaInicial++) {
+			for (int linhaFinal = linhaInicial; linhaFinal < linhas; linhaFinal++) {
+				for (int colunaInicial = 0; colunaInicial < colunas; colunaInicial++) {
+					for (int colunaFinal = colunaInicial; colunaFinal < colunas; colunaFinal++) {
+						long soma = 0;
+						for (int linha = linhaInicial; linha <= linhaFinal; linha++) {
+							for (int coluna = colunaInicial; coluna <= colunaFinal; coluna++) {
+								soma += valores[linha * colunas + coluna];
+							}
+						}
+						if (soma > melhor.getSoma()) {
+							melhor = new ResultadoSubmatriz(soma, linhaInicial, colunaInicial, linhaFinal, colunaFinal);
+						}
+					}
+				}
+			}
+		}
+		return melhor;
+	}
+
+}